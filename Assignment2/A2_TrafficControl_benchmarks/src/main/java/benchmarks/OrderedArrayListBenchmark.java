@@ -0,0 +1,111 @@
+package benchmarks;
+
+import models.Car;
+import models.OrderedArrayList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the searching, merging and sorting of an OrderedArrayList of cars.
+ * The list holds size cars, of which the first sortedFraction has been sorted
+ * and the remainder has been appended in random order afterwards, like after merging new items.
+ * The searches and merges pick their items at random from the whole list,
+ * so a smaller sortedFraction shows the cost of the linear search of the unsorted section.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderedArrayListBenchmark {
+    private static final int NUMBER_OF_PROBES = 1 << 12;
+
+    @Param({ "1000", "100000", "1000000" })
+    int size;
+
+    @Param({ "1.0", "0.999", "0.9" })
+    double sortedFraction;
+
+    List<Car> sortedCars;                   // the cars of the sorted section, in random order
+    List<Car> unsortedCars;                 // the cars that are appended after the sort
+    OrderedArrayList<Car> cars;
+    Car[] probes;                           // copies of random cars from the list
+    int nextProbe;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(size);
+        List<Car> allCars = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            allCars.add(new Car(VaultGenerator.licensePlate(i)));
+        }
+        Collections.shuffle(allCars, random);
+        int nSorted = (int) Math.round(size * sortedFraction);
+        sortedCars = allCars.subList(0, nSorted);
+        unsortedCars = allCars.subList(nSorted, size);
+
+        cars = createList(this);
+
+        probes = new Car[NUMBER_OF_PROBES];
+        for (int p = 0; p < NUMBER_OF_PROBES; p++) {
+            probes[p] = new Car(allCars.get(random.nextInt(size)).getLicensePlate());
+        }
+    }
+
+    static OrderedArrayList<Car> createList(OrderedArrayListBenchmark state) {
+        OrderedArrayList<Car> cars = new OrderedArrayList<>(Car::compareByLicensePlate);
+        cars.addAll(state.sortedCars);
+        cars.sort();
+        cars.addAll(state.unsortedCars);
+        return cars;
+    }
+
+    private Car nextProbe() {
+        return probes[nextProbe++ & (NUMBER_OF_PROBES - 1)];
+    }
+
+    @Benchmark
+    public int indexOfByIterativeBinarySearch() {
+        return cars.indexOfByIterativeBinarySearch(nextProbe());
+    }
+
+    @Benchmark
+    public int indexOfByRecursiveBinarySearch() {
+        return cars.indexOfByRecursiveBinarySearch(nextProbe());
+    }
+
+    @Benchmark
+    public boolean merge() {
+        // all probes match an item of the list, so the size of the list does not change
+        return cars.merge(nextProbe(), (car, other) -> car);
+    }
+
+    /**
+     * provides a fresh copy of the partially sorted list for every sort
+     */
+    @State(Scope.Thread)
+    public static class UnsortedList {
+        OrderedArrayList<Car> cars;
+
+        @Setup(Level.Invocation)
+        public void setup(OrderedArrayListBenchmark state) {
+            cars = createList(state);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 20)
+    public OrderedArrayList<Car> sort(UnsortedList unsortedList) {
+        unsortedList.cars.sort();
+        return unsortedList.cars;
+    }
+}
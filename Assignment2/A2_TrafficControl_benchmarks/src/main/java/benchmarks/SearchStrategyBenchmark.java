@@ -0,0 +1,59 @@
+package benchmarks;
+
+import models.Car;
+import models.OrderedArrayList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the search strategies of an OrderedArrayList on license plate lookups in a fully sorted list of cars.
+ * The lookups pick copies of random cars from the list, so every search finds its item.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchStrategyBenchmark {
+    private static final int NUMBER_OF_PROBES = 1 << 12;
+
+    @Param({ "1000", "200000", "1000000" })
+    int size;
+
+    @Param({ "ITERATIVE_BINARY", "RECURSIVE_BINARY", "BRANCHLESS_BINARY", "EXPONENTIAL", "EYTZINGER" })
+    OrderedArrayList.SearchStrategy strategy;
+
+    OrderedArrayList<Car> cars;
+    Car[] probes;                           // copies of random cars from the list
+    int nextProbe;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(size);
+        List<Car> allCars = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            allCars.add(new Car(VaultGenerator.licensePlate(i)));
+        }
+        Collections.shuffle(allCars, random);
+        cars = new OrderedArrayList<>(Car::compareByLicensePlate);
+        cars.addAll(allCars);
+        cars.sort();
+        cars.setSearchStrategy(strategy);
+
+        probes = new Car[NUMBER_OF_PROBES];
+        for (int p = 0; p < NUMBER_OF_PROBES; p++) {
+            probes[p] = new Car(allCars.get(random.nextInt(size)).getLicensePlate());
+        }
+    }
+
+    @Benchmark
+    public int indexOf() {
+        return cars.indexOf(probes[nextProbe++ & (NUMBER_OF_PROBES - 1)]);
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import models.TrafficTracker;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end import of a vault by the TrafficTracker.
+ * By default the 2023-09 vault of the resources is imported, any other vault folder can be selected by
+ *      -p vault=folder
+ * e.g. a vault of 10M detections that has been generated by the VaultGenerator.
+ * The progress lines of the tracker are suppressed during the measurements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class TrafficTrackerImportBenchmark {
+
+    @Param({ "../A2_TrafficControl_starter/src/main/resources/2023-09" })
+    String vault;
+
+    File carsFile;
+    File detectionsFolder;
+    PrintStream console;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        carsFile = new File(vault, "cars.txt");
+        detectionsFolder = new File(vault, "detections");
+        if (!carsFile.isFile() || !detectionsFolder.isDirectory()) {
+            throw new IllegalArgumentException("No vault found at: " + new File(vault).getAbsolutePath());
+        }
+        console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    /**
+     * provides every detections import with a fresh tracker that knows the registered cars only
+     */
+    @State(Scope.Thread)
+    public static class CarsImported {
+        TrafficTracker trafficTracker;
+
+        @Setup(Level.Invocation)
+        public void setup(TrafficTrackerImportBenchmark state) {
+            trafficTracker = new TrafficTracker();
+            trafficTracker.importCarsFromFile(state.carsFile);
+        }
+    }
+
+    @Benchmark
+    public TrafficTracker importCarsFromFile() {
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromFile(carsFile);
+        return trafficTracker;
+    }
+
+    @Benchmark
+    public double importDetectionsFromFolder(CarsImported carsImported) {
+        carsImported.trafficTracker.importDetectionsFromFolder(detectionsFolder);
+        return carsImported.trafficTracker.calculateTotalFines();
+    }
+}
@@ -0,0 +1,141 @@
+package benchmarks;
+
+import models.Car;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Generates a synthetic vault with the same layout and line formats as the vaults in the resources:
+ *      folder/cars.txt
+ *      folder/detections/city/n.txt
+ * Any number of cars and detections can be generated, e.g. 10M+ detections for scaling the import benchmarks.
+ * All lines are written on the fly, so the size of the vault is not limited by the heap.
+ * The same seed yields the same vault.
+ */
+public class VaultGenerator {
+    private static final String[] CITIES = { "Amsterdam", "Den Haag", "Eindhoven", "Leiden", "Rotterdam", "Utrecht" };
+    private static final Car.CarType[] CAR_TYPES =
+            { Car.CarType.Car, Car.CarType.Car, Car.CarType.Car, Car.CarType.Car, Car.CarType.Van, Car.CarType.Truck, Car.CarType.Coach };
+    private static final Car.FuelType[] FUEL_TYPES =
+            { Car.FuelType.Gasoline, Car.FuelType.Gasoline, Car.FuelType.Lpg, Car.FuelType.Diesel, Car.FuelType.Electric };
+    private static final long NUMBER_OF_PLATES = 26L * 26 * 26 * 100 * 26;
+    private static final long PLATE_STRIDE = 7919;     // coprime with NUMBER_OF_PLATES, spreads consecutive plates
+    private static final LocalDateTime START_OF_MONTH = LocalDateTime.of(2023, 9, 1, 0, 0);
+    private static final int SECONDS_IN_MONTH = 30 * 24 * 3600;
+
+    private final Random random;
+    private final int numberOfCars;
+    private final double unknownCarsFraction;   // the fraction of detections of cars that are not registered
+
+    public VaultGenerator(int numberOfCars, double unknownCarsFraction, long seed) {
+        if (numberOfCars <= 0) throw new IllegalArgumentException("numberOfCars must be positive");
+        this.numberOfCars = numberOfCars;
+        this.unknownCarsFraction = unknownCarsFraction;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * usage: VaultGenerator folder numberOfCars numberOfDetections [filesPerCity [seed]]
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("usage: VaultGenerator folder numberOfCars numberOfDetections [filesPerCity [seed]]");
+            return;
+        }
+        File folder = new File(args[0]);
+        int numberOfCars = Integer.parseInt(args[1]);
+        long numberOfDetections = Long.parseLong(args[2]);
+        int filesPerCity = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 2023;
+
+        long started = System.nanoTime();
+        new VaultGenerator(numberOfCars, 0.01, seed).generate(folder, numberOfDetections, filesPerCity);
+        System.out.printf("Generated %d cars and %d detections in %s in %.1f s.\n",
+                numberOfCars, numberOfDetections, folder.getPath(), (System.nanoTime() - started) / 1E9);
+    }
+
+    /**
+     * writes cars.txt and the detection files into the folder
+     * @param folder                the root folder of the vault, which will be created if needed
+     * @param numberOfDetections    the total number of detections, spread evenly over all files
+     * @param filesPerCity
+     */
+    public void generate(File folder, long numberOfDetections, int filesPerCity) {
+        this.generateCars(new File(folder, "cars.txt"));
+
+        int numberOfFiles = CITIES.length * filesPerCity;
+        for (int f = 0; f < numberOfFiles; f++) {
+            String city = CITIES[f % CITIES.length];
+            File file = new File(new File(new File(folder, "detections"), city), (f / CITIES.length) * 6 + ".txt");
+            long detectionsInFile = numberOfDetections / numberOfFiles + (f < numberOfDetections % numberOfFiles ? 1 : 0);
+            this.generateDetections(file, city, detectionsInFile);
+        }
+    }
+
+    public void generateCars(File carsFile) {
+        try (BufferedWriter writer = createWriter(carsFile)) {
+            for (int c = 0; c < this.numberOfCars; c++) {
+                LocalDate dateOfAdmission = LocalDate.of(2000, 1, 1).plusDays(this.random.nextInt(24 * 365));
+                writer.write(String.format("%s, %d, %s, %s, %s",
+                        licensePlate(c),
+                        this.random.nextInt(10),
+                        CAR_TYPES[this.random.nextInt(CAR_TYPES.length)],
+                        FUEL_TYPES[this.random.nextInt(FUEL_TYPES.length)],
+                        dateOfAdmission));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write cars file: " + carsFile.getPath());
+        }
+    }
+
+    public void generateDetections(File detectionsFile, String city, long numberOfDetections) {
+        try (BufferedWriter writer = createWriter(detectionsFile)) {
+            for (long d = 0; d < numberOfDetections; d++) {
+                // unknown cars get plates beyond those of the registered cars
+                long car = this.random.nextDouble() < this.unknownCarsFraction
+                        ? this.numberOfCars + this.random.nextInt(this.numberOfCars)
+                        : this.random.nextInt(this.numberOfCars);
+                writer.write(licensePlate(car));
+                writer.write(", ");
+                writer.write(city);
+                writer.write(", ");
+                writer.write(START_OF_MONTH.plusSeconds(this.random.nextInt(SECONDS_IN_MONTH)).toString());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write detections file: " + detectionsFile.getPath());
+        }
+    }
+
+    /**
+     * @param index a number between 0 and 45,697,600
+     * @return      a unique license plate for each index, in the format LLL-99-L
+     */
+    public static String licensePlate(long index) {
+        long code = Math.floorMod(index * PLATE_STRIDE, NUMBER_OF_PLATES);
+        char[] plate = new char[8];
+        plate[7] = (char) ('A' + code % 26);
+        code /= 26;
+        plate[5] = (char) ('0' + code % 10);
+        plate[4] = (char) ('0' + code / 10 % 10);
+        code /= 100;
+        plate[2] = (char) ('A' + code % 26);
+        plate[1] = (char) ('A' + code / 26 % 26);
+        plate[0] = (char) ('A' + code / 676);
+        plate[3] = plate[6] = '-';
+        return new String(plate);
+    }
+
+    private static BufferedWriter createWriter(File file) throws IOException {
+        Files.createDirectories(file.toPath().getParent());
+        return Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package models;
+
+import java.util.Arrays;
+
+public class ArrayViolationTable implements ViolationTable {
+    private static final long EMPTY_KEY = -1L;      // no valid (carIndex, cityId) pair encodes to -1
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;            // the encoded (carIndex, cityId) key of every slot, or EMPTY_KEY
+    private int[] offencesCounts;   // the accumulated offences count of every occupied slot
+    private int size;               // the number of occupied slots
+    private long totalOffences;     // the sum of all offences counts in the table
+
+    /* Representation Invariant:
+     *      keys.length == offencesCounts.length is a power of 2
+     *      every key is found by linear probing from its hashed slot, without passing an EMPTY_KEY slot
+     *      size <= keys.length / 2
+     */
+
+    public ArrayViolationTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public ArrayViolationTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(INITIAL_CAPACITY, 2 * expectedSize) - 1) << 1;
+        this.keys = new long[capacity];
+        this.offencesCounts = new int[capacity];
+        Arrays.fill(this.keys, EMPTY_KEY);
+    }
+
+    @Override
+    public void addOffences(int carIndex, int cityId, int offencesCount) {
+        long key = encode(carIndex, cityId);
+        int slot = findSlot(this.keys, key);
+        boolean isNewKey = this.keys[slot] == EMPTY_KEY;
+        this.keys[slot] = key;
+        this.offencesCounts[slot] += offencesCount;
+        this.totalOffences += offencesCount;
+
+        if (isNewKey && ++this.size > this.keys.length / 2) {
+            this.grow();
+        }
+    }
+
+    @Override
+    public int getOffencesCount(int carIndex, int cityId) {
+        int slot = findSlot(this.keys, encode(carIndex, cityId));
+        return this.keys[slot] == EMPTY_KEY ? 0 : this.offencesCounts[slot];
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long totalOffences() {
+        return this.totalOffences;
+    }
+
+    @Override
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            long key = this.keys[slot];
+            if (key != EMPTY_KEY) {
+                consumer.accept((int) (key >>> 32), (int) key, this.offencesCounts[slot]);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.keys, EMPTY_KEY);
+        Arrays.fill(this.offencesCounts, 0);
+        this.size = 0;
+        this.totalOffences = 0;
+    }
+
+    /**
+     * doubles the capacity of the table and rehashes all occupied slots
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldCounts = this.offencesCounts;
+        this.keys = new long[2 * oldKeys.length];
+        this.offencesCounts = new int[2 * oldKeys.length];
+        Arrays.fill(this.keys, EMPTY_KEY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = findSlot(this.keys, oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.offencesCounts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * finds the slot that holds the key, or the empty slot where it shall be inserted
+     */
+    private static int findSlot(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    static long encode(int carIndex, int cityId) {
+        if (carIndex < 0 || cityId < 0) throw new IllegalArgumentException("carIndex and cityId cannot be negative");
+        return ((long) carIndex << 32) | cityId;
+    }
+
+    static int hash(long key) {
+        // spread the bits of both the carIndex and the cityId over the lower bits of the hash
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -51,29 +51,31 @@ public class Car implements Comparable<Car> {
      *          or null if the textLine is corrupt, incomplete or empty
      */
     public static Car fromLine(String textLine) {
+        return fromLine(textLine, ParseErrorHandler.PRINT);
+    }
 
-        Car newCar = null;
+    /**
+     * parses car information from a textLine, like fromLine(textLine), without throwing exceptions on corrupt fields
+     * @param textLine
+     * @param errorHandler  receives the textLine if any of its fields is corrupt
+     * @return  a new Car instance with the provided information
+     *          or null if the textLine is corrupt, incomplete or empty
+     */
+    public static Car fromLine(String textLine, ParseErrorHandler errorHandler) {
 
         // extract the comma-separated fields from the textLine
-        String[] fields = textLine.split(",");
-        if (fields.length >= 5) {
-            try {
-                // parse the fields and instantiate a new car
-                newCar = new Car(
-                        fields[0].trim(),
-                        Integer.parseInt(fields[1].trim()),
-                        CarType.valueOf(fields[2].trim()),
-                        FuelType.valueOf(fields[3].trim()),
-                        LocalDate.parse(fields[4].trim())
-                );
-            } catch (Exception e) {
-                // any of the parse and valueOf methods could throw an exception on a format mismatch
-                System.out.printf("Could not parse Car specification in text line '%s'\n", textLine);
-                System.out.println(e.getMessage());
-            }
-        }
-
-        return newCar;
+        LineParser fields = new LineParser("Car", textLine);
+        if (fields.numberOfFields() < 5) return null;
+
+        // validate and convert the fields
+        String licensePlate = fields.text(0);
+        int emissionCategory = fields.integer(1);
+        CarType carType = fields.enumConstant(2, CarType.class);
+        FuelType fuelType = fields.enumConstant(3, FuelType.class);
+        LocalDate dateOfAdmission = fields.date(4);
+        if (fields.rejectOnError(errorHandler)) return null;
+
+        return new Car(licensePlate, emissionCategory, carType, fuelType, dateOfAdmission);
     }
 
     public String getLicensePlate() {
@@ -0,0 +1,139 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ * Maps city names to small int ids, and keeps a single canonical String instance of every name.
+ * Names can be looked up directly from a range of characters of a text line, without allocating a substring,
+ * so parsers only create a String for the first occurrence of every city.
+ * Lookups are lock-free; registrations of new names are serialised and publish a new copy of the tables,
+ * which is cheap since the number of distinct cities is small. The dictionary can be shared by parallel imports.
+ */
+public class CityDictionary {
+    private static final int EMPTY_SLOT = -1;
+
+    private volatile Tables tables;     // the current, immutable tables
+
+    /* Representation Invariant:
+     *      tables.namesById[tables.slots[s]] is the name that hashes to slot s, or the slot is EMPTY_SLOT
+     *      ids are handed out consecutively from 0, in order of first registration
+     */
+
+    public CityDictionary() {
+        this.tables = new Tables(new String[0], 8);
+    }
+
+    /**
+     * finds the id of the given city name, registering the name with a new id if it is not known yet
+     * @param city  the name of the city
+     * @return      the small, non-negative id of the city
+     */
+    public int idOf(String city) {
+        if (city == null) throw new IllegalArgumentException("city cannot be null");
+        return this.idOf(city, 0, city.length());
+    }
+
+    /**
+     * finds the id of the city name in text[from..to), registering the name with a new id if it is not known yet
+     * @param text  e.g. a line of text that contains the name of the city
+     * @param from  the index of the first character of the name
+     * @param to    the index behind the last character of the name
+     * @return      the small, non-negative id of the city
+     */
+    public int idOf(CharSequence text, int from, int to) {
+        int hash = hashOf(text, from, to);
+        int id = this.tables.find(text, from, to, hash);
+        return id != EMPTY_SLOT ? id : this.register(text, from, to, hash);
+    }
+
+    /**
+     * @param city  the name of a city
+     * @return      the canonical instance of the name, which is shared by all users of the dictionary
+     */
+    public String canonical(String city) {
+        return this.nameOf(this.idOf(city));
+    }
+
+    /**
+     * @return      the canonical instance of the city name in text[from..to)
+     */
+    public String canonical(CharSequence text, int from, int to) {
+        return this.nameOf(this.idOf(text, from, to));
+    }
+
+    /**
+     * retrieves the name of the city that has been registered with the given id
+     * @param id
+     * @return      the name of the city
+     */
+    public String nameOf(int id) {
+        String[] namesById = this.tables.namesById;
+        if (id < 0 || id >= namesById.length) throw new IndexOutOfBoundsException("No city with id " + id);
+        return namesById[id];
+    }
+
+    /**
+     * @return      the number of distinct cities registered in this dictionary
+     */
+    public int size() {
+        return this.tables.namesById.length;
+    }
+
+    private synchronized int register(CharSequence text, int from, int to, int hash) {
+        // another thread may have registered the same name in the mean time
+        Tables tables = this.tables;
+        int id = tables.find(text, from, to, hash);
+        if (id == EMPTY_SLOT) {
+            String[] namesById = Arrays.copyOf(tables.namesById, tables.namesById.length + 1);
+            id = namesById.length - 1;
+            namesById[id] = text.subSequence(from, to).toString();
+            int capacity = tables.slots.length;
+            this.tables = new Tables(namesById, 2 * namesById.length > capacity ? 2 * capacity : capacity);
+        }
+        return id;
+    }
+
+    private static int hashOf(CharSequence text, int from, int to) {
+        // the same hash as String.hashCode
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+
+    private static class Tables {
+        final String[] namesById;
+        final int[] slots;              // open addressing table of ids, with linear probing
+
+        Tables(String[] namesById, int capacity) {
+            this.namesById = namesById;
+            this.slots = new int[capacity];
+            Arrays.fill(this.slots, EMPTY_SLOT);
+            for (int id = 0; id < namesById.length; id++) {
+                int slot = namesById[id].hashCode() & (capacity - 1);
+                while (this.slots[slot] != EMPTY_SLOT) slot = (slot + 1) & (capacity - 1);
+                this.slots[slot] = id;
+            }
+        }
+
+        int find(CharSequence text, int from, int to, int hash) {
+            int mask = this.slots.length - 1;
+            for (int slot = hash & mask; this.slots[slot] != EMPTY_SLOT; slot = (slot + 1) & mask) {
+                String name = this.namesById[this.slots[slot]];
+                if (name.hashCode() == hash && contentEquals(name, text, from, to)) {
+                    return this.slots[slot];
+                }
+            }
+            return EMPTY_SLOT;
+        }
+
+        private static boolean contentEquals(String name, CharSequence text, int from, int to) {
+            if (name.length() != to - from) return false;
+            for (int i = 0; i < name.length(); i++) {
+                if (name.charAt(i) != text.charAt(from + i)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A thread-safe OrderedList, which can be updated by many threads at the same time.
+ * The items are held in a concurrent skip list map, which keeps them ordered by the sortOrder at all times.
+ * Items that compare equal by the sortOrder are considered the same item, so the list holds no duplicates:
+ * add refuses an item that is already present, and merge combines it with the present item atomically.
+ * All read access by position (get, size, iteration, indexOfByBinarySearch, aggregate) is served from
+ * a sorted snapshot array, which is taken while updates are paused briefly, such that it is fully consistent.
+ * A new snapshot is taken on the first read access after any change.
+ * Updates proceed in parallel, unless secondary indexes have been registered: every update then changes the items
+ * and the indexes one at a time, such that the indexes receive the changes in the order in which they took effect.
+ */
+public class ConcurrentOrderedList<E> extends AbstractList<E> implements OrderedList<E> {
+    private static final Object[] EMPTY = new Object[0];
+
+    private final Comparator<? super E> sortOrder;
+    private final ConcurrentSkipListMap<E, E> items;       // every item is mapped onto itself
+    private final AtomicLong version = new AtomicLong();    // incremented on every change of the items
+    // updates share the read lock amongst each other, taking a snapshot requires exclusive access
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final List<SecondaryIndex<E>> secondaryIndexes = new CopyOnWriteArrayList<>();
+    private final Lock indexLock = new ReentrantLock();     // orders the updates while secondary indexes are registered
+    private volatile Snapshot snapshot = new Snapshot(EMPTY, 0);
+
+    public ConcurrentOrderedList(Comparator<? super E> sortOrder) {
+        if (sortOrder == null) throw new IllegalArgumentException("sortOrder cannot be null");
+        this.sortOrder = sortOrder;
+        this.items = new ConcurrentSkipListMap<>(sortOrder);
+    }
+
+    @Override
+    public Comparator<? super E> getSortOrder() {
+        return this.sortOrder;
+    }
+
+    /**
+     * the items are always ordered, sort only ensures that a consistent snapshot of the current items is available
+     */
+    @Override
+    public void sort() {
+        this.snapshot();
+    }
+
+    @Override
+    public void sort(Comparator<? super E> c) {
+        if (c != this.sortOrder) {
+            throw new UnsupportedOperationException("ConcurrentOrderedList cannot be re-sorted by another comparator");
+        }
+        this.sort();
+    }
+
+    /**
+     * adds the item, unless an item that compares equal by the sortOrder is present already
+     * @param item
+     * @return whether the item was added
+     */
+    @Override
+    public boolean add(E item) {
+        if (item == null) throw new IllegalArgumentException("item cannot be null");
+        boolean indexed = this.startUpdate();
+        try {
+            boolean added = this.items.putIfAbsent(item, item) == null;
+            if (added) {
+                this.version.incrementAndGet();
+                if (indexed) {
+                    for (SecondaryIndex<E> index : this.secondaryIndexes) {
+                        index.inserted(item);
+                    }
+                }
+            }
+            return added;
+        } finally {
+            this.finishUpdate(indexed);
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> newItems) {
+        boolean changed = false;
+        for (E item : newItems) {
+            changed |= this.add(item);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean remove(Object item) {
+        boolean indexed = this.startUpdate();
+        try {
+            E removedItem = this.items.remove(item);
+            if (removedItem == null) return false;
+            this.version.incrementAndGet();
+            if (indexed) {
+                for (SecondaryIndex<E> index : this.secondaryIndexes) {
+                    index.removed(removedItem);
+                }
+            }
+            return true;
+        } finally {
+            this.finishUpdate(indexed);
+        }
+    }
+
+    /**
+     * finds and removes the item at the position of the current items in one atomic step
+     * @param index
+     * @return the removed item
+     * @throws IndexOutOfBoundsException if the index is not a position of the current items
+     */
+    @Override
+    public E remove(int index) {
+        // the exclusive lock pauses all updates, so the item at the index cannot be removed or replaced meanwhile
+        this.snapshotLock.writeLock().lock();
+        try {
+            Snapshot current = this.snapshot;
+            Object[] items = current.version == this.version.get() ? current.items : this.items.values().toArray();
+            Objects.checkIndex(index, items.length);
+            E item = uncheckedCast(items[index]);
+            this.items.remove(item);
+            this.version.incrementAndGet();
+            for (SecondaryIndex<E> secondaryIndex : this.secondaryIndexes) {
+                secondaryIndex.removed(item);
+            }
+            return item;
+        } finally {
+            this.snapshotLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        this.snapshotLock.writeLock().lock();
+        try {
+            this.items.clear();
+            this.version.incrementAndGet();
+            for (SecondaryIndex<E> index : this.secondaryIndexes) {
+                index.rebuild(Collections.emptyList());
+            }
+        } finally {
+            this.snapshotLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * finds a match of newItem in the list and replaces it atomically by the outcome of the merger,
+     * or else adds the newItem to the list
+     * the merger may be applied more than once if other threads merge into the same item at the same time,
+     * so it shall not have side effects on the items that it is given
+     * @param newItem
+     * @param merger
+     * @return whether a new item was added to the list or not
+     */
+    @Override
+    public boolean merge(E newItem, BinaryOperator<E> merger) {
+        if (newItem == null) return false;
+        Object[] replacement = new Object[2];   // the matched item, or null, and the item that replaces it
+        boolean indexed = this.startUpdate();
+        try {
+            // compute retries the remapping until no other thread has replaced the item in between,
+            // so the replacement of the last attempt is the one that took effect
+            this.items.compute(newItem, (key, item) -> {
+                replacement[0] = item;
+                replacement[1] = item == null ? newItem : merger.apply(item, newItem);
+                return uncheckedCast(replacement[1]);
+            });
+            this.version.incrementAndGet();
+            if (indexed) {
+                for (SecondaryIndex<E> index : this.secondaryIndexes) {
+                    if (replacement[0] == null) {
+                        index.inserted(newItem);
+                    } else {
+                        index.replaced(uncheckedCast(replacement[0]), uncheckedCast(replacement[1]));
+                    }
+                }
+            }
+            return replacement[0] == null;
+        } finally {
+            this.finishUpdate(indexed);
+        }
+    }
+
+    @Override
+    public E get(int index) {
+        return this.snapshot().get(index);
+    }
+
+    @Override
+    public int size() {
+        return this.snapshot().items.length;
+    }
+
+    @Override
+    public int indexOf(Object item) {
+        return this.indexOfByBinarySearch(uncheckedCast(item));
+    }
+
+    /**
+     * finds the matching item in the skip list map itself, so the lookup does not need a snapshot
+     */
+    @Override
+    public E find(E searchItem) {
+        return searchItem != null ? this.items.get(searchItem) : null;
+    }
+
+    @Override
+    public int indexOfByBinarySearch(E searchItem) {
+        if (searchItem == null) return -1;
+        E[] items = uncheckedCast(this.snapshot().items);
+        int index = Arrays.binarySearch(items, searchItem, this.sortOrder);
+        return Math.max(index, -1);
+    }
+
+    @Override
+    public int lowerBound(E searchItem) {
+        List<E> items = this.snapshot().asList();
+        return OrderedList.partitionPoint(items, 0, items.size(), item -> this.sortOrder.compare(item, searchItem) < 0);
+    }
+
+    @Override
+    public int upperBound(E searchItem) {
+        List<E> items = this.snapshot().asList();
+        return OrderedList.partitionPoint(items, 0, items.size(), item -> this.sortOrder.compare(item, searchItem) <= 0);
+    }
+
+    /**
+     * provides the items in a range of the sort order, as a view on the current snapshot
+     */
+    @Override
+    public List<E> range(E fromItem, E toItem) {
+        List<E> items = this.snapshot().asList();
+        int from = OrderedList.partitionPoint(items, 0, items.size(), item -> this.sortOrder.compare(item, fromItem) < 0);
+        int to = OrderedList.partitionPoint(items, from, items.size(), item -> this.sortOrder.compare(item, toItem) < 0);
+        return items.subList(from, to);
+    }
+
+    /**
+     * provides the items with a key that starts with the prefix, as a view on the current snapshot
+     */
+    @Override
+    public List<E> prefixRange(Function<? super E, String> key, String prefix) {
+        List<E> items = this.snapshot().asList();
+        int from = OrderedList.partitionPoint(items, 0, items.size(), item -> key.apply(item).compareTo(prefix) < 0);
+        int to = OrderedList.partitionPoint(items, from, items.size(), OrderedList.isBeforeOrHasPrefix(key, prefix));
+        return items.subList(from, to);
+    }
+
+    @Override
+    public double aggregate(Function<E, Double> mapper) {
+        double sum = 0.0;
+        for (Object item : this.snapshot().items) {
+            sum += mapper.apply(uncheckedCast(item));
+        }
+        return sum;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return this.snapshot().asList().iterator();
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return this.snapshot().asList().spliterator();
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        this.snapshot().asList().forEach(action);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return this.snapshot().items.clone();
+    }
+
+    @Override
+    public SecondaryIndex<E> addSecondaryIndex(Comparator<? super E> sortOrder) {
+        // the exclusive lock pauses all updates, so the index starts from the current items without missing any change
+        this.snapshotLock.writeLock().lock();
+        try {
+            SecondaryIndex<E> index = new SecondaryIndex<>(sortOrder, this.sortOrder, this.items.values());
+            this.secondaryIndexes.add(index);
+            return index;
+        } finally {
+            this.snapshotLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeSecondaryIndex(SecondaryIndex<E> index) {
+        return this.secondaryIndexes.remove(index);
+    }
+
+    /**
+     * starts an update of the items, which holds off taking a snapshot until the update is finished
+     * while secondary indexes are registered, the update also waits for any other update to finish
+     * @return whether the update shall be reported to the secondary indexes
+     */
+    private boolean startUpdate() {
+        this.snapshotLock.readLock().lock();
+        if (this.secondaryIndexes.isEmpty()) return false;
+        this.indexLock.lock();
+        return true;
+    }
+
+    private void finishUpdate(boolean indexed) {
+        if (indexed) this.indexLock.unlock();
+        this.snapshotLock.readLock().unlock();
+    }
+
+    /**
+     * @return a consistent snapshot of the current items, in sort order
+     */
+    private Snapshot snapshot() {
+        Snapshot current = this.snapshot;
+        if (current.version == this.version.get()) {
+            return current;
+        }
+        this.snapshotLock.writeLock().lock();
+        try {
+            // another thread may have taken the snapshot while we were waiting for the lock
+            if (this.snapshot.version != this.version.get()) {
+                this.snapshot = new Snapshot(this.items.values().toArray(), this.version.get());
+            }
+            current = this.snapshot;
+        } finally {
+            this.snapshotLock.writeLock().unlock();
+        }
+        return current;
+    }
+
+    private class Snapshot {
+        final Object[] items;
+        final long version;
+
+        Snapshot(Object[] items, long version) {
+            this.items = items;
+            this.version = version;
+        }
+
+        E get(int index) {
+            return uncheckedCast(this.items[index]);
+        }
+
+        List<E> asList() {
+            E[] items = uncheckedCast(this.items);
+            return Collections.unmodifiableList(Arrays.asList(items));
+        }
+    }
+
+    /**
+     * casts an item, or the array of the items, of the list back to its type
+     * the items have all been added as an E, and a search item of another type fails on the sortOrder
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T uncheckedCast(Object value) {
+        return (T) value;
+    }
+}
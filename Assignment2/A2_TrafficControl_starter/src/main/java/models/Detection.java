@@ -4,9 +4,6 @@ import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 
-import static models.Car.CarType;
-import static models.Car.FuelType;
-
 public class Detection {
     private final Car car;                  // the car that was detected
     private final String city;              // the name of the city where the detector was located
@@ -36,29 +33,89 @@ public class Detection {
      * or null if the textLine is corrupt or incomplete
      */
     public static Detection fromLine(String textLine, List<Car> cars) {
+        return fromLine(textLine, cars, ParseErrorHandler.PRINT);
+    }
 
-        Detection newDetection;
-        try {
-            String newCity = (textLine.split(",")[1].trim());
-
-            LocalDateTime newDate = (LocalDateTime.parse(textLine.split(",")[2].trim()));
+    /**
+     * parses detection information from a textLine, like fromLine(textLine, cars),
+     * without throwing exceptions on corrupt fields
+     * the name of the city is not shared with other detections, pass a CityDictionary for that
+     * @param textLine
+     * @param cars
+     * @param errorHandler  receives the textLine if it is incomplete or any of its fields is corrupt
+     * @return a new Detection instance with the provided information
+     * or null if the textLine is corrupt or incomplete
+     */
+    public static Detection fromLine(String textLine, List<Car> cars, ParseErrorHandler errorHandler) {
+        return fromLine(textLine, cars, null, null, errorHandler);
+    }
 
-            //  use the cars.indexOf to find the car that is associated with the licensePlate of the detection
-            Car newCar = cars.stream().filter(car -> car.getLicensePlate().equals(textLine.split(",")[0].trim())).findFirst().orElse(null);
-            //  if no car can be found a new Car shall be instantiated and added to the list and associated with the detection
-            if (newCar == null) {
-                newCar = new Car(textLine.split(",")[0].trim());
-                cars.add(newCar);
-            }
+    /**
+     * parses detection information from a textLine, like fromLine(textLine, cars, errorHandler),
+     * taking the name of the city from the dictionary, such that all detections in a city share the same String
+     * @param textLine
+     * @param cars
+     * @param cities        the dictionary of city names, which is extended with new cities
+     * @param errorHandler
+     * @return a new Detection instance with the provided information
+     * or null if the textLine is corrupt or incomplete
+     */
+    public static Detection fromLine(String textLine, List<Car> cars, CityDictionary cities, ParseErrorHandler errorHandler) {
+        return fromLine(textLine, cars, null, cities, errorHandler);
+    }
 
-            newDetection = new Detection(newCar, newCity, newDate);
-            return newDetection;
+    /**
+     * parses detection information from a textLine, like fromLine(textLine, cars, cities, errorHandler),
+     * but takes any car that is not found in the cars list from the cache of unregistered cars,
+     * instead of adding it to the list
+     * @param textLine
+     * @param cars          the registered cars, which remain unchanged if a cache is provided
+     * @param unregisteredCars  the cache of unregistered cars, or null to add unknown cars to the cars list
+     * @param cities        the dictionary of city names, or null to take the name of the city from the textLine as is
+     * @param errorHandler
+     * @return a new Detection instance with the provided information
+     * or null if the textLine is corrupt or incomplete
+     */
+    public static Detection fromLine(String textLine, List<Car> cars, UnregisteredCarCache unregisteredCars,
+                                     CityDictionary cities, ParseErrorHandler errorHandler) {
 
-        } catch (Exception e) {
-            System.out.printf("Could not parse Detection specification in text line '%s'\n", textLine);
-            System.out.println(e.getMessage());
+        // validate and convert the fields, before any unknown car is added to the list
+        LineParser fields = new LineParser("Detection", textLine);
+        if (!fields.requireFields(3)) {
+            fields.rejectOnError(errorHandler);
             return null;
         }
+        String licensePlate = fields.text(0);
+        String newCity = cities != null ? fields.text(1, cities) : fields.text(1);
+        LocalDateTime newDate = fields.dateTime(2);
+        if (fields.rejectOnError(errorHandler)) return null;
+
+        //  find the car that is associated with the licensePlate of the detection
+        Car newCar = new Car(licensePlate);
+        Car knownCar = findCar(cars, newCar);
+        if (knownCar != null) {
+            newCar = knownCar;
+        } else if (unregisteredCars != null) {
+            newCar = unregisteredCars.carOf(licensePlate);
+        } else {
+            //  if no car can be found the new Car shall be added to the list and associated with the detection
+            cars.add(newCar);
+        }
+
+        return new Detection(newCar, newCity, newDate);
+    }
+
+    /**
+     * finds the car with the license plate of the searchCar, by the key lookup of an OrderedList
+     * or else by cars.indexOf
+     * @return the car in the list, or null if it is not found
+     */
+    private static Car findCar(List<Car> cars, Car searchCar) {
+        if (cars instanceof OrderedList) {
+            return ((OrderedList<Car>) cars).find(searchCar);
+        }
+        int index = cars.indexOf(searchCar);
+        return index >= 0 ? cars.get(index) : null;
     }
 
     /**
@@ -69,9 +126,19 @@ public class Detection {
      *          null if no offence was found.
      */
     public Violation validatePurple() {
-        if (car.getFuelType() == FuelType.Diesel && (car.getCarType() == CarType.Coach || car.getCarType() == CarType.Truck)
-                && car.getEmissionCategory() < 6) {
-            return new Violation(car, city);
+        return validate(ZoneRuleSet.PURPLE);
+    }
+
+    /**
+     * Validates a detection against the given set of environmental zone rules
+     * @param zoneRules the compiled rules that apply to the city and date of the detection
+     * @return a Violation instance, carrying the fine of the violated rule, if the detection saw an offence/
+     *          null if no offence was found.
+     */
+    public Violation validate(ZoneRuleSet zoneRules) {
+        ZoneRule violatedRule = zoneRules.findViolatedRule(car, city, dateTime.toLocalDate());
+        if (violatedRule != null) {
+            return new Violation(car, city, violatedRule.getFine());
         }
 
         return null;
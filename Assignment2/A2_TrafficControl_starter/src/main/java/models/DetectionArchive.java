@@ -0,0 +1,280 @@
+package models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary archive of detections, which can be replayed much faster than re-parsing the text files of the vault.
+ * Every detection is stored as a fixed size record of three ints:
+ *      plateId     the index of the car in the sorted registry of cars that was used to write the archive,
+ *                  or registrySize + the index of the plate in the dictionary of unregistered plates
+ *      cityId      the index of the city in the dictionary of cities
+ *      epochSecond the date and time of the detection (UTC), as unsigned seconds since 1970
+ * The layout of the archive file is:
+ *      header:         magic, registrySize, registryChecksum, numberOfRecords, dictionariesOffset
+ *      records:        numberOfRecords * RECORD_BYTES
+ *      dictionaries:   numberOfCities, cities, numberOfUnregisteredPlates, plates (each as length + UTF-8 bytes)
+ * The archive is read through a memory mapped buffer and replayed without any allocation per record.
+ */
+public class DetectionArchive {
+    private static final int MAGIC = 0x44544131;            // "DTA1"
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 8 + 8;
+    public static final int RECORD_BYTES = 3 * Integer.BYTES;
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(int plateId, int cityId, long epochSecond);
+    }
+
+    private final MappedByteBuffer records;
+    private final int registrySize;
+    private final int registryChecksum;
+    private final long numberOfRecords;
+    private final String[] cities;
+    private final String[] unregisteredPlates;
+
+    private DetectionArchive(MappedByteBuffer records, int registrySize, int registryChecksum, long numberOfRecords,
+                             String[] cities, String[] unregisteredPlates) {
+        this.records = records;
+        this.registrySize = registrySize;
+        this.registryChecksum = registryChecksum;
+        this.numberOfRecords = numberOfRecords;
+        this.cities = cities;
+        this.unregisteredPlates = unregisteredPlates;
+    }
+
+    /**
+     * opens an archive file for replay
+     * @param archiveFile
+     * @return  the archive, with its records mapped into memory
+     */
+    public static DetectionArchive open(File archiveFile) {
+        try (RandomAccessFile file = new RandomAccessFile(archiveFile, "r");
+             FileChannel channel = file.getChannel()) {
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                throw new RuntimeException("Not a detection archive: " + archiveFile.getPath());
+            }
+            int registrySize = header.getInt();
+            int registryChecksum = header.getInt();
+            long numberOfRecords = header.getLong();
+            long dictionariesOffset = header.getLong();
+
+            long recordsBytes = numberOfRecords * RECORD_BYTES;
+            if (recordsBytes > Integer.MAX_VALUE) {
+                throw new RuntimeException("Detection archive exceeds the maximum mappable size: " + archiveFile.getPath());
+            }
+            MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, recordsBytes);
+
+            ByteBuffer dictionaries = channel.map(FileChannel.MapMode.READ_ONLY,
+                    dictionariesOffset, channel.size() - dictionariesOffset);
+            String[] cities = readStrings(dictionaries);
+            String[] unregisteredPlates = readStrings(dictionaries);
+
+            return new DetectionArchive(records, registrySize, registryChecksum, numberOfRecords,
+                    cities, unregisteredPlates);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open detection archive: " + archiveFile.getPath());
+        }
+    }
+
+    /**
+     * replays all records of the archive in the order in which they were written
+     * @param visitor   receives the primitive fields of every record
+     */
+    public void replay(RecordVisitor visitor) {
+        ByteBuffer records = this.records.duplicate();
+        for (long r = 0; r < this.numberOfRecords; r++) {
+            visitor.visit(records.getInt(), records.getInt(), Integer.toUnsignedLong(records.getInt()));
+        }
+    }
+
+    /**
+     * checks whether the registry of cars is the same as the one that was used to write the archive,
+     * such that the plateIds of registered cars can be used as indices into that registry
+     * @param registry  the sorted list of registered cars
+     */
+    public boolean matchesRegistry(List<Car> registry) {
+        return registry.size() == this.registrySize && checksumOf(registry) == this.registryChecksum;
+    }
+
+    public int getRegistrySize() {
+        return registrySize;
+    }
+
+    public long getNumberOfRecords() {
+        return numberOfRecords;
+    }
+
+    public String[] getCities() {
+        return cities.clone();
+    }
+
+    public String[] getUnregisteredPlates() {
+        return unregisteredPlates.clone();
+    }
+
+    static int checksumOf(List<Car> registry) {
+        int checksum = 1;
+        for (Car car : registry) {
+            checksum = 31 * checksum + car.getLicensePlate().hashCode();
+        }
+        return checksum;
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * Writes detections into a new archive file.
+     * The records are streamed to the file in blocks; the dictionaries and the header are written on close.
+     */
+    public static class Writer implements AutoCloseable {
+        private static final int BLOCK_RECORDS = 8192;
+
+        private final File archiveFile;
+        private final FileChannel channel;
+        private final List<Car> registry;
+        private final int registryChecksum;
+        private final ByteBuffer block = ByteBuffer.allocateDirect(BLOCK_RECORDS * RECORD_BYTES);
+        private final CityDictionary cities = new CityDictionary();
+        private final Map<String, Integer> unregisteredPlateIds = new HashMap<>();
+        private final List<String> unregisteredPlates = new ArrayList<>();
+        private long numberOfRecords;
+
+        /**
+         * @param archiveFile   the file to be (over)written
+         * @param registry      the registered cars, sorted by license plate
+         */
+        public Writer(File archiveFile, List<Car> registry) {
+            this.archiveFile = archiveFile;
+            // take a copy, as the cars list may grow with unregistered cars while detections are being written
+            this.registry = new ArrayList<>(registry);
+            this.registryChecksum = checksumOf(registry);
+            RandomAccessFile file = null;
+            try {
+                file = new RandomAccessFile(archiveFile, "rw");
+                file.setLength(0);
+                this.channel = file.getChannel();
+                this.channel.position(HEADER_BYTES);
+            } catch (IOException e) {
+                // no writer is returned that could close the file later on
+                closeAfterFailure(file);
+                throw new RuntimeException("Could not create detection archive: " + archiveFile.getPath());
+            }
+        }
+
+        /**
+         * appends a detection to the archive
+         * @param detection
+         */
+        public void write(Detection detection) {
+            int plateId = Collections.binarySearch(this.registry, detection.getCar(), Car::compareByLicensePlate);
+            if (plateId < 0) {
+                plateId = this.registry.size() + this.unregisteredPlateIds.computeIfAbsent(
+                        detection.getCar().getLicensePlate(), plate -> {
+                            this.unregisteredPlates.add(plate);
+                            return this.unregisteredPlates.size() - 1;
+                        });
+            }
+            long epochSecond = detection.getDateTime().toEpochSecond(ZoneOffset.UTC);
+            if (epochSecond < 0 || epochSecond > 0xFFFFFFFFL) {
+                throw new IllegalArgumentException("Detection time cannot be archived: " + detection);
+            }
+
+            this.block.putInt(plateId).putInt(this.cities.idOf(detection.getCity())).putInt((int) epochSecond);
+            this.numberOfRecords++;
+            if (!this.block.hasRemaining()) {
+                this.flushBlock();
+            }
+        }
+
+        private void flushBlock() {
+            this.block.flip();
+            try {
+                while (this.block.hasRemaining()) {
+                    this.channel.write(this.block);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write detection archive: " + this.archiveFile.getPath());
+            }
+            this.block.clear();
+        }
+
+        public long getNumberOfRecords() {
+            return numberOfRecords;
+        }
+
+        @Override
+        public void close() {
+            this.flushBlock();
+            try {
+                long dictionariesOffset = this.channel.position();
+                List<String> cityNames = new ArrayList<>();
+                for (int id = 0; id < this.cities.size(); id++) {
+                    cityNames.add(this.cities.nameOf(id));
+                }
+                writeStrings(cityNames);
+                writeStrings(this.unregisteredPlates);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(this.registry.size()).putInt(this.registryChecksum)
+                        .putLong(this.numberOfRecords).putLong(dictionariesOffset);
+                header.flip();
+                this.channel.write(header, 0);
+                this.channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not complete detection archive: " + this.archiveFile.getPath());
+            }
+        }
+
+        private static void closeAfterFailure(RandomAccessFile file) {
+            if (file == null) return;
+            try {
+                file.close();
+            } catch (IOException e) {
+                // the original failure is reported instead
+            }
+        }
+
+        private void writeStrings(List<String> strings) throws IOException {
+            int size = Integer.BYTES;
+            List<byte[]> encoded = new ArrayList<>();
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                size += Short.BYTES + bytes.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(strings.size());
+            for (byte[] bytes : encoded) {
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        }
+    }
+}
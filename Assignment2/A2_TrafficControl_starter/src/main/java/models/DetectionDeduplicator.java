@@ -0,0 +1,197 @@
+package models;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Recognises repeated detections of the same car in the same city within a time window,
+ * e.g. when a vehicle passes multiple cameras of the same city within minutes.
+ * The detections of every (licensePlate, city) key are grouped into sightings: maximal chains of detections
+ * that follow each other within the window. Only the first and last time of every sighting is retained.
+ * Every sighting is counted by its first detection, and a detection that arrives late may change which detection
+ * that is, so the SightingCounter of the caller is told which first detections are counted and which are retracted.
+ * The outcome then equals the outcome of processing all detections in time order,
+ * provided that no detection arrives more than maxLateness behind the newest detection so far.
+ * Sightings that have ended more than the window plus maxLateness behind the newest detection can no longer be
+ * joined by such a detection, and are forgotten. The number of tracked keys is bounded as well:
+ * the least recently detected key is forgotten when the bound is exceeded.
+ */
+public class DetectionDeduplicator {
+    public static final int DEFAULT_MAX_TRACKED_KEYS = 1_000_000;
+
+    /**
+     * receives the changes of the first detections of the sightings of a key
+     */
+    @FunctionalInterface
+    public interface SightingCounter {
+        /**
+         * @param dateTime  the time of the first detection of a sighting
+         * @param change    1 if a new sighting starts with the detection at dateTime,
+         *                  -1 if the detection at dateTime, which started a sighting before, does not anymore,
+         *                  because a late detection joined its sighting into an earlier one or preceded it
+         */
+        void count(LocalDateTime dateTime, int change);
+    }
+
+    private static final SightingCounter NO_COUNTER = (dateTime, change) -> {};
+
+    private final long windowSeconds;
+    private final long maxLatenessSeconds;
+    private final int maxTrackedKeys;
+    private final LinkedHashMap<String, TreeMap<Long, Long>> sightingsByKey;    // epoch seconds of the last detection
+                                                                                // by the first detection of every sighting
+    private long newestSeconds = Long.MIN_VALUE;    // epoch seconds of the newest detection so far
+    private long numberOfDuplicates;
+    private long numberOfLateDetections;
+
+    /* Representation Invariant:
+     *      the keys in sightingsByKey are ordered by the time they were last registered
+     *      the sightings of a key are disjoint and more than the window apart: next first - previous last >= window
+     *      sightingsByKey.size() <= maxTrackedKeys
+     */
+
+    public DetectionDeduplicator(Duration window) {
+        this(window, Duration.ZERO, DEFAULT_MAX_TRACKED_KEYS);
+    }
+
+    public DetectionDeduplicator(Duration window, int maxTrackedKeys) {
+        this(window, Duration.ZERO, maxTrackedKeys);
+    }
+
+    /**
+     * @param window            the time within which a repeated detection is a duplicate
+     * @param maxLateness       how far a detection may arrive behind the newest detection so far
+     *                          and still be deduplicated as if all detections arrived in time order
+     * @param maxTrackedKeys    the maximum number of (licensePlate, city) keys that is tracked
+     */
+    public DetectionDeduplicator(Duration window, Duration maxLateness, int maxTrackedKeys) {
+        if (window == null || window.isNegative()) throw new IllegalArgumentException("window cannot be null or negative");
+        if (maxLateness == null || maxLateness.isNegative()) throw new IllegalArgumentException("maxLateness cannot be null or negative");
+        if (maxTrackedKeys <= 0) throw new IllegalArgumentException("maxTrackedKeys shall be positive");
+        this.windowSeconds = window.getSeconds();
+        this.maxLatenessSeconds = maxLateness.getSeconds();
+        this.maxTrackedKeys = maxTrackedKeys;
+        this.sightingsByKey = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TreeMap<Long, Long>> eldest) {
+                return this.size() > DetectionDeduplicator.this.maxTrackedKeys;
+            }
+        };
+    }
+
+    /**
+     * registers the detection with the sightings of the same car in the same city
+     * @param detection
+     * @return  the change in the number of sightings of the car in the city, like register(detection, counter)
+     */
+    public int register(Detection detection) {
+        return this.register(detection, NO_COUNTER);
+    }
+
+    /**
+     * registers the detection with the sightings of the same car in the same city,
+     * and reports the first detections of the sightings of that key that start or stop to be counted
+     * any retraction is reported before the detection itself is counted
+     * @param detection
+     * @param counter   receives the changes of the first detections of the sightings of the car in the city
+     * @return  the change in the number of sightings of the car in the city:
+     *          1 if the detection starts a new sighting,
+     *          0 if the detection is a duplicate within an earlier sighting, or precedes a later sighting,
+     *          -1 if the detection, arriving late, joins two earlier sightings into one
+     */
+    public int register(Detection detection, SightingCounter counter) {
+        String key = detection.getCar().getLicensePlate() + "/" + detection.getCity();
+        long seconds = detection.getDateTime().toEpochSecond(ZoneOffset.UTC);
+        if (seconds > this.newestSeconds) {
+            this.newestSeconds = seconds;
+        } else if (this.newestSeconds - seconds > this.maxLatenessSeconds) {
+            this.numberOfLateDetections++;
+        }
+        long horizon = this.newestSeconds - this.maxLatenessSeconds - this.windowSeconds;
+
+        TreeMap<Long, Long> sightings = this.sightingsByKey.computeIfAbsent(key, k -> new TreeMap<>());
+        // the sightings are disjoint, so these end in the order in which they start
+        while (!sightings.isEmpty() && sightings.firstEntry().getValue() < horizon) {
+            sightings.pollFirstEntry();
+        }
+
+        Map.Entry<Long, Long> before = sightings.floorEntry(seconds);
+        Map.Entry<Long, Long> after = sightings.higherEntry(seconds);
+        boolean joinsBefore = before != null && seconds - before.getValue() < this.windowSeconds;
+        boolean joinsAfter = after != null && after.getKey() - seconds < this.windowSeconds;
+
+        long first = joinsBefore ? before.getKey() : seconds;
+        long last = joinsAfter ? after.getValue() : seconds;
+        if (joinsBefore) last = Math.max(last, before.getValue());
+        if (joinsAfter) sightings.remove(after.getKey());
+        sightings.put(first, last);
+
+        if (joinsAfter) {
+            // the later sighting does not start with its first detection anymore
+            counter.count(LocalDateTime.ofEpochSecond(after.getKey(), 0, ZoneOffset.UTC), -1);
+        }
+        if (!joinsBefore) {
+            counter.count(detection.getDateTime(), 1);
+        }
+        this.forgetExpiredKeys(horizon);
+
+        int change = joinsBefore && joinsAfter ? -1 : (joinsBefore || joinsAfter ? 0 : 1);
+        this.numberOfDuplicates += 1 - change;
+        return change;
+    }
+
+    /**
+     * forgets the least recently registered keys for as long as all their sightings have ended before the horizon
+     */
+    private void forgetExpiredKeys(long horizon) {
+        Iterator<TreeMap<Long, Long>> keys = this.sightingsByKey.values().iterator();
+        while (keys.hasNext()) {
+            TreeMap<Long, Long> sightings = keys.next();
+            if (!sightings.isEmpty() && sightings.lastEntry().getValue() >= horizon) break;
+            keys.remove();
+        }
+    }
+
+    /**
+     * @return  the number of duplicates that have been recognised so far,
+     *          i.e. the number of detections minus the number of sightings of the tracked keys
+     */
+    public long getNumberOfDuplicates() {
+        return this.numberOfDuplicates;
+    }
+
+    /**
+     * @return  the number of detections that arrived more than maxLateness behind the newest detection,
+     *          which may have missed a sighting that had been forgotten already
+     */
+    public long getNumberOfLateDetections() {
+        return this.numberOfLateDetections;
+    }
+
+    /**
+     * @return  the number of keys that are currently tracked
+     */
+    public int getNumberOfTrackedKeys() {
+        return this.sightingsByKey.size();
+    }
+
+    public Duration getWindow() {
+        return Duration.ofSeconds(this.windowSeconds);
+    }
+
+    public Duration getMaxLateness() {
+        return Duration.ofSeconds(this.maxLatenessSeconds);
+    }
+
+    public void clear() {
+        this.sightingsByKey.clear();
+        this.newestSeconds = Long.MIN_VALUE;
+        this.numberOfDuplicates = 0;
+        this.numberOfLateDetections = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package models;
+
+/**
+ * Receives measurements from the stages of a detections import by the TrafficTracker,
+ * such that bottlenecks in the import can be located without a profiler.
+ * Implementations shall be thread-safe, as detection files may be imported in parallel.
+ */
+public interface ImportMetrics {
+
+    /**
+     * ignores all measurements
+     */
+    ImportMetrics NONE = new ImportMetrics() {};
+
+    /**
+     * a detection file has been read and parsed
+     * @param path                  the path of the file
+     * @param numberOfLines         the number of lines in the file
+     * @param numberOfDetections    the number of lines that have been parsed into a detection
+     * @param parseNanos            the time taken to read and parse the file
+     */
+    default void fileParsed(String path, int numberOfLines, int numberOfDetections, long parseNanos) {}
+
+    /**
+     * cars that were not registered have been added to the cars list while parsing detections
+     * @param numberOfCars
+     */
+    default void unknownCarsAdded(int numberOfCars) {}
+
+    /**
+     * the detections of a file have been validated and their offences merged into the violations
+     * @param numberOfOffences
+     * @param mergeNanos        the time taken to validate and merge
+     */
+    default void offencesMerged(int numberOfOffences, long mergeNanos) {}
+
+    /**
+     * the accumulated violations have been sorted
+     * @param numberOfViolations
+     * @param sortNanos
+     */
+    default void violationsSorted(int numberOfViolations, long sortNanos) {}
+}
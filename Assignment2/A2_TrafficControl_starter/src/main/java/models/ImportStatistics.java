@@ -0,0 +1,187 @@
+package models;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the measurements of detection imports into thread-safe counters,
+ * which can be queried directly or through JMX after registerMBean.
+ * The heap use is sampled after every parsed file.
+ */
+public class ImportStatistics implements ImportMetrics, ImportStatisticsMBean {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final LongAdder numberOfFiles = new LongAdder();
+    private final LongAdder numberOfLines = new LongAdder();
+    private final LongAdder numberOfDetections = new LongAdder();
+    private final LongAdder numberOfUnknownCars = new LongAdder();
+    private final LongAdder numberOfOffences = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder mergeNanos = new LongAdder();
+    private final LongAdder sortNanos = new LongAdder();
+    private final AtomicLong lastHeapUsedBytes = new AtomicLong();
+    private final AtomicLong peakHeapUsedBytes = new AtomicLong();
+    private final AtomicReference<SlowestFile> slowestFile = new AtomicReference<>();
+
+    @Override
+    public void fileParsed(String path, int numberOfLines, int numberOfDetections, long parseNanos) {
+        this.numberOfFiles.increment();
+        this.numberOfLines.add(numberOfLines);
+        this.numberOfDetections.add(numberOfDetections);
+        this.parseNanos.add(parseNanos);
+        this.slowestFile.accumulateAndGet(new SlowestFile(path, parseNanos),
+                (slowest, file) -> slowest == null || file.parseNanos > slowest.parseNanos ? file : slowest);
+
+        long heapUsed = MEMORY.getHeapMemoryUsage().getUsed();
+        this.lastHeapUsedBytes.set(heapUsed);
+        this.peakHeapUsedBytes.accumulateAndGet(heapUsed, Math::max);
+    }
+
+    @Override
+    public void unknownCarsAdded(int numberOfCars) {
+        this.numberOfUnknownCars.add(numberOfCars);
+    }
+
+    @Override
+    public void offencesMerged(int numberOfOffences, long mergeNanos) {
+        this.numberOfOffences.add(numberOfOffences);
+        this.mergeNanos.add(mergeNanos);
+    }
+
+    @Override
+    public void violationsSorted(int numberOfViolations, long sortNanos) {
+        this.sortNanos.add(sortNanos);
+    }
+
+    /**
+     * registers these statistics with the platform MBean server, replacing any earlier registration by the same name
+     * @param name  distinguishes multiple trackers, e.g. the name of the vault
+     * @return      the name of the registered MBean
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("models:type=ImportStatistics,name=" + ObjectName.quote(name));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+            return objectName;
+        } catch (JMException e) {
+            throw new RuntimeException("Could not register import statistics MBean: " + name);
+        }
+    }
+
+    @Override
+    public long getNumberOfFiles() {
+        return this.numberOfFiles.sum();
+    }
+
+    @Override
+    public long getNumberOfLines() {
+        return this.numberOfLines.sum();
+    }
+
+    @Override
+    public long getNumberOfDetections() {
+        return this.numberOfDetections.sum();
+    }
+
+    /**
+     * @return  the number of lines that could not be parsed into a detection
+     */
+    @Override
+    public long getNumberOfParseErrors() {
+        return this.getNumberOfLines() - this.getNumberOfDetections();
+    }
+
+    @Override
+    public long getNumberOfUnknownCars() {
+        return this.numberOfUnknownCars.sum();
+    }
+
+    @Override
+    public long getNumberOfOffences() {
+        return this.numberOfOffences.sum();
+    }
+
+    @Override
+    public double getParseMillis() {
+        return this.parseNanos.sum() / 1E6;
+    }
+
+    @Override
+    public double getMergeMillis() {
+        return this.mergeNanos.sum() / 1E6;
+    }
+
+    @Override
+    public double getSortMillis() {
+        return this.sortNanos.sum() / 1E6;
+    }
+
+    /**
+     * @return  the parsing throughput, over the time spent on parsing only
+     */
+    @Override
+    public double getLinesPerSecond() {
+        long nanos = this.parseNanos.sum();
+        return nanos == 0 ? 0.0 : this.getNumberOfLines() * 1E9 / nanos;
+    }
+
+    @Override
+    public long getLastHeapUsedBytes() {
+        return this.lastHeapUsedBytes.get();
+    }
+
+    @Override
+    public long getPeakHeapUsedBytes() {
+        return this.peakHeapUsedBytes.get();
+    }
+
+    @Override
+    public String getSlowestFile() {
+        SlowestFile slowest = this.slowestFile.get();
+        return slowest == null ? null : String.format("%s (%.1f ms)", slowest.path, slowest.parseNanos / 1E6);
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder counter : new LongAdder[] { this.numberOfFiles, this.numberOfLines, this.numberOfDetections,
+                this.numberOfUnknownCars, this.numberOfOffences, this.parseNanos, this.mergeNanos, this.sortNanos }) {
+            counter.reset();
+        }
+        this.lastHeapUsedBytes.set(0);
+        this.peakHeapUsedBytes.set(0);
+        this.slowestFile.set(null);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d files, %d lines (%d parse errors), %d unknown cars, %d offences; " +
+                        "parse %.1f ms (%.0f lines/sec), merge %.1f ms, sort %.1f ms; peak heap %d MB",
+                this.getNumberOfFiles(), this.getNumberOfLines(), this.getNumberOfParseErrors(),
+                this.getNumberOfUnknownCars(), this.getNumberOfOffences(),
+                this.getParseMillis(), this.getLinesPerSecond(), this.getMergeMillis(), this.getSortMillis(),
+                this.getPeakHeapUsedBytes() >> 20);
+    }
+
+    private static class SlowestFile {
+        final String path;
+        final long parseNanos;
+
+        SlowestFile(String path, long parseNanos) {
+            this.path = path;
+            this.parseNanos = parseNanos;
+        }
+    }
+}
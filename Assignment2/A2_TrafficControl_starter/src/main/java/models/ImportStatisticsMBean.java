@@ -0,0 +1,21 @@
+package models;
+
+/**
+ * The management interface of ImportStatistics, as exposed through JMX
+ */
+public interface ImportStatisticsMBean {
+    long getNumberOfFiles();
+    long getNumberOfLines();
+    long getNumberOfDetections();
+    long getNumberOfParseErrors();
+    long getNumberOfUnknownCars();
+    long getNumberOfOffences();
+    double getParseMillis();
+    double getMergeMillis();
+    double getSortMillis();
+    double getLinesPerSecond();
+    long getLastHeapUsedBytes();
+    long getPeakHeapUsedBytes();
+    String getSlowestFile();
+    void reset();
+}
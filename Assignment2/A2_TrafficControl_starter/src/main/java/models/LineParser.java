@@ -0,0 +1,276 @@
+package models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * Validates and converts the comma-separated fields of a text line without throwing exceptions.
+ * Every conversion checks the format of its field first; the first malformed field is remembered as the error
+ * of the line, and the conversion then yields a neutral value.
+ * After all fields have been converted, the caller checks hasError and rejects the line if needed.
+ * Fields are converted directly from the characters of the line; a substring is only created for text fields.
+ */
+class LineParser {
+    private final String itemType;
+    private final String textLine;
+    private int[] fieldStarts = new int[8]; // the trimmed range of every field in the textLine
+    private int[] fieldEnds = new int[8];
+    private int numberOfFields;
+    private String error;               // the description of the first malformed field, or null
+
+    /**
+     * splits the textLine into trimmed fields, like textLine.split(",")
+     * @param itemType  the type of item that is parsed from the line, for error reporting
+     * @param textLine
+     */
+    LineParser(String itemType, String textLine) {
+        this.itemType = itemType;
+        this.textLine = textLine;
+        int start = 0;
+        int comma;
+        while ((comma = textLine.indexOf(',', start)) >= 0) {
+            this.addField(start, comma);
+            start = comma + 1;
+        }
+        this.addField(start, textLine.length());
+        // like String.split, drop trailing empty fields
+        while (this.numberOfFields > 1 && this.fieldStarts[this.numberOfFields - 1] == this.fieldEnds[this.numberOfFields - 1]) {
+            this.numberOfFields--;
+        }
+        // like String.trim, strip leading and trailing whitespace
+        for (int f = 0; f < this.numberOfFields; f++) {
+            while (this.fieldStarts[f] < this.fieldEnds[f] && textLine.charAt(this.fieldStarts[f]) <= ' ') this.fieldStarts[f]++;
+            while (this.fieldEnds[f] > this.fieldStarts[f] && textLine.charAt(this.fieldEnds[f] - 1) <= ' ') this.fieldEnds[f]--;
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (this.numberOfFields == this.fieldStarts.length) {
+            this.fieldStarts = Arrays.copyOf(this.fieldStarts, 2 * this.numberOfFields);
+            this.fieldEnds = Arrays.copyOf(this.fieldEnds, 2 * this.numberOfFields);
+        }
+        this.fieldStarts[this.numberOfFields] = start;
+        this.fieldEnds[this.numberOfFields] = end;
+        this.numberOfFields++;
+    }
+
+    int numberOfFields() {
+        return this.numberOfFields;
+    }
+
+    /**
+     * checks that the line holds at least the given number of fields
+     */
+    boolean requireFields(int numberOfFields) {
+        if (this.numberOfFields < numberOfFields) {
+            this.fail(String.format("Expected %d fields, found %d", numberOfFields, this.numberOfFields));
+            return false;
+        }
+        return true;
+    }
+
+    String text(int index) {
+        String field = this.field(index);
+        if (field.isEmpty()) this.fail("Empty field " + index);
+        return field;
+    }
+
+    /**
+     * @return the canonical instance of a text field from the dictionary, without creating a substring for known text
+     */
+    String text(int index, CityDictionary dictionary) {
+        if (this.fieldStarts[index] == this.fieldEnds[index]) {
+            this.fail("Empty field " + index);
+            return "";
+        }
+        return dictionary.canonical(this.textLine, this.fieldStarts[index], this.fieldEnds[index]);
+    }
+
+    /**
+     * @return the value of a decimal integer field, or 0 if the field is malformed
+     */
+    int integer(int index) {
+        int from = this.fieldStarts[index];
+        int to = this.fieldEnds[index];
+        boolean negative = from < to && this.textLine.charAt(from) == '-';
+        int i = negative || from < to && this.textLine.charAt(from) == '+' ? from + 1 : from;
+        // accumulate in a long, which cannot overflow before the value exceeds the range of an int
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (int c = i; c < to && value <= limit; c++) {
+            value = 10 * value + this.textLine.charAt(c) - '0';
+        }
+        if (i == to || !this.isDigits(i, to) || value > limit) {
+            this.fail("For input string: \"" + this.field(index) + "\"");
+            return 0;
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    /**
+     * @return the enum constant with the exact name of the field, or null if there is none
+     */
+    <T extends Enum<T>> T enumConstant(int index, Class<T> enumType) {
+        return this.enumConstant(this.fieldStarts[index], this.fieldEnds[index], enumType);
+    }
+
+    /**
+     * @return  the set of enum constants named by the alternatives of the field, e.g. Truck|Coach,
+     *          or an empty set if any of the alternatives is not the exact name of a constant
+     */
+    <T extends Enum<T>> EnumSet<T> enumConstants(int index, Class<T> enumType, char separator) {
+        EnumSet<T> constants = EnumSet.noneOf(enumType);
+        int start = this.fieldStarts[index];
+        while (start <= this.fieldEnds[index]) {
+            int end = this.textLine.indexOf(separator, start);
+            if (end < 0 || end > this.fieldEnds[index]) end = this.fieldEnds[index];
+            // trim the alternative like the field itself
+            int from = start, to = end;
+            while (from < to && this.textLine.charAt(from) <= ' ') from++;
+            while (to > from && this.textLine.charAt(to - 1) <= ' ') to--;
+            T constant = this.enumConstant(from, to, enumType);
+            if (constant == null) return EnumSet.noneOf(enumType);
+            constants.add(constant);
+            start = end + 1;
+        }
+        return constants;
+    }
+
+    private <T extends Enum<T>> T enumConstant(int from, int to, Class<T> enumType) {
+        int length = to - from;
+        for (T constant : enumType.getEnumConstants()) {
+            if (constant.name().length() == length && this.textLine.startsWith(constant.name(), from)) {
+                return constant;
+            }
+        }
+        this.fail("No enum constant " + enumType.getCanonicalName() + "." + this.textLine.substring(from, to));
+        return null;
+    }
+
+    /**
+     * @return  whether the field consists of exactly the given text, e.g. a wildcard
+     */
+    boolean isText(int index, String text) {
+        return this.fieldEnds[index] - this.fieldStarts[index] == text.length()
+                && this.textLine.startsWith(text, this.fieldStarts[index]);
+    }
+
+    /**
+     * @return the value of a decimal number field like 12 or 12.50, or 0 if the field is malformed
+     */
+    double decimal(int index) {
+        int from = this.fieldStarts[index];
+        int to = this.fieldEnds[index];
+        int point = this.textLine.indexOf('.', from);
+        if (point < 0 || point >= to) point = to;
+        int i = from < to && (this.textLine.charAt(from) == '-' || this.textLine.charAt(from) == '+') ? from + 1 : from;
+        // the format is checked first, such that parseDouble cannot throw
+        if (!this.isDigits(i, point) || point < to && !this.isDigits(point + 1, to)) {
+            this.fail("For input string: \"" + this.field(index) + "\"");
+            return 0;
+        }
+        return Double.parseDouble(this.field(index));
+    }
+
+    /**
+     * @return the date of a field in the format yyyy-MM-dd, or null if the field is malformed
+     */
+    LocalDate date(int index) {
+        int from = this.fieldStarts[index];
+        if (this.fieldEnds[index] - from != 10 || !this.isDate(from)) {
+            this.fail("Text '" + this.field(index) + "' could not be parsed as a date");
+            return null;
+        }
+        return LocalDate.of(this.digits(from, from + 4), this.digits(from + 5, from + 7), this.digits(from + 8, from + 10));
+    }
+
+    /**
+     * @return the date and time of a field in the format yyyy-MM-ddTHH:mm[:ss[.fraction]], or null if it is malformed
+     */
+    LocalDateTime dateTime(int index) {
+        int from = this.fieldStarts[index];
+        int length = this.fieldEnds[index] - from;
+        boolean valid = length >= 16 && this.isDate(from) && this.textLine.charAt(from + 10) == 'T'
+                && this.isDigits(from + 11, from + 13) && this.textLine.charAt(from + 13) == ':'
+                && this.isDigits(from + 14, from + 16)
+                && this.digits(from + 11, from + 13) < 24 && this.digits(from + 14, from + 16) < 60;
+        int second = 0;
+        int nano = 0;
+        if (valid && length > 16) {
+            valid = length >= 19 && this.textLine.charAt(from + 16) == ':' && this.isDigits(from + 17, from + 19)
+                    && this.digits(from + 17, from + 19) < 60;
+            if (valid && length > 19) {
+                valid = this.textLine.charAt(from + 19) == '.' && length <= 29 && this.isDigits(from + 20, from + length);
+                if (valid) {
+                    nano = this.digits(from + 20, from + length);
+                    for (int i = length; i < 29; i++) nano *= 10;
+                }
+            }
+            if (valid) second = this.digits(from + 17, from + 19);
+        }
+        if (!valid) {
+            this.fail("Text '" + this.field(index) + "' could not be parsed as a date and time");
+            return null;
+        }
+        return LocalDateTime.of(this.digits(from, from + 4), this.digits(from + 5, from + 7), this.digits(from + 8, from + 10),
+                this.digits(from + 11, from + 13), this.digits(from + 14, from + 16), second, nano);
+    }
+
+    boolean hasError() {
+        return this.error != null;
+    }
+
+    /**
+     * reports the error of the line, if any
+     * @return  true if the line has been rejected
+     */
+    boolean rejectOnError(ParseErrorHandler errorHandler) {
+        if (this.error != null) {
+            errorHandler.reject(this.itemType, this.textLine, this.error);
+            return true;
+        }
+        return false;
+    }
+
+    private String field(int index) {
+        return this.textLine.substring(this.fieldStarts[index], this.fieldEnds[index]);
+    }
+
+    private void fail(String error) {
+        if (this.error == null) this.error = error;
+    }
+
+    /**
+     * checks the format yyyy-MM-dd and the validity of the date of the 10 characters from the given position
+     */
+    private boolean isDate(int from) {
+        if (this.textLine.charAt(from + 4) != '-' || this.textLine.charAt(from + 7) != '-'
+                || !this.isDigits(from, from + 4) || !this.isDigits(from + 5, from + 7) || !this.isDigits(from + 8, from + 10)) {
+            return false;
+        }
+        int month = this.digits(from + 5, from + 7);
+        int day = this.digits(from + 8, from + 10);
+        return month >= 1 && month <= 12 && day >= 1
+                && day <= Month.of(month).length(Year.isLeap(this.digits(from, from + 4)));
+    }
+
+    private boolean isDigits(int from, int to) {
+        if (from >= to) return false;
+        for (int i = from; i < to; i++) {
+            if (this.textLine.charAt(i) < '0' || this.textLine.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    private int digits(int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = 10 * value + this.textLine.charAt(i) - '0';
+        }
+        return value;
+    }
+}
@@ -0,0 +1,197 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tracks violations continuously from a live feed of detections, as they arrive from the cameras.
+ * Every detection updates the aggregated violations, the rankings by car and by city and the running total of fines
+ * incrementally, in O(log n) time, such that the views are always up-to-date without re-processing earlier detections.
+ * All methods are synchronized, so detections may be fed from multiple camera threads.
+ * The tracker only reads the shared list of registered cars, and keeps the unknown cars of the feed
+ * in its own cache of unregistered cars. The registry shall therefore not be changed while the tracker is in use,
+ * unless it is a thread-safe list like ConcurrentOrderedList.
+ */
+public class LiveViolationTracker {
+    public static final int DEFAULT_MAX_UNREGISTERED_CARS = 100000;
+
+    private final OrderedList<Car> cars;            // the reference list of all registered cars, shared with the importer
+    private final UnregisteredCarCache unregisteredCars;    // the unknown cars of the feed, owned by the tracker
+    private final CityDictionary cities;            // the canonical names of the cities in the feed
+    private final ZoneRuleSet zoneRules;            // the environmental zone rules that are enforced
+
+    private final Map<Car, Map<String, Violation>> violationsByCarAndCity = new HashMap<>();
+    private final Ranking<Car> rankingByCar = new Ranking<>();
+    private final Ranking<String> rankingByCity = new Ranking<>();
+    private long totalNumberOfDetections;
+    private long totalNumberOfOffences;
+    private double totalFines;
+
+    public LiveViolationTracker(OrderedList<Car> cars, ZoneRuleSet zoneRules) {
+        this(cars, zoneRules, new UnregisteredCarCache(DEFAULT_MAX_UNREGISTERED_CARS), new CityDictionary());
+    }
+
+    /**
+     * @param cars              the registered cars, which are not changed by the tracker
+     * @param zoneRules
+     * @param unregisteredCars  the cache that provides the cars that are not found in the registry
+     * @param cities            the dictionary of city names, which is extended with new cities
+     */
+    public LiveViolationTracker(OrderedList<Car> cars, ZoneRuleSet zoneRules,
+                                UnregisteredCarCache unregisteredCars, CityDictionary cities) {
+        if (cars == null || zoneRules == null) throw new IllegalArgumentException("cars and zoneRules cannot be null");
+        if (unregisteredCars == null || cities == null) {
+            throw new IllegalArgumentException("unregisteredCars and cities cannot be null");
+        }
+        this.cars = cars;
+        this.zoneRules = zoneRules;
+        this.unregisteredCars = unregisteredCars;
+        this.cities = cities;
+    }
+
+    /**
+     * parses a single line of raw detection data from a camera and processes the detection
+     * @param textLine  a detection in the format of the vault: licensePlate, city, dateTime
+     * @return          the violation that was found in the detection, or null if there was no offence or the line was corrupt
+     */
+    public synchronized Violation acceptLine(String textLine) {
+        Detection detection = Detection.fromLine(textLine, this.cars, this.unregisteredCars, this.cities,
+                ParseErrorHandler.PRINT);
+        return detection == null ? null : this.accept(detection);
+    }
+
+    /**
+     * processes a single detection and updates all aggregates with any offence that was found
+     * @param detection
+     * @return          the violation that was found in the detection, or null if there was no offence
+     */
+    public synchronized Violation accept(Detection detection) {
+        this.totalNumberOfDetections++;
+        Violation violation = detection.validate(this.zoneRules);
+        if (violation != null) {
+            this.acceptViolation(violation);
+        }
+        return violation;
+    }
+
+    /**
+     * processes a micro-batch of detections
+     * @param detections
+     * @return          the number of offences found in the batch
+     */
+    public synchronized int acceptAll(Collection<Detection> detections) {
+        int numberOfOffences = 0;
+        for (Detection detection : detections) {
+            if (this.accept(detection) != null) {
+                numberOfOffences++;
+            }
+        }
+        return numberOfOffences;
+    }
+
+    /**
+     * merges an (aggregated) violation into all aggregates,
+     * e.g. to continue tracking from the violations of an earlier batch import
+     * @param violation
+     */
+    public synchronized void acceptViolation(Violation violation) {
+        // keep a private copy, such that the caller cannot corrupt the rankings by updating the violation
+        Violation offences = new Violation(violation.getCar(), violation.getCity(), violation.getFines());
+        offences.setOffencesCount(violation.getOffencesCount());
+        violation = offences;
+
+        this.violationsByCarAndCity
+                .computeIfAbsent(violation.getCar(), car -> new HashMap<>())
+                .merge(violation.getCity(), violation, Violation::combineOffencesCounts);
+        this.rankingByCar.merge(violation.getCar(), violation);
+        this.rankingByCity.merge(violation.getCity(), violation);
+        this.totalNumberOfOffences += violation.getOffencesCount();
+        this.totalFines += violation.getFines();
+    }
+
+    /**
+     * @param topNumber     the requested top number of violations in the result list
+     * @return              the violations aggregated by car, with the highest offencesCount first
+     */
+    public synchronized List<Violation> topViolationsByCar(int topNumber) {
+        return this.rankingByCar.top(topNumber);
+    }
+
+    /**
+     * @param topNumber     the requested top number of violations in the result list
+     * @return              the violations aggregated by city, with the highest offencesCount first
+     */
+    public synchronized List<Violation> topViolationsByCity(int topNumber) {
+        return this.rankingByCity.top(topNumber);
+    }
+
+    /**
+     * @return  a snapshot of all violations aggregated by car and city, ordered by license plate and city
+     */
+    public synchronized List<Violation> getViolations() {
+        List<Violation> snapshot = new ArrayList<>();
+        for (Map<String, Violation> violationsByCity : this.violationsByCarAndCity.values()) {
+            snapshot.addAll(violationsByCity.values());
+        }
+        snapshot.sort(Violation::compareByLicensePlateAndCity);
+        return snapshot;
+    }
+
+    /**
+     * @return  the cache of the unknown cars that have been detected in the feed
+     */
+    public UnregisteredCarCache getUnregisteredCars() {
+        return this.unregisteredCars;
+    }
+
+    public synchronized double getTotalFines() {
+        return this.totalFines;
+    }
+
+    public synchronized long getTotalNumberOfOffences() {
+        return this.totalNumberOfOffences;
+    }
+
+    public synchronized long getTotalNumberOfDetections() {
+        return this.totalNumberOfDetections;
+    }
+
+    /**
+     * Maintains violations aggregated by some key in decreasing order of their offencesCount.
+     * The ranking is kept in a TreeSet of keys whose comparator looks up the current aggregate of each key,
+     * so a key is removed before its aggregate is updated and re-inserted afterwards.
+     * @param <K>   the type of the aggregation key
+     */
+    private static class Ranking<K extends Comparable<? super K>> {
+        private final Map<K, Violation> aggregates = new HashMap<>();
+        private final TreeSet<K> ranking = new TreeSet<>(
+                Comparator.<K>comparingInt(key -> -this.aggregates.get(key).getOffencesCount())
+                        .thenComparing(Comparator.naturalOrder()));
+
+        void merge(K key, Violation violation) {
+            Violation aggregate = this.aggregates.get(key);
+            if (aggregate != null) {
+                this.ranking.remove(key);
+                this.aggregates.put(key, aggregate.combineOffencesCounts(violation));
+            } else {
+                this.aggregates.put(key, violation);
+            }
+            this.ranking.add(key);
+        }
+
+        List<Violation> top(int topNumber) {
+            List<Violation> topViolations = new ArrayList<>(Integer.min(topNumber, this.ranking.size()));
+            Iterator<K> keys = this.ranking.iterator();
+            while (keys.hasNext() && topViolations.size() < topNumber) {
+                topViolations.add(this.aggregates.get(keys.next()));
+            }
+            return topViolations;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package models;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * An open addressing violation table that keeps all its slots outside the java heap, in a direct ByteBuffer.
+ * Every slot holds the encoded (carIndex, cityId) key and the offences count of the key.
+ * The garbage collector only ever sees the single buffer object, whatever the number of entries,
+ * and adding offences to an existing key does not allocate at all.
+ * The off-heap memory is released when the table is garbage collected.
+ */
+public class OffHeapViolationTable implements ViolationTable {
+    private static final long EMPTY_KEY = -1L;
+    private static final int KEY_OFFSET = 0;
+    private static final int COUNT_OFFSET = Long.BYTES;
+    private static final int SLOT_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = Integer.highestOneBit(Integer.MAX_VALUE / SLOT_BYTES);
+
+    private ByteBuffer slots;       // capacity * SLOT_BYTES bytes of (key, offencesCount) slots
+    private int capacity;           // the number of slots, a power of 2
+    private int size;               // the number of occupied slots
+    private long totalOffences;     // the sum of all offences counts in the table
+
+    /* Representation Invariant:
+     *      every key is found by linear probing from its hashed slot, without passing an EMPTY_KEY slot
+     *      size <= capacity / 2
+     */
+
+    public OffHeapViolationTable() {
+        this(INITIAL_CAPACITY / 2);
+    }
+
+    public OffHeapViolationTable(int expectedSize) {
+        long capacity = Long.highestOneBit(Math.max(INITIAL_CAPACITY, 2L * expectedSize) - 1) << 1;
+        this.allocate((int) Math.min(capacity, MAX_CAPACITY));
+    }
+
+    private void allocate(int capacity) {
+        this.capacity = capacity;
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        this.fillEmpty();
+    }
+
+    private void fillEmpty() {
+        for (int slot = 0; slot < this.capacity; slot++) {
+            this.slots.putLong(slot * SLOT_BYTES + KEY_OFFSET, EMPTY_KEY);
+            this.slots.putInt(slot * SLOT_BYTES + COUNT_OFFSET, 0);
+        }
+    }
+
+    @Override
+    public void addOffences(int carIndex, int cityId, int offencesCount) {
+        long key = ArrayViolationTable.encode(carIndex, cityId);
+        int position = this.findSlot(key) * SLOT_BYTES;
+        boolean isNewKey = this.slots.getLong(position + KEY_OFFSET) == EMPTY_KEY;
+        this.slots.putLong(position + KEY_OFFSET, key);
+        this.slots.putInt(position + COUNT_OFFSET, this.slots.getInt(position + COUNT_OFFSET) + offencesCount);
+        this.totalOffences += offencesCount;
+
+        if (isNewKey && ++this.size > this.capacity / 2) {
+            this.grow();
+        }
+    }
+
+    @Override
+    public int getOffencesCount(int carIndex, int cityId) {
+        int position = this.findSlot(ArrayViolationTable.encode(carIndex, cityId)) * SLOT_BYTES;
+        return this.slots.getLong(position + KEY_OFFSET) == EMPTY_KEY ? 0 : this.slots.getInt(position + COUNT_OFFSET);
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public long totalOffences() {
+        return this.totalOffences;
+    }
+
+    @Override
+    public void forEach(EntryConsumer consumer) {
+        for (int position = 0; position < this.capacity * SLOT_BYTES; position += SLOT_BYTES) {
+            long key = this.slots.getLong(position + KEY_OFFSET);
+            if (key != EMPTY_KEY) {
+                consumer.accept((int) (key >>> 32), (int) key, this.slots.getInt(position + COUNT_OFFSET));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        this.fillEmpty();
+        this.size = 0;
+        this.totalOffences = 0;
+    }
+
+    /**
+     * doubles the capacity of the table into a new off-heap buffer and rehashes all occupied slots
+     */
+    private void grow() {
+        if (this.capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("OffHeapViolationTable cannot grow beyond " + MAX_CAPACITY / 2 + " entries");
+        }
+        ByteBuffer oldSlots = this.slots;
+        int oldCapacity = this.capacity;
+        this.allocate(2 * oldCapacity);
+
+        for (int position = 0; position < oldCapacity * SLOT_BYTES; position += SLOT_BYTES) {
+            long key = oldSlots.getLong(position + KEY_OFFSET);
+            if (key != EMPTY_KEY) {
+                int newPosition = this.findSlot(key) * SLOT_BYTES;
+                this.slots.putLong(newPosition + KEY_OFFSET, key);
+                this.slots.putInt(newPosition + COUNT_OFFSET, oldSlots.getInt(position + COUNT_OFFSET));
+            }
+        }
+    }
+
+    /**
+     * finds the slot that holds the key, or the empty slot where it shall be inserted
+     */
+    private int findSlot(long key) {
+        int mask = this.capacity - 1;
+        int slot = ArrayViolationTable.hash(key) & mask;
+        long slotKey;
+        while ((slotKey = this.slots.getLong(slot * SLOT_BYTES + KEY_OFFSET)) != EMPTY_KEY && slotKey != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
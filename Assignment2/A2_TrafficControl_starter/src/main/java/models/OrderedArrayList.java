@@ -2,16 +2,47 @@ package models;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 public class OrderedArrayList<E>
         extends ArrayList<E>
         implements OrderedList<E> {
 
+    /**
+     * The search algorithms that indexOf can apply to the sorted section of the list
+     *      ITERATIVE_BINARY    the classic iterative binary search
+     *      RECURSIVE_BINARY    the classic recursive binary search
+     *      BRANCHLESS_BINARY   a binary search that halves the range without an early exit on a match,
+     *                          such that the loop body has no unpredictable branch
+     *      EXPONENTIAL         a search that doubles its range backwards from the end of the sorted section,
+     *                          which quickly finds recently appended items that arrived in sort order
+     *      EYTZINGER           a binary search on a snapshot of the sorted section in breadth-first (Eytzinger) layout,
+     *                          such that the first levels of the search tree share a few cache lines;
+     *                          the snapshot is rebuilt on the first search after any structural change of the list
+     */
+    public enum SearchStrategy {
+        ITERATIVE_BINARY,
+        RECURSIVE_BINARY,
+        BRANCHLESS_BINARY,
+        EXPONENTIAL,
+        EYTZINGER
+    }
+
     protected Comparator<? super E> sortOrder;   // the comparator that has been used with the latest sort
     protected int nSorted;                       // the number of sorted items in the first section of the list
+    private SearchStrategy searchStrategy = SearchStrategy.ITERATIVE_BINARY;    // applied by indexOf
+    private Object[] eytzingerItems;             // the sorted section in Eytzinger layout, from index 1, or null
+    private int[] eytzingerIndices;              // the index in the list of every item of the Eytzinger snapshot
+    private int eytzingerModCount;               // the modCount of the list when the snapshot was taken
+    private final List<SecondaryIndex<E>> secondaryIndexes = new ArrayList<>();  // informed of every change
     // representation-invariant
     //      all items at index positions 0 <= index < nSorted have been ordered by the given sortOrder comparator
     //      other items at index position nSorted <= index < size() can be in any order amongst themselves
@@ -31,10 +62,46 @@ public class OrderedArrayList<E>
         return this.sortOrder;
     }
 
+    public SearchStrategy getSearchStrategy() {
+        return this.searchStrategy;
+    }
+
+    public void setSearchStrategy(SearchStrategy searchStrategy) {
+        if (searchStrategy == null) throw new IllegalArgumentException("searchStrategy cannot be null");
+        this.searchStrategy = searchStrategy;
+        this.eytzingerItems = null;
+        this.eytzingerIndices = null;
+    }
+
     @Override
     public void clear() {
         super.clear();
         this.nSorted = 0;
+        for (SecondaryIndex<E> index : this.secondaryIndexes) {
+            index.rebuild(Collections.emptyList());
+        }
+    }
+
+    @Override
+    public SecondaryIndex<E> addSecondaryIndex(Comparator<? super E> sortOrder) {
+        SecondaryIndex<E> index = new SecondaryIndex<>(sortOrder, this.sortOrder, this);
+        this.secondaryIndexes.add(index);
+        return index;
+    }
+
+    @Override
+    public boolean removeSecondaryIndex(SecondaryIndex<E> index) {
+        return this.secondaryIndexes.remove(index);
+    }
+
+    /**
+     * removes a batch of items from the secondary indexes
+     * @param removedItems  the removed items, by identity
+     */
+    private void removeFromSecondaryIndexes(Set<E> removedItems) {
+        for (SecondaryIndex<E> index : this.secondaryIndexes) {
+            index.removedAll(removedItems);
+        }
     }
 
     @Override
@@ -62,6 +129,48 @@ public class OrderedArrayList<E>
             nSorted = index;
         }
         super.add(index, item);
+        for (SecondaryIndex<E> secondaryIndex : this.secondaryIndexes) {
+            secondaryIndex.inserted(item);
+        }
+    }
+
+    @Override
+    public boolean add(E item) {
+        super.add(item);
+        for (SecondaryIndex<E> index : this.secondaryIndexes) {
+            index.inserted(item);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> items) {
+        boolean changed = super.addAll(items);
+        for (SecondaryIndex<E> index : this.secondaryIndexes) {
+            index.insertedAll(items);
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> items) {
+        if (index < nSorted) {
+            nSorted = index;
+        }
+        boolean changed = super.addAll(index, items);
+        for (SecondaryIndex<E> secondaryIndex : this.secondaryIndexes) {
+            secondaryIndex.insertedAll(items);
+        }
+        return changed;
+    }
+
+    @Override
+    public E set(int index, E item) {
+        E replacedItem = super.set(index, item);
+        for (SecondaryIndex<E> secondaryIndex : this.secondaryIndexes) {
+            secondaryIndex.replaced(replacedItem, item);
+        }
+        return replacedItem;
     }
 
     /**
@@ -75,7 +184,11 @@ public class OrderedArrayList<E>
         if (index <= nSorted) {
             nSorted--;
         }
-        return super.remove(index);
+        E removedItem = super.remove(index);
+        for (SecondaryIndex<E> secondaryIndex : this.secondaryIndexes) {
+            secondaryIndex.removed(removedItem);
+        }
+        return removedItem;
     }
 
     /**
@@ -91,7 +204,65 @@ public class OrderedArrayList<E>
         if (objectIndex <= nSorted && objectIndex >= 0) {
             nSorted--;
         }
-        return super.remove(object);
+        // the secondary indexes need the very item that is removed, which is the first item that equals the object
+        int removedIndex = this.secondaryIndexes.isEmpty() ? -1 : super.indexOf(object);
+        E removedItem = removedIndex >= 0 ? get(removedIndex) : null;
+        boolean removed = super.remove(object);
+        if (removed && removedItem != null) {
+            for (SecondaryIndex<E> index : this.secondaryIndexes) {
+                index.removed(removedItem);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        // the sorted section loses the removed items that were part of it
+        nSorted -= Math.max(0, Math.min(toIndex, nSorted) - fromIndex);
+        Set<E> removedItems = Collections.newSetFromMap(new IdentityHashMap<>());
+        removedItems.addAll(this.subList(fromIndex, toIndex));
+        super.removeRange(fromIndex, toIndex);
+        this.removeFromSecondaryIndexes(removedItems);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        // the relative order of the remaining items is retained, but the sorted section may lose items
+        // the filter is tested once per item, such that the sorted section and the indexes lose the same items
+        Set<E> removedItems = Collections.newSetFromMap(new IdentityHashMap<>());
+        int nRemovedFromSorted = 0;
+        for (int i = 0; i < size(); i++) {
+            if (filter.test(get(i))) {
+                removedItems.add(get(i));
+                if (i < nSorted) nRemovedFromSorted++;
+            }
+        }
+        if (removedItems.isEmpty()) return false;
+
+        super.removeIf(removedItems::contains);
+        this.nSorted -= nRemovedFromSorted;
+        this.removeFromSecondaryIndexes(removedItems);
+        return true;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> items) {
+        return this.removeIf(items::contains);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> items) {
+        return this.removeIf(item -> !items.contains(item));
+    }
+
+    @Override
+    public void replaceAll(UnaryOperator<E> operator) {
+        super.replaceAll(operator);
+        this.nSorted = 0;
+        for (SecondaryIndex<E> index : this.secondaryIndexes) {
+            index.rebuild(this);
+        }
     }
 
 
@@ -106,7 +277,7 @@ public class OrderedArrayList<E>
     public int indexOf(Object item) {
         // efficient search can be done only if you have provided an sortOrder for the list
         if (this.getSortOrder() != null) {
-            return indexOfByIterativeBinarySearch((E) item);
+            return indexOfBySearchStrategy(this.cast(item));
         } else {
             return super.indexOf(item);
         }
@@ -210,6 +381,177 @@ public class OrderedArrayList<E>
 
 
 
+    /**
+     * finds the position of the searchItem by the configured search strategy in the sorted section of the arrayList,
+     * or else by linear search in the unsorted section
+     * @param searchItem the item to be searched on the basis of comparison by this.sortOrder
+     * @return the position index of the found item in the arrayList, or -1 if no item matches the search item.
+     */
+    public int indexOfBySearchStrategy(E searchItem) {
+        if (searchItem == null) {
+            return -1;
+        }
+
+        switch (this.searchStrategy) {
+            case RECURSIVE_BINARY:
+                return indexOfByRecursiveBinarySearch(searchItem);
+            case BRANCHLESS_BINARY:
+                return orElseLinearSearch(searchItem, indexOfByBranchlessBinarySearch(searchItem));
+            case EXPONENTIAL:
+                return orElseLinearSearch(searchItem, indexOfByExponentialSearch(searchItem));
+            case EYTZINGER:
+                return orElseLinearSearch(searchItem, indexOfByEytzingerSearch(searchItem));
+            default:
+                return indexOfByIterativeBinarySearch(searchItem);
+        }
+    }
+
+    private int orElseLinearSearch(E searchItem, int sortedIndex) {
+        if (sortedIndex >= 0) {
+            return sortedIndex;
+        }
+        for (int i = nSorted; i < size(); i++) {
+            if (sortOrder.compare(searchItem, get(i)) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * binary search of the sorted section that narrows down the range to a single candidate
+     * before testing for a match, using integer arithmetic only
+     * @return the index of the match in the sorted section, or -1
+     */
+    private int indexOfByBranchlessBinarySearch(E searchItem) {
+        if (nSorted == 0) {
+            return -1;
+        }
+        int base = 0;
+        int n = nSorted;
+        while (n > 1) {
+            int half = n >>> 1;
+            // the conditional assignment compiles into a conditional move rather than a jump
+            base = sortOrder.compare(get(base + half), searchItem) <= 0 ? base + half : base;
+            n -= half;
+        }
+        return sortOrder.compare(get(base), searchItem) == 0 ? base : -1;
+    }
+
+    /**
+     * exponential search of the sorted section, backwards from its end
+     * the search range doubles until it holds the searchItem, and is then searched by binary search
+     * @return the index of the match in the sorted section, or -1
+     */
+    private int indexOfByExponentialSearch(E searchItem) {
+        int bound = 1;
+        while (bound <= nSorted && sortOrder.compare(get(nSorted - bound), searchItem) > 0) {
+            bound *= 2;
+        }
+        // the searchItem sorts at or after nSorted - bound and before nSorted - bound/2
+        int from = Math.max(0, nSorted - bound);
+        int to = nSorted - bound / 2 - 1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            int compareResult = sortOrder.compare(searchItem, get(middle));
+            if (compareResult == 0) {
+                return middle;
+            } else if (compareResult < 0) {
+                to = middle - 1;
+            } else {
+                from = middle + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * binary search of the Eytzinger snapshot of the sorted section
+     * the children of node k are found at 2k and 2k+1, so the search descends through adjacent memory
+     * @return the index of the match in the sorted section, or -1
+     */
+    private int indexOfByEytzingerSearch(E searchItem) {
+        if (this.eytzingerItems == null || this.eytzingerModCount != this.modCount
+                || this.eytzingerItems.length != nSorted + 1) {
+            this.takeEytzingerSnapshot();
+        }
+        Object[] items = this.eytzingerItems;
+        int k = 1;
+        while (k < items.length) {
+            k = 2 * k + (sortOrder.compare(this.cast(items[k]), searchItem) < 0 ? 1 : 0);
+        }
+        // cancel the right turns after the last left turn, which was at the lower bound of the searchItem
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k > 0 && sortOrder.compare(this.cast(items[k]), searchItem) == 0 ? this.eytzingerIndices[k] : -1;
+    }
+
+    /**
+     * casts an item of the list, or of the Eytzinger snapshot of the list, back to the item type
+     * a search item of another type will fail on the comparison by the sortOrder
+     */
+    @SuppressWarnings("unchecked")
+    private E cast(Object item) {
+        return (E) item;
+    }
+
+    private void takeEytzingerSnapshot() {
+        this.eytzingerItems = new Object[nSorted + 1];
+        this.eytzingerIndices = new int[nSorted + 1];
+        this.fillEytzingerSnapshot(0, 1);
+        this.eytzingerModCount = this.modCount;
+    }
+
+    /**
+     * fills the subtree of node k by an in-order traversal of the sorted section, starting from index i
+     * @return the index of the next item of the sorted section to be placed
+     */
+    private int fillEytzingerSnapshot(int i, int k) {
+        if (k <= nSorted) {
+            i = this.fillEytzingerSnapshot(i, 2 * k);
+            this.eytzingerItems[k] = get(i);
+            this.eytzingerIndices[k] = i++;
+            i = this.fillEytzingerSnapshot(i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    @Override
+    public int lowerBound(E searchItem) {
+        return OrderedList.partitionPoint(this, 0, nSorted, item -> sortOrder.compare(item, searchItem) < 0);
+    }
+
+    @Override
+    public int upperBound(E searchItem) {
+        return OrderedList.partitionPoint(this, 0, nSorted, item -> sortOrder.compare(item, searchItem) <= 0);
+    }
+
+    /**
+     * provides the items of the sorted section in a range of the sort order
+     * the result is a subList view on the list itself, which becomes invalid on any structural change of the list
+     * @param fromItem  the lower bound of the range (inclusive)
+     * @param toItem    the upper bound of the range (exclusive)
+     * @return          all sorted items that sort at or after fromItem and before toItem
+     */
+    @Override
+    public List<E> range(E fromItem, E toItem) {
+        int from = this.lowerBound(fromItem);
+        return this.subList(from, Math.max(from, this.lowerBound(toItem)));
+    }
+
+    /**
+     * provides the items of the sorted section with a key that starts with the prefix
+     * the result is a subList view on the list itself, which becomes invalid on any structural change of the list
+     * @param key       extracts the key of an item, which shall be the primary criterion of the sortOrder
+     * @param prefix
+     * @return          all sorted items with a key that starts with the prefix
+     */
+    @Override
+    public List<E> prefixRange(Function<? super E, String> key, String prefix) {
+        int from = OrderedList.partitionPoint(this, 0, nSorted, item -> key.apply(item).compareTo(prefix) < 0);
+        int to = OrderedList.partitionPoint(this, from, nSorted, OrderedList.isBeforeOrHasPrefix(key, prefix));
+        return this.subList(from, to);
+    }
+
     /**
      * finds a match of newItem in the list and applies the merger operator with the newItem to that match
      * i.e. the found match is replaced by the outcome of the merge between the match and the newItem
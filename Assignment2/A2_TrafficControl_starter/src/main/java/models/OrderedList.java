@@ -4,6 +4,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public interface OrderedList<E> extends List<E> {
     Comparator<? super E> getSortOrder();
@@ -11,4 +12,83 @@ public interface OrderedList<E> extends List<E> {
     int indexOfByBinarySearch(E searchItem);
     boolean merge(E item, BinaryOperator<E> merger);
     double aggregate(Function<E,Double> mapper);
+
+    /**
+     * finds the item that matches the searchItem by the sort order of the list
+     * @param searchItem
+     * @return the matching item, or null if no item matches
+     */
+    default E find(E searchItem) {
+        int index = this.indexOf(searchItem);
+        return index >= 0 ? this.get(index) : null;
+    }
+
+    /**
+     * registers a secondary index that keeps all items of the list ordered by another sort order
+     * the list reports every change of its items to the index, which keeps its own order incrementally
+     * @param sortOrder the sort order of the index
+     * @return  a read-only, sorted view on the items of the list
+     */
+    SecondaryIndex<E> addSecondaryIndex(Comparator<? super E> sortOrder);
+    boolean removeSecondaryIndex(SecondaryIndex<E> index);
+
+    /**
+     * @param searchItem
+     * @return the position of the first item in the sorted section that does not sort before the searchItem
+     */
+    int lowerBound(E searchItem);
+
+    /**
+     * @param searchItem
+     * @return the position of the first item in the sorted section that sorts after the searchItem
+     */
+    int upperBound(E searchItem);
+
+    /**
+     * provides the items of the sorted section in a range of the sort order, as a view without copying
+     * @param fromItem  the lower bound of the range (inclusive)
+     * @param toItem    the upper bound of the range (exclusive)
+     * @return          all sorted items that sort at or after fromItem and before toItem
+     */
+    List<E> range(E fromItem, E toItem);
+
+    /**
+     * provides the items of the sorted section with a key that starts with the prefix, as a view without copying
+     * the sort order of the list shall order the items by their key first, e.g. by license plate
+     * @param key       extracts the key of an item
+     * @param prefix
+     * @return          all sorted items with a key that starts with the prefix
+     */
+    List<E> prefixRange(Function<? super E, String> key, String prefix);
+
+    /**
+     * finds the partition point of a range of items, for which isBefore holds for all items up to some position
+     * and does not hold for any item from that position onwards
+     * @param items     the items to be searched
+     * @param from      the start of the range (inclusive)
+     * @param to        the end of the range (exclusive)
+     * @param isBefore  a predicate that is monotone over the range
+     * @return          the position of the first item in the range for which isBefore does not hold, or to
+     */
+    static <E> int partitionPoint(List<E> items, int from, int to, Predicate<? super E> isBefore) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (isBefore.test(items.get(middle))) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * @return the predicate for partitionPoint that finds the end of all keys that sort before or start with the prefix
+     */
+    static <E> Predicate<E> isBeforeOrHasPrefix(Function<? super E, String> key, String prefix) {
+        return item -> {
+            String itemKey = key.apply(item);
+            return itemKey.compareTo(prefix) < 0 || itemKey.startsWith(prefix);
+        };
+    }
 }
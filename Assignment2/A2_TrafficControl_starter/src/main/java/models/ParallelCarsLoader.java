@@ -0,0 +1,244 @@
+package models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static models.Car.CarType;
+import static models.Car.FuelType;
+
+/**
+ * Loads a large cars file on all available cores.
+ * The file is split into byte ranges at line boundaries, every range is memory mapped and parsed
+ * into a partial array of cars by a separate task, and the partial results are merged by a parallel sort.
+ * Lines are parsed directly from their bytes, without splitting them into field strings;
+ * lines that do not follow the expected format exactly are handed to Car.fromLine,
+ * such that the outcome is the same as of a sequential import.
+ */
+public class ParallelCarsLoader {
+    private static final int MIN_CHUNK_BYTES = 1 << 16;
+    private static final CarType[] CAR_TYPES = CarType.values();
+    private static final FuelType[] FUEL_TYPES = FuelType.values();
+    private static final byte[][] CAR_TYPE_NAMES = namesOf(CAR_TYPES);
+    private static final byte[][] FUEL_TYPE_NAMES = namesOf(FUEL_TYPES);
+
+    /**
+     * imports all cars from a text file which provides one line for each car
+     * in the format: licensePlate, emissionCategory, carType, fuelType, dateOfAdmission
+     * @param file  the source text file
+     * @param cars  the list to which the imported cars shall be added, sorted by license plate
+     * @return      the number of lines in the file
+     */
+    public static int importCarsFromFile(File file, List<Car> cars) {
+        return importCarsFromFile(file, cars, ParseErrorHandler.PRINT);
+    }
+
+    /**
+     * @param errorHandler  receives the lines with corrupt fields
+     */
+    public static int importCarsFromFile(File file, List<Car> cars, ParseErrorHandler errorHandler) {
+        return importCarsFromFile(file, cars, errorHandler, MIN_CHUNK_BYTES);
+    }
+
+    static int importCarsFromFile(File file, List<Car> cars, ParseErrorHandler errorHandler, int minChunkBytes) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+
+            long[] boundaries = findChunkBoundaries(channel, minChunkBytes);
+            Chunk[] chunks = IntStream.range(0, boundaries.length - 1)
+                    .parallel()
+                    .mapToObj(c -> parseChunk(channel, boundaries[c], boundaries[c + 1], errorHandler))
+                    .toArray(Chunk[]::new);
+
+            int numberOfCars = 0;
+            int numberOfLines = 0;
+            for (Chunk chunk : chunks) {
+                numberOfCars += chunk.cars.size();
+                numberOfLines += chunk.numberOfLines;
+            }
+            Car[] merged = new Car[numberOfCars];
+            int offset = 0;
+            for (Chunk chunk : chunks) {
+                for (Car car : chunk.cars) {
+                    merged[offset++] = car;
+                }
+            }
+            Arrays.parallelSort(merged, Car::compareByLicensePlate);
+
+            cars.addAll(Arrays.asList(merged));
+            return numberOfLines;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load cars from file: " + file.getPath());
+        }
+    }
+
+    /**
+     * splits the file into ranges of at least minChunkBytes, a few per core, that each start at the beginning of a line
+     * @return  the start positions of all ranges, followed by the size of the file
+     */
+    private static long[] findChunkBoundaries(FileChannel channel, int minChunkBytes) throws IOException {
+        long size = channel.size();
+        int nChunks = (int) Math.max(1, Math.min(4L * Runtime.getRuntime().availableProcessors(), size / minChunkBytes));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(0L);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        for (int c = 1; c < nChunks; c++) {
+            long position = Math.max(size * c / nChunks, boundaries.get(boundaries.size() - 1));
+            // advance to the first position after the next line separator
+            boolean found = false;
+            while (!found && position < size) {
+                buffer.clear();
+                int n = channel.read(buffer, position);
+                for (int i = 0; i < n && !found; i++) {
+                    found = buffer.get(i) == '\n';
+                    position++;
+                }
+            }
+            if (position < size && position > boundaries.get(boundaries.size() - 1)) {
+                boundaries.add(position);
+            }
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static Chunk parseChunk(FileChannel channel, long from, long to, ParseErrorHandler errorHandler) {
+        MappedByteBuffer bytes;
+        try {
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not map range " + from + ".." + to + " of the cars file");
+        }
+
+        Chunk chunk = new Chunk();
+        int lineStart = 0;
+        int limit = bytes.limit();
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && bytes.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            chunk.numberOfLines++;
+            Car car = parseLine(bytes, lineStart, lineEnd, chunk.fieldStarts, chunk.fieldEnds, errorHandler);
+            if (car != null) {
+                chunk.cars.add(car);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * parses a car from the bytes of a line
+     * @return  the car, or null if the line is incomplete; corrupt lines are passed on to Car.fromLine
+     */
+    private static Car parseLine(ByteBuffer bytes, int from, int to, int[] fieldStarts, int[] fieldEnds,
+                                 ParseErrorHandler errorHandler) {
+        int nFields = 0;
+        int fieldStart = from;
+        for (int i = from; i <= to && nFields < 5; i++) {
+            if (i == to || bytes.get(i) == ',') {
+                // trim leading and trailing whitespace of the field
+                int start = fieldStart, end = i;
+                while (start < end && bytes.get(start) <= ' ') start++;
+                while (end > start && bytes.get(end - 1) <= ' ') end--;
+                fieldStarts[nFields] = start;
+                fieldEnds[nFields] = end;
+                nFields++;
+                fieldStart = i + 1;
+            }
+        }
+        if (nFields < 5) return null;
+
+        int emissionCategory = parseNumber(bytes, fieldStarts[1], fieldEnds[1]);
+        int carType = indexOfName(CAR_TYPE_NAMES, bytes, fieldStarts[2], fieldEnds[2]);
+        int fuelType = indexOfName(FUEL_TYPE_NAMES, bytes, fieldStarts[3], fieldEnds[3]);
+        LocalDate dateOfAdmission = parseDate(bytes, fieldStarts[4], fieldEnds[4]);
+        if (fieldStarts[0] == fieldEnds[0] || emissionCategory < 0 || carType < 0 || fuelType < 0
+                || dateOfAdmission == null) {
+            // let the regular parser deal with, and report on, any unusual format
+            return Car.fromLine(decode(bytes, from, to), errorHandler);
+        }
+
+        return new Car(decode(bytes, fieldStarts[0], fieldEnds[0]), emissionCategory,
+                CAR_TYPES[carType], FUEL_TYPES[fuelType], dateOfAdmission);
+    }
+
+    /**
+     * @return  the value of an unsigned decimal number of at most 9 digits, or -1 if the field is not such a number
+     */
+    private static int parseNumber(ByteBuffer bytes, int from, int to) {
+        if (from == to || to - from > 9) return -1;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = bytes.get(i) - '0';
+            if (digit < 0 || digit > 9) return -1;
+            value = 10 * value + digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return  the date of a field in the format yyyy-MM-dd, or null if the field is not such a date
+     */
+    private static LocalDate parseDate(ByteBuffer bytes, int from, int to) {
+        if (to - from != 10 || bytes.get(from + 4) != '-' || bytes.get(from + 7) != '-') return null;
+        int year = parseNumber(bytes, from, from + 4);
+        int month = parseNumber(bytes, from + 5, from + 7);
+        int day = parseNumber(bytes, from + 8, from + 10);
+        if (year < 0 || month < 0 || day < 0) return null;
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int indexOfName(byte[][] names, ByteBuffer bytes, int from, int to) {
+        for (int n = 0; n < names.length; n++) {
+            if (names[n].length == to - from && matches(names[n], bytes, from)) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte[] name, ByteBuffer bytes, int from) {
+        for (int i = 0; i < name.length; i++) {
+            if (name[i] != bytes.get(from + i)) return false;
+        }
+        return true;
+    }
+
+    private static String decode(ByteBuffer bytes, int from, int to) {
+        byte[] text = new byte[to - from];
+        bytes.get(from, text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] namesOf(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().getBytes(StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    private static class Chunk {
+        final List<Car> cars = new ArrayList<>();
+        final int[] fieldStarts = new int[5];   // scratch space for the field positions of the line being parsed
+        final int[] fieldEnds = new int[5];
+        int numberOfLines;
+    }
+}
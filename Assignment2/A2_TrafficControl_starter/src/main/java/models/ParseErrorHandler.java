@@ -0,0 +1,28 @@
+package models;
+
+/**
+ * Receives the text lines that could not be parsed into an item
+ */
+@FunctionalInterface
+public interface ParseErrorHandler {
+
+    /**
+     * reports every rejected line on the console
+     */
+    ParseErrorHandler PRINT = (itemType, textLine, reason) -> {
+        System.out.printf("Could not parse %s specification in text line '%s'\n", itemType, textLine);
+        System.out.println(reason);
+    };
+
+    /**
+     * ignores all rejected lines
+     */
+    ParseErrorHandler IGNORE = (itemType, textLine, reason) -> {};
+
+    /**
+     * @param itemType  the type of item that was expected, e.g. "Car"
+     * @param textLine  the rejected text line
+     * @param reason    a description of the first malformed field
+     */
+    void reject(String itemType, String textLine, String reason);
+}
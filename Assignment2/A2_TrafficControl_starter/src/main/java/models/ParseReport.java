@@ -0,0 +1,93 @@
+package models;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects the lines that were rejected by a parser, without slowing down the import of dirty data:
+ * all rejections are counted, only the first maxSamples are retained as examples,
+ * and all rejected lines can be routed to a quarantine file for later inspection or correction.
+ * The report is thread-safe, so it can serve parallel imports.
+ */
+public class ParseReport implements ParseErrorHandler, AutoCloseable {
+    private final int maxSamples;
+    private final List<String> samples = new ArrayList<>();
+    private final File quarantineFile;          // or null if rejected lines are not retained
+    private BufferedWriter quarantine;
+    private long numberOfErrors;
+
+    public ParseReport(int maxSamples) {
+        this(maxSamples, null);
+    }
+
+    /**
+     * @param maxSamples        the maximum number of rejections to be retained as examples
+     * @param quarantineFile    the file that receives all rejected lines, or null
+     */
+    public ParseReport(int maxSamples, File quarantineFile) {
+        if (maxSamples < 0) throw new IllegalArgumentException("maxSamples cannot be negative");
+        this.maxSamples = maxSamples;
+        this.quarantineFile = quarantineFile;
+        if (quarantineFile != null) {
+            try {
+                this.quarantine = new BufferedWriter(new FileWriter(quarantineFile, StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new RuntimeException("Could not create quarantine file: " + quarantineFile.getPath());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void reject(String itemType, String textLine, String reason) {
+        this.numberOfErrors++;
+        if (this.samples.size() < this.maxSamples) {
+            this.samples.add(String.format("%s: %s in '%s'", itemType, reason, textLine));
+        }
+        if (this.quarantine != null) {
+            try {
+                this.quarantine.write(textLine);
+                this.quarantine.newLine();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write quarantine file: " + this.quarantineFile.getPath());
+            }
+        }
+    }
+
+    public synchronized long getNumberOfErrors() {
+        return this.numberOfErrors;
+    }
+
+    /**
+     * @return  a description of the first rejections, at most maxSamples
+     */
+    public synchronized List<String> getSamples() {
+        return Collections.unmodifiableList(new ArrayList<>(this.samples));
+    }
+
+    /**
+     * completes the quarantine file
+     */
+    @Override
+    public synchronized void close() {
+        if (this.quarantine != null) {
+            try {
+                this.quarantine.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not complete quarantine file: " + this.quarantineFile.getPath());
+            }
+            this.quarantine = null;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d lines rejected%s", this.numberOfErrors,
+                this.samples.isEmpty() ? "" : ", e.g. " + String.join("; ", this.samples));
+    }
+}
@@ -0,0 +1,156 @@
+package models;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static models.Car.CarType;
+import static models.Car.FuelType;
+
+/**
+ * Validates blocks of detections against the purple zone rule in bulk,
+ * as an allocation free alternative to calling Detection.validatePurple() on every single detection.
+ * The validator is compiled from a ZoneRuleSet, ZoneRuleSet.PURPLE by default. As it does not see the city
+ * and date of a detection, it only accepts rules that apply in every city at every date, like the purple rules.
+ * Detections are provided as primitive columns of car indices and city ids.
+ * The car indices refer to the positions of the cars in the list from which this validator was built,
+ * so the validator shall be rebuilt (or extended) whenever that list is re-sorted or extended.
+ * A validator reuses its internal buffers and is not thread-safe.
+ */
+public class PurpleZoneValidator {
+    private final int[] ruleCarTypes;       // bit mask of the restricted CarType ordinals, by rule
+    private final int[] ruleFuelTypes;      // bit mask of the restricted FuelType ordinals, by rule
+    private final int[] ruleMinEmissionCategories;  // the minimum emission category, by rule
+
+    private int[] emissionCategories;   // column of emission categories by car index
+    private byte[] carTypes;            // column of CarType ordinals by car index
+    private byte[] fuelTypes;           // column of FuelType ordinals by car index
+    private int[] offending;            // 1 if the car at the index violates any of the rules on entry, 0 otherwise
+    private int nCars;                  // the number of cars represented by the columns
+
+    private int[] hits = new int[0];    // scratch buffer with the positions of offending detections in a batch
+
+    public PurpleZoneValidator(List<Car> cars) {
+        this(cars, ZoneRuleSet.PURPLE);
+    }
+
+    /**
+     * @param cars
+     * @param zoneRules     rules that apply in all cities at all dates
+     */
+    public PurpleZoneValidator(List<Car> cars, ZoneRuleSet zoneRules) {
+        List<ZoneRule> rules = zoneRules.getRules();
+        this.ruleCarTypes = new int[rules.size()];
+        this.ruleFuelTypes = new int[rules.size()];
+        this.ruleMinEmissionCategories = new int[rules.size()];
+        for (int r = 0; r < rules.size(); r++) {
+            ZoneRule rule = rules.get(r);
+            if (rule.getCity() != null || rule.getValidFrom() != null || rule.getValidUntil() != null) {
+                throw new IllegalArgumentException("a batch validated rule shall apply in all cities at all dates: " + rule);
+            }
+            for (CarType carType : rule.getCarTypes()) this.ruleCarTypes[r] |= 1 << carType.ordinal();
+            for (FuelType fuelType : rule.getFuelTypes()) this.ruleFuelTypes[r] |= 1 << fuelType.ordinal();
+            this.ruleMinEmissionCategories[r] = rule.getMinEmissionCategory();
+        }
+
+        this.emissionCategories = new int[cars.size()];
+        this.carTypes = new byte[cars.size()];
+        this.fuelTypes = new byte[cars.size()];
+        this.offending = new int[cars.size()];
+        this.nCars = 0;
+        this.extend(cars);
+    }
+
+    /**
+     * appends the columns of all cars beyond the ones already represented by this validator,
+     * e.g. after unknown cars have been added to the tail of the cars list
+     * @param cars  the same list as from which the validator was built, possibly grown at its tail
+     */
+    public void extend(List<Car> cars) {
+        if (cars.size() > this.offending.length) {
+            int capacity = Math.max(cars.size(), 2 * this.offending.length);
+            this.emissionCategories = Arrays.copyOf(this.emissionCategories, capacity);
+            this.carTypes = Arrays.copyOf(this.carTypes, capacity);
+            this.fuelTypes = Arrays.copyOf(this.fuelTypes, capacity);
+            this.offending = Arrays.copyOf(this.offending, capacity);
+        }
+
+        for (int i = this.nCars; i < cars.size(); i++) {
+            Car car = cars.get(i);
+            this.emissionCategories[i] = car.getEmissionCategory();
+            this.carTypes[i] = (byte) car.getCarType().ordinal();
+            this.fuelTypes[i] = (byte) car.getFuelType().ordinal();
+        }
+        this.evaluateColumns(this.nCars, cars.size());
+        this.nCars = cars.size();
+    }
+
+    /**
+     * evaluates the rules over the car columns, one rule per pass, with bitwise combination of the conditions
+     * instead of short-circuit branches, such that the loop body is free of data dependent jumps
+     */
+    private void evaluateColumns(int from, int to) {
+        Arrays.fill(this.offending, from, to, 0);
+        for (int r = 0; r < this.ruleCarTypes.length; r++) {
+            final int carTypeMask = this.ruleCarTypes[r];
+            final int fuelTypeMask = this.ruleFuelTypes[r];
+            final int minEmissionCategory = this.ruleMinEmissionCategories[r];
+
+            for (int i = from; i < to; i++) {
+                int isRestricted = (carTypeMask >>> this.carTypes[i]) & (fuelTypeMask >>> this.fuelTypes[i]) & 1;
+                int isPolluting = this.emissionCategories[i] < minEmissionCategory ? 1 : 0;
+                this.offending[i] |= isRestricted & isPolluting;
+            }
+        }
+    }
+
+    /**
+     * @param carIndex
+     * @return  whether the car at carIndex offends against any of the rules on entry of a zone
+     */
+    public boolean isOffending(int carIndex) {
+        return this.offending[carIndex] != 0;
+    }
+
+    /**
+     * validates a block of detections against the rules
+     * and accumulates the offences found into the table, without allocating a Violation per offence.
+     * @param carIndices    the car index of every detection in the block
+     * @param cityIds       the city id of every detection in the block
+     * @param count         the number of detections in the block, taken from the start of both columns
+     * @param table         the aggregation table that accumulates the offences by (carIndex, cityId)
+     * @return              the number of offences found in the block
+     */
+    public int validateBatch(int[] carIndices, int[] cityIds, int count, ViolationTable table) {
+        if (count > carIndices.length || count > cityIds.length) {
+            throw new IllegalArgumentException("count exceeds the length of the detection columns");
+        }
+        if (this.hits.length < count) {
+            this.hits = new int[count];
+        }
+
+        // first pass: compact the positions of all offending detections into hits
+        // every position is written, but the write cursor only advances for an offence
+        final int[] offending = this.offending;
+        final int[] hits = this.hits;
+        int nHits = 0;
+        for (int i = 0; i < count; i++) {
+            hits[nHits] = i;
+            nHits += offending[carIndices[i]];
+        }
+
+        // second pass: aggregate the offences that were found
+        for (int h = 0; h < nHits; h++) {
+            int i = hits[h];
+            table.addOffences(carIndices[i], cityIds[i], 1);
+        }
+
+        return nHits;
+    }
+
+    /**
+     * @return  the number of cars represented by the columns of this validator
+     */
+    public int getNumberOfCars() {
+        return this.nCars;
+    }
+}
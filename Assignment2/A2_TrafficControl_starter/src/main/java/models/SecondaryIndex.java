@@ -0,0 +1,213 @@
+package models;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A read-only view on the items of an OrderedList in a different sort order than the list itself,
+ * e.g. violations by city while the list is ordered by car and city.
+ * The index is registered with the list by OrderedList.addSecondaryIndex, and the list reports every change
+ * of its items to the index, which keeps its items in order incrementally:
+ * an added item is inserted at its position found by binary search, a merged item that still compares equal
+ * to the item that it replaces takes its place, and a batch of items is merged in with a single pass.
+ * Items that compare equal in the sort order of the index are ordered by the sort order of the list, if it has one,
+ * such that every item of the list can be found back by binary search.
+ * Like the sub lists of an ArrayList, the ranges that are provided by the index fail fast
+ * once items have been added to or removed from the index, while replacing an item in its place leaves them valid.
+ */
+public class SecondaryIndex<E> extends AbstractList<E> {
+    private final Comparator<? super E> sortOrder;
+    private final Comparator<? super E> order;  // the sortOrder, with ties broken by the sort order of the list
+    private ArrayList<E> items;
+
+    /* Representation Invariant:
+     *      items holds the same items as the owning list, ordered by order
+     */
+
+    /**
+     * @param sortOrder     the sort order of the index
+     * @param tieBreaker    the sort order of the owning list, or null if it has none
+     * @param items         the current items of the owning list
+     */
+    SecondaryIndex(Comparator<? super E> sortOrder, Comparator<? super E> tieBreaker, Collection<? extends E> items) {
+        if (sortOrder == null) throw new IllegalArgumentException("sortOrder cannot be null");
+        this.sortOrder = sortOrder;
+        Comparator<E> byIndex = sortOrder::compare;
+        this.order = tieBreaker != null ? byIndex.thenComparing(tieBreaker) : sortOrder;
+        this.rebuild(items);
+    }
+
+    public Comparator<? super E> getSortOrder() {
+        return this.sortOrder;
+    }
+
+    @Override
+    public synchronized E get(int index) {
+        return this.items.get(index);
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.items.size();
+    }
+
+    /**
+     * finds the position of an item that matches the searchItem by the sortOrder of the index
+     * @param searchItem
+     * @return the position of a matching item in the index, or -1 if no item matches
+     */
+    public synchronized int indexOfByBinarySearch(E searchItem) {
+        if (searchItem == null) return -1;
+        int index = this.lowerBound(searchItem);
+        return index < this.items.size() && this.sortOrder.compare(this.items.get(index), searchItem) == 0 ? index : -1;
+    }
+
+    /**
+     * @param searchItem
+     * @return the position of the first item that does not sort before the searchItem, or size() if there is none
+     */
+    public synchronized int lowerBound(E searchItem) {
+        return OrderedList.partitionPoint(this.items, 0, this.items.size(),
+                item -> this.sortOrder.compare(item, searchItem) < 0);
+    }
+
+    /**
+     * @param searchItem
+     * @return the position of the first item that sorts after the searchItem, or size() if there is none
+     */
+    public synchronized int upperBound(E searchItem) {
+        return OrderedList.partitionPoint(this.items, 0, this.items.size(),
+                item -> this.sortOrder.compare(item, searchItem) <= 0);
+    }
+
+    /**
+     * provides the items in a range of the sort order, as a view without copying
+     * @param fromItem  the lower bound of the range (inclusive)
+     * @param toItem    the upper bound of the range (exclusive)
+     * @return          all items that sort at or after fromItem and before toItem, in sort order
+     */
+    public synchronized List<E> range(E fromItem, E toItem) {
+        int from = this.lowerBound(fromItem);
+        return this.subList(from, Math.max(from, this.lowerBound(toItem)));
+    }
+
+    /**
+     * provides the items with a key that starts with the prefix, as a view without copying
+     * the sort order of the index shall order the items by their key first
+     * @param key       extracts the key of an item, e.g. the city
+     * @param prefix
+     * @return          all items with a key that starts with the prefix
+     */
+    public synchronized List<E> prefixRange(Function<? super E, String> key, String prefix) {
+        int from = OrderedList.partitionPoint(this.items, 0, this.items.size(),
+                item -> key.apply(item).compareTo(prefix) < 0);
+        int to = OrderedList.partitionPoint(this.items, from, this.items.size(),
+                OrderedList.isBeforeOrHasPrefix(key, prefix));
+        return this.subList(from, to);
+    }
+
+    /**
+     * provides all items that match the searchItem by the sort order of the index, as a view without copying
+     * @param searchItem
+     * @return  the matching items
+     */
+    public synchronized List<E> equalRange(E searchItem) {
+        return this.subList(this.lowerBound(searchItem), this.upperBound(searchItem));
+    }
+
+    /**
+     * inserts an item that has been added to the owning list at its position in the index
+     */
+    synchronized void inserted(E item) {
+        int position = OrderedList.partitionPoint(this.items, 0, this.items.size(),
+                other -> this.order.compare(other, item) <= 0);
+        this.items.add(position, item);
+        this.modCount++;
+    }
+
+    /**
+     * merges a batch of items that have been added to the owning list into the index
+     * the batch is sorted on its own, such that the existing items are moved only once
+     */
+    synchronized void insertedAll(Collection<? extends E> newItems) {
+        if (newItems.isEmpty()) return;
+        List<E> sortedItems = new ArrayList<>(newItems);
+        sortedItems.sort(this.order);
+
+        ArrayList<E> mergedItems = new ArrayList<>(this.items.size() + sortedItems.size());
+        int i = 0;
+        int j = 0;
+        while (i < this.items.size() && j < sortedItems.size()) {
+            // an existing item precedes the new items that compare equal to it
+            mergedItems.add(this.order.compare(sortedItems.get(j), this.items.get(i)) < 0
+                    ? sortedItems.get(j++) : this.items.get(i++));
+        }
+        mergedItems.addAll(this.items.subList(i, this.items.size()));
+        mergedItems.addAll(sortedItems.subList(j, sortedItems.size()));
+        this.items = mergedItems;
+        this.modCount++;
+    }
+
+    /**
+     * removes an item that has been removed from the owning list from the index
+     */
+    synchronized void removed(E item) {
+        int position = this.positionOf(item);
+        if (position >= 0) {
+            this.items.remove(position);
+            this.modCount++;
+        }
+    }
+
+    /**
+     * removes a batch of items that have been removed from the owning list from the index, in a single pass
+     * @param removedItems  a set of the removed items by identity
+     */
+    synchronized void removedAll(Set<? super E> removedItems) {
+        if (this.items.removeIf(removedItems::contains)) {
+            this.modCount++;
+        }
+    }
+
+    /**
+     * replaces an item of the owning list by another item, e.g. by the outcome of a merge
+     * the newItem takes the place of the oldItem if both compare equal in the order of the index
+     */
+    synchronized void replaced(E oldItem, E newItem) {
+        int position = this.positionOf(oldItem);
+        if (position >= 0 && this.order.compare(oldItem, newItem) == 0) {
+            this.items.set(position, newItem);
+        } else {
+            this.removed(oldItem);
+            this.inserted(newItem);
+        }
+    }
+
+    /**
+     * replaces all items of the index, after a change of the owning list that may have affected any item
+     */
+    synchronized void rebuild(Collection<? extends E> items) {
+        this.items = new ArrayList<>(items);
+        this.items.sort(this.order);
+        this.modCount++;
+    }
+
+    /**
+     * @return the position of the item itself in the index, or -1 if it is not found
+     */
+    private int positionOf(E item) {
+        int position = OrderedList.partitionPoint(this.items, 0, this.items.size(),
+                other -> this.order.compare(other, item) < 0);
+        // without a sort order of the owning list, the item needs to be found amongst the items that compare equal
+        while (position < this.items.size() && this.order.compare(this.items.get(position), item) == 0) {
+            if (this.items.get(position) == item) return position;
+            position++;
+        }
+        return -1;
+    }
+}
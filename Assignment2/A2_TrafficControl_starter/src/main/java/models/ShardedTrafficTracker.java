@@ -0,0 +1,166 @@
+package models;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Partitions the violations of the whole country by city over a number of TrafficTracker shards.
+ * Every shard knows all registered cars and imports the detections of its own cities,
+ * and all shards import in parallel.
+ * Queries are scattered over all shards in parallel, and the partial results are gathered into the same answer
+ * as a single TrafficTracker would give on the whole vault.
+ */
+public class ShardedTrafficTracker {
+    private final List<TrafficTracker> shards;
+    private final ToIntFunction<String> shardOfCity;    // maps every city to the index of its shard
+
+    /* Representation Invariant:
+     *      every city is imported into exactly one shard, so the violations of the shards have no city in common
+     */
+
+    /**
+     * distributes the cities over the shards by the hash code of their name
+     * @param numberOfShards
+     */
+    public ShardedTrafficTracker(int numberOfShards) {
+        this(numberOfShards, city -> Math.floorMod(city.hashCode(), numberOfShards));
+    }
+
+    /**
+     * @param numberOfShards
+     * @param shardOfCity   maps the name of a city to the index of its shard, e.g. by the region of the city
+     */
+    public ShardedTrafficTracker(int numberOfShards, ToIntFunction<String> shardOfCity) {
+        if (numberOfShards <= 0) throw new IllegalArgumentException("numberOfShards must be positive");
+        if (shardOfCity == null) throw new IllegalArgumentException("shardOfCity cannot be null");
+
+        this.shardOfCity = shardOfCity;
+        this.shards = new ArrayList<>();
+        for (int s = 0; s < numberOfShards; s++) {
+            this.shards.add(new TrafficTracker());
+        }
+    }
+
+    /**
+     * imports all registered cars once, and provides every shard with its own copy of the list
+     * @param resourceName
+     */
+    public void importCarsFromVault(String resourceName) {
+        if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
+
+        TrafficTracker firstShard = this.shards.get(0);
+        firstShard.importCarsFromVault(resourceName);
+        this.shards.parallelStream()
+                .filter(shard -> shard != firstShard)
+                .forEach(shard -> shard.copyCars(firstShard.getCars()));
+    }
+
+    /**
+     * imports the zone rules once, and shares them with all shards
+     * @param resourceName
+     */
+    public void importZoneRulesFromVault(String resourceName) {
+        if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
+
+        TrafficTracker firstShard = this.shards.get(0);
+        firstShard.importZoneRulesFromVault(resourceName);
+        for (TrafficTracker shard : this.shards) {
+            shard.setZoneRules(firstShard.getZoneRules());
+        }
+    }
+
+    /**
+     * imports the detections of every city folder of the vault into the shard of the city,
+     * all shards importing in parallel
+     * @param resourceName
+     */
+    public void importDetectionsFromVault(String resourceName) {
+        if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
+
+        this.importDetectionsFromFolder(TrafficTracker.createFileFromURL(TrafficTracker.class.getResource(resourceName)));
+    }
+
+    /**
+     * imports the detections of every city folder into the shard of the city, all shards importing in parallel
+     * @param detectionsFolder
+     */
+    public void importDetectionsFromFolder(File detectionsFolder) {
+        if (detectionsFolder == null) throw new IllegalArgumentException("detectionsFolder cannot be null");
+
+        // the folders below the detections folder are named by their city
+        File[] cityFolders = Objects.requireNonNullElse(detectionsFolder.listFiles(), new File[0]);
+        Map<Integer, List<File>> foldersByShard = Arrays.stream(cityFolders)
+                .collect(Collectors.groupingBy(this::shardOf));
+
+        long started = System.nanoTime();
+        IntStream.range(0, this.shards.size())
+                .parallel()
+                .forEach(s -> this.shards.get(s).importDetectionsFromFolders(
+                        foldersByShard.getOrDefault(s, List.of()), detectionsFolder.getPath() + " (shard " + s + ")"));
+
+        System.out.printf("Imported detections from %d cities into %d shards in %.1f ms.\n",
+                cityFolders.length, this.shards.size(), (System.nanoTime() - started) / 1E6);
+    }
+
+    private int shardOf(File cityFolder) {
+        int shard = this.shardOfCity.applyAsInt(cityFolder.getName());
+        if (shard < 0 || shard >= this.shards.size()) {
+            throw new IllegalStateException("No shard " + shard + " for city " + cityFolder.getName());
+        }
+        return shard;
+    }
+
+    /**
+     * @return  the total revenue of fines of the violations of all shards
+     */
+    public double calculateTotalFines() {
+        return this.shards.parallelStream()
+                .mapToDouble(TrafficTracker::calculateTotalFines)
+                .sum();
+    }
+
+    /**
+     * gathers the topNumber of violations aggregated by car from the partial results of all shards
+     * a car can have violations in multiple shards, so the partial aggregates of the same car are combined
+     * @param topNumber
+     * @return  the same violations as TrafficTracker.topViolationsByCar on the whole vault
+     */
+    public List<Violation> topViolationsByCar(int topNumber) {
+        return this.gatherTopViolations(TrafficTracker::aggregateViolationsByCar,
+                Comparator.comparing(Violation::getCar), topNumber);
+    }
+
+    /**
+     * gathers the topNumber of violations aggregated by city from the partial results of all shards
+     * @param topNumber
+     * @return  the same violations as TrafficTracker.topViolationsByCity on the whole vault
+     */
+    public List<Violation> topViolationsByCity(int topNumber) {
+        return this.gatherTopViolations(TrafficTracker::aggregateViolationsByCity,
+                Comparator.comparing(Violation::getCity), topNumber);
+    }
+
+    /**
+     * scatters the aggregation over all shards and merges their partial results
+     * all partial aggregates of every shard are gathered, such that the combined aggregates are complete
+     * whatever the ranking of the result, e.g. a car with few offences in each of many shards
+     */
+    private List<Violation> gatherTopViolations(Function<TrafficTracker, List<Violation>> aggregation,
+                                                Comparator<Violation> sortOrder, int topNumber) {
+        List<Violation> partialAggregates = this.shards.parallelStream()
+                .map(aggregation)
+                .flatMap(List::stream)
+                .sorted(sortOrder)
+                .collect(Collectors.toList());
+
+        return TrafficTracker.aggregateAdjacentViolations(partialAggregates, sortOrder).subList(0, topNumber);
+    }
+
+    public List<TrafficTracker> getShards() {
+        return Collections.unmodifiableList(this.shards);
+    }
+}
@@ -4,20 +4,35 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.function.Function;
 
 public class TrafficTracker {
     private final String TRAFFIC_FILE_EXTENSION = ".txt";
     private final String TRAFFIC_FILE_PATTERN = ".+\\" + TRAFFIC_FILE_EXTENSION;
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
 
     private OrderedList<Car> cars;                  // the reference list of all known Cars registered by the RDW
     private OrderedList<Violation> violations;      // the accumulation of all offences by car and by city
+    private SecondaryIndex<Violation> violationsByCar;  // this.violations, kept ordered by car
+    private SecondaryIndex<Violation> violationsByCity; // this.violations, kept ordered by city
+    private ZoneRuleSet zoneRules = ZoneRuleSet.PURPLE; // the environmental zone rules that are enforced
+    private ViolationTimeline timeline;             // the offences over time, or null if not tracked
+    private DetectionDeduplicator deduplicator;     // skips repeated detections within a time window, or null
+    private ImportMetrics importMetrics = ImportMetrics.NONE;   // receives measurements of detection imports
+    private ParseErrorHandler parseErrorHandler = ParseErrorHandler.PRINT;  // receives the lines that cannot be parsed
+    private final CityDictionary cities = new CityDictionary();    // the shared names of all cities with detections
+    private UnregisteredCarCache unregisteredCars;  // the detected cars that are not in this.cars, or null if these are added to this.cars
 
     public TrafficTracker() {
         try {
             cars = new OrderedArrayList<Car>(Car::compareByLicensePlate);
             violations = new OrderedArrayList<Violation>(Violation::compareByLicensePlateAndCity);
+            violationsByCar = violations.addSecondaryIndex(Comparator.comparing(Violation::getCar));
+            violationsByCity = violations.addSecondaryIndex(Comparator.comparing(Violation::getCity));
         }catch (NullPointerException e) {
             System.err.println(e);
         }
@@ -30,35 +45,126 @@ public class TrafficTracker {
     public void importCarsFromVault(String resourceName) {
         if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
 
+        this.importCars(createFileFromURL(TrafficTracker.class.getResource(resourceName)), resourceName);
+    }
+
+    /**
+     * imports all registered cars from a file outside of the resources, e.g. of a generated vault
+     * @param carsFile
+     */
+    public void importCarsFromFile(File carsFile) {
+        if (carsFile == null) throw new IllegalArgumentException("carsFile cannot be null");
+
+        this.importCars(carsFile, carsFile.getPath());
+    }
+
+    /**
+     * replaces the known cars by the given cars, which have been imported already, e.g. by another tracker
+     * @param cars
+     */
+    void copyCars(Collection<Car> cars) {
+        this.cars.clear();
+        this.cars.addAll(cars);
+        this.cars.sort();
+    }
+
+    private void importCars(File carsFile, String source) {
         this.cars.clear();
 
         // load all cars from the text file
-        int numberOfLines = importItemsFromFile(this.cars,
-                createFileFromURL(TrafficTracker.class.getResource(resourceName)),
-                Car::fromLine);
+        int numberOfLines = importItemsFromFile(this.cars, carsFile,
+                line -> Car.fromLine(line, this.parseErrorHandler));
 
         // sort the cars for efficient later retrieval
         this.cars.sort();
 
-        System.out.printf("Imported %d cars from %d lines in %s.\n", this.cars.size(), numberOfLines, resourceName);
+        System.out.printf("Imported %d cars from %d lines in %s.\n", this.cars.size(), numberOfLines, source);
+    }
+
+    /**
+     * imports all registered cars from a resource file that has been provided by the RDW,
+     * parsing and sorting the cars on all available cores
+     * this is the quicker alternative to importCarsFromVault for loading the full national registry
+     * @param resourceName
+     */
+    public void importCarsFromVaultInParallel(String resourceName) {
+        if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
+
+        this.cars.clear();
+
+        long started = System.nanoTime();
+        int numberOfLines = ParallelCarsLoader.importCarsFromFile(
+                createFileFromURL(TrafficTracker.class.getResource(resourceName)),
+                this.cars, this.parseErrorHandler);
+
+        // the cars have been loaded in sorted order already, this only registers the sort order
+        this.cars.sort();
+        double seconds = (System.nanoTime() - started) / 1E9;
+
+        System.out.printf("Imported %d cars from %d lines in %s in %.1f ms (%.0f cars/sec).\n",
+                this.cars.size(), numberOfLines, resourceName, seconds * 1E3, this.cars.size() / seconds);
+    }
+
+    /**
+     * imports the environmental zone rules to be enforced from a resource file
+     * replaces the default purple rules for all subsequent detection imports
+     * @param resourceName
+     */
+    public void importZoneRulesFromVault(String resourceName) {
+        if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
+
+        List<ZoneRule> rules = new ArrayList<>();
+        int numberOfLines = importItemsFromFile(rules,
+                createFileFromURL(TrafficTracker.class.getResource(resourceName)),
+                line -> ZoneRule.fromLine(line, this.parseErrorHandler));
+
+        this.zoneRules = new ZoneRuleSet(rules);
+
+        System.out.printf("Imported %d zone rules from %d lines in %s.\n", rules.size(), numberOfLines, resourceName);
     }
 
     /**
      * imports and merges all raw detection data of all entry gates of all cities from the hierarchical file structure of the vault
-     * accumulates any offences against purple rules into this.violations
+     * accumulates any offences against the zone rules into this.violations
      * @param resourceName
      */
     public void importDetectionsFromVault(String resourceName) {
         if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
 
+        this.importDetections(createFileFromURL(TrafficTracker.class.getResource(resourceName)), resourceName);
+    }
+
+    /**
+     * imports and merges all raw detection data from a folder outside of the resources, e.g. of a generated vault
+     * @param detectionsFolder
+     */
+    public void importDetectionsFromFolder(File detectionsFolder) {
+        if (detectionsFolder == null) throw new IllegalArgumentException("detectionsFolder cannot be null");
+
+        this.importDetections(detectionsFolder, detectionsFolder.getPath());
+    }
+
+    private void importDetections(File detectionsFolder, String source) {
+        this.importDetectionsFromFolders(List.of(detectionsFolder), source);
+    }
+
+    /**
+     * imports and merges the raw detection data of a selection of folders of a vault, e.g. of the cities of a shard
+     * @param detectionsFolders
+     * @param source    describes the selection in the progress line
+     */
+    void importDetectionsFromFolders(List<File> detectionsFolders, String source) {
         this.violations.clear();
+        if (this.timeline != null) this.timeline.clear();
+        if (this.deduplicator != null) this.deduplicator.clear();
 
-        int totalNumberOfOffences =
-            this.mergeDetectionsFromVaultRecursively(
-                    createFileFromURL(TrafficTracker.class.getResource(resourceName)));
+        int totalNumberOfOffences = 0;
+        for (File detectionsFolder : detectionsFolders) {
+            totalNumberOfOffences += this.mergeDetectionsFromVaultRecursively(detectionsFolder);
+        }
 
         System.out.printf("Found %d offences among detections imported from files in %s.\n",
-                totalNumberOfOffences, resourceName);
+                totalNumberOfOffences, source);
     }
 
     /**
@@ -97,46 +203,386 @@ public class TrafficTracker {
     private int mergeDetectionsFromFile(File file) {
 
         // re-sort the accumulated violations for efficient searching and merging
+        long startTime = System.nanoTime();
         this.violations.sort();
+        this.importMetrics.violationsSorted(this.violations.size(), System.nanoTime() - startTime);
 
         // use a regular ArrayList to load the raw detection info from the file
         List<Detection> newDetections = new ArrayList<>();
 
-        importItemsFromFile(newDetections, file, line -> Detection.fromLine(line, this.cars));
+        startTime = System.nanoTime();
+        int numberOfCars = this.cars.size();
+        int numberOfLines = importItemsFromFile(newDetections, file,
+                line -> Detection.fromLine(line, this.cars, this.unregisteredCars, this.cities, this.parseErrorHandler));
+        this.importMetrics.fileParsed(file.getPath(), numberOfLines, newDetections.size(), System.nanoTime() - startTime);
+        this.importMetrics.unknownCarsAdded(this.cars.size() - numberOfCars);
 
         System.out.printf("Imported %d detections from %s.\n", newDetections.size(), file.getPath());
 
-        int totalNumberOfOffences = 0; // tracks the number of offences that emerges from the data in this file
+        int[] totalNumberOfOffences = { 0 }; // tracks the number of offences that emerges from the data in this file
 
+        startTime = System.nanoTime();
         for (Detection detection: newDetections) {
-            Violation violation = detection.validatePurple();
+            Car car = detection.getCar();
+            String city = detection.getCity();
+            if (this.deduplicator != null) {
+                // a late detection may also retract the offence of the sighting that it joins or precedes
+                this.deduplicator.register(detection, (dateTime, change) ->
+                        totalNumberOfOffences[0] += this.countOffence(car, city, dateTime, change));
+            } else {
+                totalNumberOfOffences[0] += this.countOffence(car, city, detection.getDateTime(), 1);
+            }
+        }
+        this.importMetrics.offencesMerged(totalNumberOfOffences[0], System.nanoTime() - startTime);
+
+        return totalNumberOfOffences[0];
+    }
+
+    /**
+     * counts the offence of a car entering the city at the dateTime into this.violations and the timeline,
+     * or retracts it again, if the entry violates any of the zone rules
+     * @param change    1 to count the offence, -1 to retract an offence that has been counted before
+     * @return          the change in the number of offences
+     */
+    private int countOffence(Car car, String city, LocalDateTime dateTime, int change) {
+        ZoneRule violatedRule = this.zoneRules.findViolatedRule(car, city, dateTime.toLocalDate());
+        if (violatedRule == null) return 0;
+
+        Violation violation = new Violation(car, city, change * violatedRule.getFine());
+        violation.setOffencesCount(change);
+        this.violations.merge(violation, Violation::combineOffencesCounts);
+        if (change < 0) {
+            // a violation of which all offences have been retracted has not occurred at all
+            Violation remaining = this.violations.find(violation);
+            if (remaining != null && remaining.getOffencesCount() == 0) this.violations.remove(remaining);
+        }
+        if (this.timeline != null) {
+            this.timeline.record(car, city, dateTime, change);
+        }
+        return change;
+    }
+
+    /**
+     * imports and merges all raw detection data of the vault like importDetectionsFromVault,
+     * but processes the detection files on all available cores
+     * the offences of all files are merged into a concurrent list of violations, which is then copied into this.violations
+     * a timeline or deduplication requires the detections to be processed in sequence,
+     * so if any of these is enabled the import falls back to importDetectionsFromVault
+     * @param resourceName
+     */
+    public void importDetectionsFromVaultInParallel(String resourceName) {
+        if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
+        if (this.timeline != null || this.deduplicator != null) {
+            this.importDetectionsFromVault(resourceName);
+            return;
+        }
+
+        List<File> detectionFiles = new ArrayList<>();
+        this.findDetectionFilesRecursively(createFileFromURL(TrafficTracker.class.getResource(resourceName)), detectionFiles);
+
+        // all import threads look up the known cars by key in a concurrent list, collect the unknown cars in a cache,
+        // and merge their offences into a concurrent list of violations at the same time
+        ConcurrentOrderedList<Car> sharedCars = new ConcurrentOrderedList<>(Car::compareByLicensePlate);
+        sharedCars.addAll(this.cars);
+        UnregisteredCarCache newCars = this.unregisteredCars != null
+                ? this.unregisteredCars : new UnregisteredCarCache(Integer.MAX_VALUE);
+        ConcurrentOrderedList<Violation> sharedViolations =
+                new ConcurrentOrderedList<>(Violation::compareByLicensePlateAndCity);
+
+        int totalNumberOfOffences = detectionFiles.parallelStream()
+                .mapToInt(file -> this.mergeDetectionsFromFile(file, sharedCars, newCars, sharedViolations))
+                .sum();
+
+        // register the unknown cars that have been found in the detections, unless these are kept in the cache
+        if (this.unregisteredCars == null) {
+            List<Car> unknownCars = newCars.getCars();
+            unknownCars.sort(Car::compareByLicensePlate);
+            this.cars.addAll(unknownCars);
+            this.importMetrics.unknownCarsAdded(unknownCars.size());
+        } else {
+            this.importMetrics.unknownCarsAdded(0);
+        }
+        this.violations.clear();
+        this.violations.addAll(sharedViolations);
+        long startTime = System.nanoTime();
+        this.violations.sort();
+        this.importMetrics.violationsSorted(this.violations.size(), System.nanoTime() - startTime);
+
+        System.out.printf("Found %d offences among detections imported in parallel from %d files in %s.\n",
+                totalNumberOfOffences, detectionFiles.size(), resourceName);
+    }
+
+    private int mergeDetectionsFromFile(File file, List<Car> sharedCars, UnregisteredCarCache newCars,
+                                        OrderedList<Violation> sharedViolations) {
+        List<Detection> newDetections = new ArrayList<>();
+        long startTime = System.nanoTime();
+        int numberOfLines = importItemsFromFile(newDetections, file,
+                line -> Detection.fromLine(line, sharedCars, newCars, this.cities, this.parseErrorHandler));
+        this.importMetrics.fileParsed(file.getPath(), numberOfLines, newDetections.size(), System.nanoTime() - startTime);
+
+        int totalNumberOfOffences = 0;
+        startTime = System.nanoTime();
+        for (Detection detection : newDetections) {
+            Violation violation = detection.validate(this.zoneRules);
             if (violation != null) {
                 totalNumberOfOffences++;
-                this.violations.merge(violation, Violation::combineOffencesCounts);
+                sharedViolations.merge(violation, Violation::combineOffencesCounts);
             }
         }
-
+        this.importMetrics.offencesMerged(totalNumberOfOffences, System.nanoTime() - startTime);
         return totalNumberOfOffences;
     }
 
+    /**
+     * restores the violations from a persistent store, and processes only the detection files of the vault
+     * that have not been stored yet, appending their offences to the store
+     * the store holds aggregated violations only, so any timeline or deduplication is not applied
+     * @param resourceName  the vault folder with the raw detection files
+     * @param store         the violations of earlier runs
+     * @return              the number of detection files that have been processed in this run
+     */
+    public int importNewDetectionsFromVault(String resourceName, ViolationStore store) {
+        if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
+        if (store == null) throw new IllegalArgumentException("store cannot be null");
+
+        this.violations.clear();
+        store.loadInto(this.cars, this.unregisteredCars, this.cities, this.violations);
+
+        File vaultFolder = createFileFromURL(TrafficTracker.class.getResource(resourceName));
+        List<File> detectionFiles = new ArrayList<>();
+        this.findDetectionFilesRecursively(vaultFolder, detectionFiles);
+
+        int numberOfNewFiles = 0;
+        for (File file : detectionFiles) {
+            // files are identified by their path within the vault, with forward slashes on all platforms
+            String fileName = vaultFolder.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
+            if (store.isProcessed(fileName)) continue;
+
+            List<Detection> detections = new ArrayList<>();
+            long startTime = System.nanoTime();
+            int numberOfLines = importItemsFromFile(detections, file,
+                    line -> Detection.fromLine(line, this.cars, this.unregisteredCars, this.cities, this.parseErrorHandler));
+            this.importMetrics.fileParsed(file.getPath(), numberOfLines, detections.size(), System.nanoTime() - startTime);
+
+            OrderedList<Violation> offences = new OrderedArrayList<>(Violation::compareByLicensePlateAndCity);
+            for (Detection detection : detections) {
+                Violation violation = detection.validate(this.zoneRules);
+                if (violation != null) {
+                    offences.merge(violation, Violation::combineOffencesCounts);
+                }
+            }
+            store.append(fileName, offences);
+
+            this.violations.sort();
+            for (Violation offence : offences) {
+                this.violations.merge(offence, Violation::combineOffencesCounts);
+            }
+            numberOfNewFiles++;
+        }
+        this.violations.sort();
+
+        System.out.printf("Processed %d new of %d detection files in %s, the store holds %d violations.\n",
+                numberOfNewFiles, detectionFiles.size(), resourceName, store.getNumberOfViolations());
+        return numberOfNewFiles;
+    }
+
+    /**
+     * converts all raw detection files of the vault into a compact binary archive for fast replay
+     * the archive refers to registered cars by their position in this.cars,
+     * so it shall be replayed by a tracker that has imported the same cars
+     * @param resourceName  the vault folder with the raw detection files
+     * @param archiveFile   the archive file to be (over)written
+     * @return              the number of detections that have been archived
+     */
+    public long convertDetectionsToArchive(String resourceName, File archiveFile) {
+        if (resourceName == null) throw new IllegalArgumentException("resourceName cannot be null");
+
+        this.cars.sort();
+        List<File> detectionFiles = new ArrayList<>();
+        this.findDetectionFilesRecursively(createFileFromURL(TrafficTracker.class.getResource(resourceName)), detectionFiles);
+
+        long numberOfRecords;
+        try (DetectionArchive.Writer writer = new DetectionArchive.Writer(archiveFile, this.cars)) {
+            for (File file : detectionFiles) {
+                List<Detection> detections = new ArrayList<>();
+                importItemsFromFile(detections, file,
+                        line -> Detection.fromLine(line, this.cars, this.unregisteredCars, this.cities, this.parseErrorHandler));
+                for (Detection detection : detections) {
+                    writer.write(detection);
+                }
+            }
+            numberOfRecords = writer.getNumberOfRecords();
+        }
+
+        System.out.printf("Archived %d detections from %d files in %s into %s.\n",
+                numberOfRecords, detectionFiles.size(), resourceName, archiveFile.getPath());
+        return numberOfRecords;
+    }
+
+    private void findDetectionFilesRecursively(File file, List<File> detectionFiles) {
+        if (file.isDirectory()) {
+            for (File f : Objects.requireNonNullElse(file.listFiles(), new File[0])) {
+                this.findDetectionFilesRecursively(f, detectionFiles);
+            }
+        } else if (file.getName().matches(TRAFFIC_FILE_PATTERN)) {
+            detectionFiles.add(file);
+        }
+    }
+
+    /**
+     * imports all detections from a binary archive, as an alternative to importDetectionsFromVault
+     * accumulates any offences against the zone rules into this.violations
+     * the records are replayed without instantiating a Detection or Violation per record
+     * @param archiveFile   an archive that was written with the same cars as have been imported into this tracker,
+     *                      which may have been extended with the unregistered cars of the archive by an earlier replay
+     * @return              the number of offences found
+     */
+    public int importDetectionsFromArchive(File archiveFile) {
+        if (archiveFile == null) throw new IllegalArgumentException("archiveFile cannot be null");
+
+        long startTime = System.nanoTime();
+        DetectionArchive archive = DetectionArchive.open(archiveFile);
+        this.cars.sort();
+
+        // the cars may include the unregistered cars of the archive already, from an earlier replay or conversion
+        String[] unregisteredPlates = archive.getUnregisteredPlates();
+        Set<String> unregisteredPlatesSet = new HashSet<>(Arrays.asList(unregisteredPlates));
+        List<Car> registry = new ArrayList<>(this.cars.size());
+        for (Car car : this.cars) {
+            if (!unregisteredPlatesSet.contains(car.getLicensePlate())) registry.add(car);
+        }
+        if (!archive.matchesRegistry(registry)) {
+            throw new IllegalStateException("The cars of this tracker do not match the registry of archive " + archiveFile.getPath());
+        }
+        this.violations.clear();
+        if (this.timeline != null) this.timeline.clear();
+        if (this.deduplicator != null) this.deduplicator.clear();
+
+        // resolve all plate ids and city ids up front
+        Car[] carsByPlateId = new Car[archive.getRegistrySize() + unregisteredPlates.length];
+        for (int i = 0; i < archive.getRegistrySize(); i++) {
+            carsByPlateId[i] = registry.get(i);
+        }
+        for (int i = 0; i < unregisteredPlates.length; i++) {
+            Car car;
+            if (this.unregisteredCars != null) {
+                car = this.unregisteredCars.carOf(unregisteredPlates[i]);
+            } else {
+                // reuse the car instance of an earlier replay, if any
+                car = new Car(unregisteredPlates[i]);
+                int index = this.cars.indexOf(car);
+                if (index >= 0) {
+                    car = this.cars.get(index);
+                } else {
+                    this.cars.add(car);
+                }
+            }
+            carsByPlateId[archive.getRegistrySize() + i] = car;
+        }
+        boolean[] mayOffendByPlateId = new boolean[carsByPlateId.length];
+        for (int i = 0; i < carsByPlateId.length; i++) {
+            mayOffendByPlateId[i] = this.zoneRules.mayBeViolatedBy(carsByPlateId[i]);
+        }
+        String[] cities = archive.getCities();
+        for (int c = 0; c < cities.length; c++) {
+            cities[c] = this.cities.canonical(cities[c]);
+        }
+        List<ZoneRule> rules = this.zoneRules.getRules();
+        Map<ZoneRule, Integer> ruleIndices = new IdentityHashMap<>();
+        for (ZoneRule rule : rules) {
+            ruleIndices.put(rule, ruleIndices.size());
+        }
+
+        // count the offences by car and by (city, rule) combination, such that fines can be calculated afterwards
+        ViolationTable offences = new OffHeapViolationTable();
+        archive.replay((plateId, cityId, epochSecond) -> {
+            if (!mayOffendByPlateId[plateId]) return;
+
+            Car car = carsByPlateId[plateId];
+            if (this.deduplicator == null && this.timeline == null) {
+                // counting the offences only takes the day of the detection, no date and time objects
+                ZoneRule rule = this.zoneRules.findViolatedRule(car, cities[cityId], Math.floorDiv(epochSecond, SECONDS_PER_DAY));
+                if (rule != null) offences.addOffences(plateId, cityId * rules.size() + ruleIndices.get(rule), 1);
+                return;
+            }
+
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+            DetectionDeduplicator.SightingCounter counter = (firstDateTime, change) -> {
+                ZoneRule rule = this.zoneRules.findViolatedRule(car, cities[cityId], firstDateTime.toLocalDate());
+                if (rule == null) return;
+                if (this.timeline != null) this.timeline.record(car, cities[cityId], firstDateTime, change);
+                offences.addOffences(plateId, cityId * rules.size() + ruleIndices.get(rule), change);
+            };
+            if (this.deduplicator != null) {
+                // every detection is registered, also those that are no offence, as these may start a sighting
+                this.deduplicator.register(new Detection(car, cities[cityId], dateTime), counter);
+            } else {
+                counter.count(dateTime, 1);
+            }
+        });
+
+        // aggregate the offences into violations by car and city
+        List<Violation> newViolations = new ArrayList<>(offences.size());
+        offences.forEach((plateId, cityAndRule, offencesCount) -> {
+            // all offences of an entry may have been retracted by the deduplication
+            if (offencesCount == 0) return;
+            ZoneRule rule = rules.get(cityAndRule % rules.size());
+            Violation violation = new Violation(carsByPlateId[plateId], cities[cityAndRule / rules.size()],
+                    rule.getFine() * offencesCount);
+            violation.setOffencesCount(offencesCount);
+            newViolations.add(violation);
+        });
+        newViolations.sort(Violation::compareByLicensePlateAndCity);
+        for (Violation violation : newViolations) {
+            int last = this.violations.size() - 1;
+            if (last >= 0 && Violation.compareByLicensePlateAndCity(this.violations.get(last), violation) == 0) {
+                this.violations.set(last, this.violations.get(last).combineOffencesCounts(violation));
+            } else {
+                this.violations.add(violation);
+            }
+        }
+        this.violations.sort();
+
+        System.out.printf("Replayed %d detections from %s in %.1f ms, found %d offences.\n",
+                archive.getNumberOfRecords(), archiveFile.getPath(), (System.nanoTime() - startTime) / 1E6,
+                offences.totalOffences());
+        return (int) offences.totalOffences();
+    }
+
+    /**
+     * writes all violations into a CSV file, in the order of this.violations
+     * @param csvFile   the file to be (over)written
+     * @return          the number of exported violations
+     */
+    public long exportViolationsToCsv(File csvFile) {
+        long startTime = System.nanoTime();
+        long numberOfRows = ViolationExport.exportToCsv(this.violations, csvFile);
+        System.out.printf("Exported %d violations to %s in %.1f ms.\n",
+                numberOfRows, csvFile.getPath(), (System.nanoTime() - startTime) / 1E6);
+        return numberOfRows;
+    }
+
+    /**
+     * writes all violations into a compact columnar file, in the order of this.violations
+     * @param columnarFile  the file to be (over)written
+     * @return              the number of exported violations
+     */
+    public long exportViolationsToColumnar(File columnarFile) {
+        long startTime = System.nanoTime();
+        long numberOfRows = ViolationExport.exportToColumnar(this.violations, columnarFile);
+        System.out.printf("Exported %d violations to %s in %.1f ms.\n",
+                numberOfRows, columnarFile.getPath(), (System.nanoTime() - startTime) / 1E6);
+        return numberOfRows;
+    }
+
     /**
      * calculates the total revenue of fines from all violations,
-     * Trucks pay €25 per offence, Coaches €35 per offence
+     * every offence is fined by the amount of the zone rule that it violated
+     * (with the default purple rules, Trucks pay €25 per offence, Coaches €35 per offence)
      * @return      the total amount of money recovered from all violations
      */
     public double calculateTotalFines() {
-        return this.violations.aggregate(
-
-                violation -> {
-                    double fine = 0;
-                    if (violation.getCar().getCarType() == Car.CarType.Truck) {
-                        fine = 25;
-                    } else if (violation.getCar().getCarType() == Car.CarType.Coach) {
-                        fine = 35;
-                    }
-                    return fine * violation.getOffencesCount();
-                }
-        );
+        return this.violations.aggregate(Violation::getFines);
     }
 
     /**
@@ -146,8 +592,7 @@ public class TrafficTracker {
      * @return              a list of topNum items that provides the top aggregated violations
      */
     public List<Violation> topViolationsByCar(int topNumber) {
-        Comparator<Violation> comparatorByCar = Comparator.comparing(Violation::getCar);
-        return getTopViolations(violations,comparatorByCar, topNumber);
+        return getTopViolations(violationsByCar, topNumber);
     }
 
     /**
@@ -157,30 +602,112 @@ public class TrafficTracker {
      * @return              a list of topNum items that provides the top aggregated violations
      */
     public List<Violation> topViolationsByCity(int topNumber) {
-        Comparator<Violation> comparatorByCity = Comparator.comparing(Violation::getCity);
-        return getTopViolations(violations, comparatorByCity, topNumber);
+        return getTopViolations(violationsByCity, topNumber);
+    }
+
+    /**
+     * finds all registered and detected cars with a license plate that starts with the prefix
+     * @param prefix    e.g. "VZ-"
+     * @return          a view on the matching cars in this.cars, ordered by license plate
+     */
+    public List<Car> findCarsByLicensePlatePrefix(String prefix) {
+        if (prefix == null) throw new IllegalArgumentException("prefix cannot be null");
+        this.cars.sort();
+        return this.cars.prefixRange(Car::getLicensePlate, prefix);
+    }
+
+    /**
+     * finds all violations of cars with a license plate that starts with the prefix
+     * @param prefix    e.g. "VZ-"
+     * @return          a view on the matching violations in this.violations, ordered by license plate and city
+     */
+    public List<Violation> findViolationsByLicensePlatePrefix(String prefix) {
+        if (prefix == null) throw new IllegalArgumentException("prefix cannot be null");
+        this.violations.sort();
+        return this.violations.prefixRange(violation -> violation.getCar().getLicensePlate(), prefix);
+    }
+
+    /**
+     * finds all violations in a range of city names, e.g. from "A" until "I" for all cities starting with A to H
+     * @param fromCity  the lower bound of the city names (inclusive)
+     * @param toCity    the upper bound of the city names (exclusive)
+     * @return          a view on the matching violations, ordered by city
+     */
+    public List<Violation> findViolationsByCityRange(String fromCity, String toCity) {
+        if (fromCity == null || toCity == null) throw new IllegalArgumentException("city bounds cannot be null");
+        return this.violationsByCity.range(new Violation(null, fromCity), new Violation(null, toCity));
     }
 
     /**
      * Helper method for returning a list of violations that meet certain given criteria.
-     * @param violations all the violations
-     * @param comparator what the compare criteria is, e.g. city or car
+     * @param index all the violations, ordered by the criteria, e.g. by city or by car
      * @param topNumber the limit of which number you want.
      * @return
      */
 
-    private List<Violation> getTopViolations(List<Violation> violations, Comparator<Violation> comparator, int topNumber) {
+    private List<Violation> getTopViolations(SecondaryIndex<Violation> index, int topNumber) {
+        return aggregateAdjacentViolations(index, index.getSortOrder()).subList(0, topNumber);
+    }
+
+    /**
+     * aggregates the violations by car like topViolationsByCar, without limiting the number of results
+     * @return  all aggregated violations, in the order of topViolationsByCar
+     */
+    List<Violation> aggregateViolationsByCar() {
+        return aggregateAdjacentViolations(this.violationsByCar, this.violationsByCar.getSortOrder());
+    }
+
+    /**
+     * aggregates the violations by city like topViolationsByCity, without limiting the number of results
+     * @return  all aggregated violations, in the order of topViolationsByCity
+     */
+    List<Violation> aggregateViolationsByCity() {
+        return aggregateAdjacentViolations(this.violationsByCity, this.violationsByCity.getSortOrder());
+    }
 
-        OrderedArrayList<Violation> orderedViolations = new OrderedArrayList<>(comparator);
-        for (Violation violation : violations) {
-            orderedViolations.merge(violation, Violation::combineOffencesCounts);
+    /**
+     * combines the violations that are adjacent in the given order and compare equal by that order
+     * @param orderedViolations violations that are ordered by the sortOrder
+     * @param sortOrder         the aggregation criterion, e.g. by city or by car
+     * @return                  the aggregated violations, ordered by the reversed sortOrder
+     */
+    static List<Violation> aggregateAdjacentViolations(List<Violation> orderedViolations,
+                                                       Comparator<? super Violation> sortOrder) {
+        OrderedArrayList<Violation> aggregatedViolations = new OrderedArrayList<>(sortOrder);
+        Violation aggregated = null;
+        for (Violation violation : orderedViolations) {
+            if (aggregated != null && sortOrder.compare(aggregated, violation) == 0) {
+                aggregated = aggregated.combineOffencesCounts(violation);
+            } else {
+                if (aggregated != null) aggregatedViolations.add(aggregated);
+                aggregated = violation;
+            }
         }
+        if (aggregated != null) aggregatedViolations.add(aggregated);
 
-        orderedViolations.sort(comparator.reversed());
-        return orderedViolations.subList(0, topNumber);
+        aggregatedViolations.sort(sortOrder.reversed());
+        return aggregatedViolations;
     }
 
 
+    /**
+     * starts tracking violations from a live feed of detections,
+     * continuing from the violations that have been imported so far
+     * unknown cars in the live feed are kept by the live tracker, or by the cache of unregistered cars if enabled,
+     * so this.cars is not changed while the live tracker runs
+     * @return      a live tracker that accepts detections one at a time or in micro-batches
+     */
+    public LiveViolationTracker startLiveTracking() {
+        LiveViolationTracker liveTracker = new LiveViolationTracker(this.cars, this.zoneRules,
+                this.unregisteredCars != null ? this.unregisteredCars
+                        : new UnregisteredCarCache(LiveViolationTracker.DEFAULT_MAX_UNREGISTERED_CARS),
+                this.cities);
+        for (Violation violation : this.violations) {
+            liveTracker.acceptViolation(violation);
+        }
+        return liveTracker;
+    }
+
     /**
      * imports a collection of items from a text file which provides one line for each item
      * @param items         the list to which imported items shall be added
@@ -222,7 +749,7 @@ public class TrafficTracker {
             throw new RuntimeException("FileNotFound exception on path: " + file.getPath());
         }
     }
-    private static File createFileFromURL(URL url) {
+    static File createFileFromURL(URL url) {
         try {
             return new File(url.toURI().getPath());
         } catch (URISyntaxException e) {
@@ -237,4 +764,103 @@ public class TrafficTracker {
     public OrderedList<Violation> getViolations() {
         return this.violations;
     }
+
+    public ZoneRuleSet getZoneRules() {
+        return this.zoneRules;
+    }
+
+    public void setZoneRules(ZoneRuleSet zoneRules) {
+        if (zoneRules == null) throw new IllegalArgumentException("zoneRules cannot be null");
+        this.zoneRules = zoneRules;
+    }
+
+    /**
+     * starts tracking the offences of subsequent detection imports over time
+     * @param bucketWidth   the width of the time buckets by city, e.g. one hour
+     */
+    public void trackTimeline(Duration bucketWidth) {
+        this.timeline = new ViolationTimeline(bucketWidth);
+    }
+
+    /**
+     * skips repeated detections of the same car in the same city within the window in subsequent detection imports
+     * the sightings are forgotten once they have ended more than the window behind the newest detection,
+     * so detections that arrive out of time order may be counted again, see setDeduplicationWindow(window, maxLateness)
+     * @param window    the time window for deduplication, or null to count every detection
+     */
+    public void setDeduplicationWindow(Duration window) {
+        this.setDeduplicationWindow(window, Duration.ZERO);
+    }
+
+    /**
+     * skips repeated detections of the same car in the same city within the window in subsequent detection imports
+     * the outcome equals the outcome of processing the detections in time order, as long as no detection arrives
+     * more than maxLateness behind the newest detection so far, e.g. the period of a vault with unordered files
+     * @param window        the time window for deduplication, or null to count every detection
+     * @param maxLateness   how long the sightings are remembered beyond the window
+     */
+    public void setDeduplicationWindow(Duration window, Duration maxLateness) {
+        this.deduplicator = window == null ? null
+                : new DetectionDeduplicator(window, maxLateness, DetectionDeduplicator.DEFAULT_MAX_TRACKED_KEYS);
+    }
+
+    /**
+     * @return  the deduplication stage of detection imports, or null if detections are not deduplicated
+     */
+    public DetectionDeduplicator getDeduplicator() {
+        return this.deduplicator;
+    }
+
+    public ImportMetrics getImportMetrics() {
+        return this.importMetrics;
+    }
+
+    /**
+     * @param importMetrics receives the measurements of subsequent detection imports, or null to stop measuring
+     */
+    public void setImportMetrics(ImportMetrics importMetrics) {
+        this.importMetrics = importMetrics == null ? ImportMetrics.NONE : importMetrics;
+    }
+
+    /**
+     * @return  the cache of unregistered cars, or null if unregistered cars are added to the list of cars
+     */
+    public UnregisteredCarCache getUnregisteredCars() {
+        return this.unregisteredCars;
+    }
+
+    /**
+     * keeps the cars that are detected but not registered in a bounded cache of the given size,
+     * instead of adding them to the sorted list of registered cars
+     * @param maxSize   the maximum number of cached cars, or 0 to add unregistered cars to the list of cars again
+     */
+    public void cacheUnregisteredCars(int maxSize) {
+        this.unregisteredCars = maxSize > 0 ? new UnregisteredCarCache(maxSize) : null;
+    }
+
+    /**
+     * @return  the dictionary that provides the shared name of every city with detections
+     */
+    public CityDictionary getCities() {
+        return this.cities;
+    }
+
+    public ParseErrorHandler getParseErrorHandler() {
+        return this.parseErrorHandler;
+    }
+
+    /**
+     * @param parseErrorHandler receives the lines of subsequent imports that cannot be parsed,
+     *                          e.g. a ParseReport; null restores printing them on the console
+     */
+    public void setParseErrorHandler(ParseErrorHandler parseErrorHandler) {
+        this.parseErrorHandler = parseErrorHandler == null ? ParseErrorHandler.PRINT : parseErrorHandler;
+    }
+
+    /**
+     * @return  the offences over time, or null if the timeline is not tracked
+     */
+    public ViolationTimeline getTimeline() {
+        return this.timeline;
+    }
 }
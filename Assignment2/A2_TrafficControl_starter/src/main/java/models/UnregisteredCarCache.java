@@ -0,0 +1,101 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of the cars that are not registered by the RDW, e.g. foreign cars, keyed by license plate.
+ * Keeping these cars apart from the sorted registry avoids that the registry grows an unsorted tail,
+ * which would have to be searched linearly by every later lookup.
+ * When the cache is full, the least recently detected car is evicted. A later detection of an evicted plate
+ * gets a new Car instance, which is equal to the evicted one, so violations still aggregate correctly.
+ * The cache is thread-safe, so it can serve parallel imports.
+ */
+public class UnregisteredCarCache {
+    private final int maxSize;
+    private final LinkedHashMap<String, Car> carsByPlate;   // in order of access, least recently used first
+    private long numberOfHits;
+    private long numberOfMisses;
+    private long numberOfEvictions;
+
+    /**
+     * @param maxSize   the maximum number of unregistered cars that is retained
+     */
+    public UnregisteredCarCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("maxSize must be positive");
+        this.maxSize = maxSize;
+        this.carsByPlate = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Car> eldest) {
+                if (this.size() > UnregisteredCarCache.this.maxSize) {
+                    UnregisteredCarCache.this.numberOfEvictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * finds the unregistered car with the given license plate, creating and caching a new car if it is not cached
+     * @param licensePlate
+     * @return  the car
+     */
+    public synchronized Car carOf(String licensePlate) {
+        Car car = this.carsByPlate.get(licensePlate);
+        if (car != null) {
+            this.numberOfHits++;
+        } else {
+            this.numberOfMisses++;
+            car = new Car(licensePlate);
+            this.carsByPlate.put(licensePlate, car);
+        }
+        return car;
+    }
+
+    /**
+     * @return  the cached car with the given license plate, or null
+     */
+    public synchronized Car get(String licensePlate) {
+        return this.carsByPlate.get(licensePlate);
+    }
+
+    public synchronized int size() {
+        return this.carsByPlate.size();
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * @return  the cached cars, least recently detected first
+     */
+    public synchronized List<Car> getCars() {
+        return new ArrayList<>(this.carsByPlate.values());
+    }
+
+    public synchronized long getNumberOfHits() {
+        return this.numberOfHits;
+    }
+
+    public synchronized long getNumberOfMisses() {
+        return this.numberOfMisses;
+    }
+
+    public synchronized long getNumberOfEvictions() {
+        return this.numberOfEvictions;
+    }
+
+    public synchronized void clear() {
+        this.carsByPlate.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d of max %d unregistered cars cached, %d hits, %d misses, %d evictions",
+                this.carsByPlate.size(), this.maxSize, this.numberOfHits, this.numberOfMisses, this.numberOfEvictions);
+    }
+}
@@ -6,11 +6,17 @@ public class Violation {
     private final Car car;
     private final String city;
     private int offencesCount;
+    private double fines;           // the accumulated amount of fines of all offences
 
     public Violation(Car car, String city) {
+        this(car, city, 0.0);
+    }
+
+    public Violation(Car car, String city, double fine) {
         this.car = car;
         this.city = city;
         this.offencesCount = 1;
+        this.fines = fine;
     }
 
     public static int compareByLicensePlateAndCity(Violation v1, Violation v2) {
@@ -35,12 +41,12 @@ public class Violation {
 
 
     /**
-     * Aggregates this violation with the other violation by adding their counts and
+     * Aggregates this violation with the other violation by adding their counts and fines and
      * nullifying identifying attributes car and/or city that do not match
      * identifying attributes that match are retained in the result.
      * This method can be used for aggregating violations applying different grouping criteria
      * @param other
-     * @return  a new violation with the accumulated offencesCount and matching identifying attributes.
+     * @return  a new violation with the accumulated offencesCount, fines and matching identifying attributes.
      */
     public Violation combineOffencesCounts(Violation other) {
         if (other == null) return this;  // nothing to combine with
@@ -53,6 +59,7 @@ public class Violation {
 
         // add the offences counts of both original violations
         combinedViolation.setOffencesCount(this.offencesCount + other.offencesCount);
+        combinedViolation.setFines(this.fines + other.fines);
 
         return combinedViolation;
     }
@@ -73,6 +80,14 @@ public class Violation {
         this.offencesCount = offencesCount;
     }
 
+    public double getFines() {
+        return fines;
+    }
+
+    public void setFines(double fines) {
+        this.fines = fines;
+    }
+
     @Override
     public String toString() {
         return String.format("%s/%s/%d", (car == null ? "null" : car.getLicensePlate()), city, offencesCount);   // replace by a proper outcome
@@ -0,0 +1,416 @@
+package models;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports full violation tables for reporting, with the columns:
+ *      licensePlate, city, carType, fuelType, emissionCategory, offencesCount, fines
+ * The CsvWriter formats every row directly into a character buffer, without creating a String per row or per value.
+ * The ColumnarWriter collects the rows in batches of primitive column arrays, and writes every batch as a row group:
+ *      header:         magic, numberOfRows, dictionariesOffset
+ *      row groups:     numberOfRowsInGroup, then every column of the group in sequence:
+ *                      plateIds (int), cityIds (int), carTypes (byte), fuelTypes (byte), emissionCategories (byte),
+ *                      offencesCounts (int), fines (double)
+ *      dictionaries:   numberOfCities, cities, numberOfPlates, plates (each as length + UTF-8 bytes)
+ * Both writers stream their rows in buffered batches. The CsvWriter holds no state per row, so the size of a CSV export
+ * is not limited by the heap. The ColumnarWriter keeps the dictionaries of all distinct license plates and cities
+ * in memory until it is closed, so its heap use grows with the number of distinct cars, not with the number of rows.
+ */
+public class ViolationExport {
+    private static final int COLUMNAR_MAGIC = 0x56434C31;       // "VCL1"
+    private static final int HEADER_BYTES = 4 + 8 + 8;
+    private static final int ROW_BYTES = 4 + 4 + 1 + 1 + 1 + 4 + 8;
+    private static final Car.CarType[] CAR_TYPES = Car.CarType.values();
+    private static final Car.FuelType[] FUEL_TYPES = Car.FuelType.values();
+
+    /**
+     * writes all violations into a new CSV file, with a header line
+     * @return  the number of exported violations
+     */
+    public static long exportToCsv(Iterable<Violation> violations, File csvFile) {
+        try (CsvWriter writer = new CsvWriter(csvFile)) {
+            for (Violation violation : violations) {
+                writer.write(violation);
+            }
+            return writer.getNumberOfRows();
+        }
+    }
+
+    /**
+     * writes all violations into a new columnar file
+     * @return  the number of exported violations
+     */
+    public static long exportToColumnar(Iterable<Violation> violations, File columnarFile) {
+        try (ColumnarWriter writer = new ColumnarWriter(columnarFile)) {
+            for (Violation violation : violations) {
+                writer.write(violation);
+            }
+            return writer.getNumberOfRows();
+        }
+    }
+
+    /**
+     * reads all violations back from a columnar file
+     * the cars of the violations only carry the license plate and the exported attributes
+     * @param columnarFile
+     * @return  the violations in the order in which they were written
+     */
+    public static List<Violation> readColumnar(File columnarFile) {
+        try (RandomAccessFile file = new RandomAccessFile(columnarFile, "r");
+             FileChannel channel = file.getChannel()) {
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.size() < HEADER_BYTES || readFully(channel, header, 0) < HEADER_BYTES
+                    || header.getInt() != COLUMNAR_MAGIC) {
+                throw new RuntimeException("Not a columnar violation file: " + columnarFile.getPath());
+            }
+            long numberOfRows = header.getLong();
+            long dictionariesOffset = header.getLong();
+
+            // only the dictionaries are mapped, the row groups are read one at a time, so the file may exceed 2 GB
+            ByteBuffer dictionaries = channel.map(FileChannel.MapMode.READ_ONLY,
+                    dictionariesOffset, channel.size() - dictionariesOffset);
+            String[] cities = readStrings(dictionaries);
+            String[] plates = readStrings(dictionaries);
+
+            List<Violation> violations = new ArrayList<>();
+            Map<Integer, Car> carsByPlateId = new HashMap<>();
+            ByteBuffer content = ByteBuffer.allocate(ColumnarWriter.GROUP_ROWS * ROW_BYTES);
+            ByteBuffer rowsInGroup = ByteBuffer.allocate(Integer.BYTES);
+            long position = HEADER_BYTES;
+            while (violations.size() < numberOfRows) {
+                rowsInGroup.clear();
+                position += readFully(channel, rowsInGroup, position);
+                int rows = rowsInGroup.getInt();
+                content.clear().limit(ROW_BYTES * rows);
+                position += readFully(channel, content, position);
+                for (int r = 0; r < rows; r++) {
+                    int plateId = content.getInt(4 * r);
+                    int cityId = content.getInt(4 * rows + 4 * r);
+                    int carType = content.get(8 * rows + r);
+                    int fuelType = content.get(9 * rows + r);
+                    int emissionCategory = content.get(10 * rows + r);
+                    int offencesCount = content.getInt(11 * rows + 4 * r);
+                    double fines = content.getDouble(15 * rows + 8 * r);
+
+                    Car car = carsByPlateId.computeIfAbsent(plateId, id -> new Car(plates[id], emissionCategory,
+                            CAR_TYPES[carType], FUEL_TYPES[fuelType], LocalDate.EPOCH));
+                    Violation violation = new Violation(car, cityId < 0 ? null : cities[cityId], fines);
+                    violation.setOffencesCount(offencesCount);
+                    violations.add(violation);
+                }
+            }
+            return violations;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read columnar violation file: " + columnarFile.getPath());
+        }
+    }
+
+    /**
+     * reads the remainder of the buffer from the channel, starting at the position in the file, and flips the buffer
+     * @return  the number of bytes read
+     */
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) < 0) {
+                throw new EOFException("Unexpected end of file at position " + (position + buffer.position() - start));
+            }
+        }
+        buffer.flip();
+        return buffer.limit() - start;
+    }
+
+    private static String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return strings;
+    }
+
+    /**
+     * Writes violations as lines of comma separated values.
+     * Text values that contain a comma, a quote or a line break are quoted.
+     */
+    public static class CsvWriter implements AutoCloseable {
+        private static final String HEADER = "licensePlate,city,carType,fuelType,emissionCategory,offencesCount,fines\n";
+        private static final int BUFFER_CHARS = 1 << 16;
+        private static final int MAX_NUMBER_CHARS = 24;
+
+        private final File csvFile;
+        private final Writer writer;
+        private final char[] buffer = new char[BUFFER_CHARS];
+        private int position;
+        private long numberOfRows;
+
+        public CsvWriter(File csvFile) {
+            this.csvFile = csvFile;
+            try {
+                this.writer = new OutputStreamWriter(new FileOutputStream(csvFile), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not create CSV file: " + csvFile.getPath());
+            }
+            this.append(HEADER);
+        }
+
+        public void write(Violation violation) {
+            Car car = violation.getCar();
+            this.appendText(car == null ? "" : car.getLicensePlate());
+            this.append(',');
+            this.appendText(violation.getCity() == null ? "" : violation.getCity());
+            this.append(',');
+            if (car != null) this.append(car.getCarType().name());
+            this.append(',');
+            if (car != null) this.append(car.getFuelType().name());
+            this.append(',');
+            if (car != null) this.appendNumber(car.getEmissionCategory());
+            this.append(',');
+            this.appendNumber(violation.getOffencesCount());
+            this.append(',');
+            this.appendAmount(violation.getFines());
+            this.append('\n');
+            this.numberOfRows++;
+        }
+
+        public long getNumberOfRows() {
+            return this.numberOfRows;
+        }
+
+        private void appendText(String text) {
+            boolean quoted = false;
+            for (int i = 0; i < text.length() && !quoted; i++) {
+                char c = text.charAt(i);
+                quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quoted) {
+                this.append(text);
+                return;
+            }
+            this.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == '"') this.append('"');
+                this.append(text.charAt(i));
+            }
+            this.append('"');
+        }
+
+        private void append(String text) {
+            int from = 0;
+            while (from < text.length()) {
+                if (this.position == BUFFER_CHARS) this.flushBuffer();
+                int to = Math.min(text.length(), from + BUFFER_CHARS - this.position);
+                text.getChars(from, to, this.buffer, this.position);
+                this.position += to - from;
+                from = to;
+            }
+        }
+
+        private void append(char c) {
+            if (this.position == BUFFER_CHARS) this.flushBuffer();
+            this.buffer[this.position++] = c;
+        }
+
+        private void appendNumber(long number) {
+            if (this.position + MAX_NUMBER_CHARS > BUFFER_CHARS) this.flushBuffer();
+            if (number < 0) {
+                this.buffer[this.position++] = '-';
+                number = -number;
+            }
+            // write the digits backwards behind the current position, then reverse them
+            int start = this.position;
+            do {
+                this.buffer[this.position++] = (char) ('0' + number % 10);
+                number /= 10;
+            } while (number > 0);
+            for (int i = start, j = this.position - 1; i < j; i++, j--) {
+                char digit = this.buffer[i];
+                this.buffer[i] = this.buffer[j];
+                this.buffer[j] = digit;
+            }
+        }
+
+        /**
+         * appends an amount of money with two decimals
+         */
+        private void appendAmount(double amount) {
+            long cents = Math.round(amount * 100);
+            if (cents < 0) {
+                this.append('-');
+                cents = -cents;
+            }
+            this.appendNumber(cents / 100);
+            this.append('.');
+            this.append((char) ('0' + cents / 10 % 10));
+            this.append((char) ('0' + cents % 10));
+        }
+
+        private void flushBuffer() {
+            try {
+                this.writer.write(this.buffer, 0, this.position);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write CSV file: " + this.csvFile.getPath());
+            }
+            this.position = 0;
+        }
+
+        @Override
+        public void close() {
+            this.flushBuffer();
+            try {
+                this.writer.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not complete CSV file: " + this.csvFile.getPath());
+            }
+        }
+    }
+
+    /**
+     * Writes violations into row groups of primitive columns, see the file layout above.
+     */
+    public static class ColumnarWriter implements AutoCloseable {
+        private static final int GROUP_ROWS = 8192;
+
+        private final File columnarFile;
+        private final FileChannel channel;
+        private final ByteBuffer group = ByteBuffer.allocateDirect(Integer.BYTES + GROUP_ROWS * ROW_BYTES);
+        private final int[] plateIds = new int[GROUP_ROWS];
+        private final int[] cityIds = new int[GROUP_ROWS];
+        private final byte[] carTypes = new byte[GROUP_ROWS];
+        private final byte[] fuelTypes = new byte[GROUP_ROWS];
+        private final byte[] emissionCategories = new byte[GROUP_ROWS];
+        private final int[] offencesCounts = new int[GROUP_ROWS];
+        private final double[] fines = new double[GROUP_ROWS];
+        private final CityDictionary cities = new CityDictionary();
+        private final Map<String, Integer> plateIdsByPlate = new HashMap<>();
+        private final List<String> plates = new ArrayList<>();
+        private int rowsInGroup;
+        private long numberOfRows;
+
+        public ColumnarWriter(File columnarFile) {
+            this.columnarFile = columnarFile;
+            RandomAccessFile file = null;
+            try {
+                file = new RandomAccessFile(columnarFile, "rw");
+                file.setLength(0);
+                this.channel = file.getChannel();
+                this.channel.position(HEADER_BYTES);
+            } catch (IOException e) {
+                // no writer is returned that could close the file later on
+                closeAfterFailure(file);
+                throw new RuntimeException("Could not create columnar violation file: " + columnarFile.getPath());
+            }
+        }
+
+        public void write(Violation violation) {
+            Car car = violation.getCar();
+            if (car == null) throw new IllegalArgumentException("Violation without car cannot be exported: " + violation);
+
+            int row = this.rowsInGroup;
+            this.plateIds[row] = this.plateIdsByPlate.computeIfAbsent(car.getLicensePlate(), plate -> {
+                this.plates.add(plate);
+                return this.plates.size() - 1;
+            });
+            this.cityIds[row] = violation.getCity() == null ? -1 : this.cities.idOf(violation.getCity());
+            this.carTypes[row] = (byte) car.getCarType().ordinal();
+            this.fuelTypes[row] = (byte) car.getFuelType().ordinal();
+            this.emissionCategories[row] = (byte) car.getEmissionCategory();
+            this.offencesCounts[row] = violation.getOffencesCount();
+            this.fines[row] = violation.getFines();
+            this.numberOfRows++;
+            if (++this.rowsInGroup == GROUP_ROWS) {
+                this.flushGroup();
+            }
+        }
+
+        public long getNumberOfRows() {
+            return this.numberOfRows;
+        }
+
+        private void flushGroup() {
+            if (this.rowsInGroup == 0) return;
+
+            int rows = this.rowsInGroup;
+            this.group.clear();
+            this.group.putInt(rows);
+            for (int r = 0; r < rows; r++) this.group.putInt(this.plateIds[r]);
+            for (int r = 0; r < rows; r++) this.group.putInt(this.cityIds[r]);
+            this.group.put(this.carTypes, 0, rows);
+            this.group.put(this.fuelTypes, 0, rows);
+            this.group.put(this.emissionCategories, 0, rows);
+            for (int r = 0; r < rows; r++) this.group.putInt(this.offencesCounts[r]);
+            for (int r = 0; r < rows; r++) this.group.putDouble(this.fines[r]);
+            this.group.flip();
+            this.writeFully(this.group);
+            this.rowsInGroup = 0;
+        }
+
+        private void writeFully(ByteBuffer buffer) {
+            try {
+                while (buffer.hasRemaining()) {
+                    this.channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write columnar violation file: " + this.columnarFile.getPath());
+            }
+        }
+
+        @Override
+        public void close() {
+            this.flushGroup();
+            try {
+                long dictionariesOffset = this.channel.position();
+                List<String> cityNames = new ArrayList<>();
+                for (int id = 0; id < this.cities.size(); id++) {
+                    cityNames.add(this.cities.nameOf(id));
+                }
+                this.writeStrings(cityNames);
+                this.writeStrings(this.plates);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(COLUMNAR_MAGIC).putLong(this.numberOfRows).putLong(dictionariesOffset);
+                header.flip();
+                this.channel.write(header, 0);
+                this.channel.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Could not complete columnar violation file: " + this.columnarFile.getPath());
+            }
+        }
+
+        private static void closeAfterFailure(RandomAccessFile file) {
+            if (file == null) return;
+            try {
+                file.close();
+            } catch (IOException e) {
+                // the original failure is reported instead
+            }
+        }
+
+        private void writeStrings(List<String> strings) {
+            int size = Integer.BYTES;
+            List<byte[]> encoded = new ArrayList<>();
+            for (String string : strings) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                encoded.add(bytes);
+                size += Short.BYTES + bytes.length;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            buffer.putInt(strings.size());
+            for (byte[] bytes : encoded) {
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+            buffer.flip();
+            this.writeFully(buffer);
+        }
+    }
+}
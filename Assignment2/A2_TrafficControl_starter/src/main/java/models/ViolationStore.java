@@ -0,0 +1,307 @@
+package models;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Persists the accumulated violations across runs, such that every detection file needs to be processed only once.
+ * The store lives in a folder with two files:
+ *      violations.snapshot     the aggregated violations and the names of the processed detection files,
+ *                              as of the latest compaction
+ *      violations.log          an append-only log with one record per detection file processed since then
+ * Every log record holds the name of a detection file and the offences found in it, and ends with a checksum,
+ * which serves as its commit marker: a record that was not completely written before a crash fails the checksum,
+ * and is discarded together with anything behind it when the store is opened again.
+ * A compaction writes a new snapshot next to the old one and then atomically replaces it, before clearing the log;
+ * records of files that are already in the snapshot are skipped on replay,
+ * so a crash in between compaction steps does not count any offence twice.
+ */
+public class ViolationStore {
+    private static final int SNAPSHOT_MAGIC = 0x56534E31;   // "VSN1"
+    private static final int RECORD_MAGIC = 0x564C4F47;     // "VLOG"
+    private static final String SNAPSHOT_FILE_NAME = "violations.snapshot";
+    private static final String LOG_FILE_NAME = "violations.log";
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 32;
+
+    private final File snapshotFile;
+    private final File logFile;
+    private final int compactionThreshold;              // the number of log records that triggers a compaction
+    private final Set<String> processedFiles = new LinkedHashSet<>();
+    private final OrderedList<Violation> violations =   // the aggregated violations, with placeholder cars
+            new OrderedArrayList<>(Violation::compareByLicensePlateAndCity);
+    private final Map<String, Car> placeholderCars = new HashMap<>();   // a single placeholder car per plate
+    private final CityDictionary cities = new CityDictionary();
+    private int numberOfLogRecords;
+
+    /* Representation Invariant:
+     *      this.violations holds the offences of exactly the processedFiles, aggregated by car and city
+     *      the snapshot together with the records in the log hold the same content as this.violations
+     */
+
+    private ViolationStore(File folder, int compactionThreshold) {
+        this.snapshotFile = new File(folder, SNAPSHOT_FILE_NAME);
+        this.logFile = new File(folder, LOG_FILE_NAME);
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    public static ViolationStore open(File folder) {
+        return open(folder, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * opens the store in the folder, or creates an empty store if the folder holds none,
+     * loading the latest snapshot and replaying the committed records of the log
+     * @param folder
+     * @param compactionThreshold   the number of log records after which the log is compacted into the snapshot
+     * @return  the store
+     */
+    public static ViolationStore open(File folder, int compactionThreshold) {
+        if (folder == null) throw new IllegalArgumentException("folder cannot be null");
+        if (compactionThreshold <= 0) throw new IllegalArgumentException("compactionThreshold must be positive");
+
+        ViolationStore store = new ViolationStore(folder, compactionThreshold);
+        try {
+            Files.createDirectories(folder.toPath());
+            if (store.snapshotFile.exists()) store.loadSnapshot();
+            if (store.logFile.exists()) store.replayLog();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open violation store: " + folder.getPath());
+        }
+        return store;
+    }
+
+    /**
+     * @param fileName  the name of a detection file, relative to its vault
+     * @return  whether the offences of the file have been stored already
+     */
+    public boolean isProcessed(String fileName) {
+        return this.processedFiles.contains(fileName);
+    }
+
+    /**
+     * durably appends the offences of a newly processed detection file to the log,
+     * and compacts the log if it has reached the compaction threshold
+     * @param fileName      the name of the detection file, relative to its vault
+     * @param offences      the violations found in the file
+     */
+    public void append(String fileName, Collection<Violation> offences) {
+        if (fileName == null || offences == null) throw new IllegalArgumentException("fileName and offences cannot be null");
+        if (this.isProcessed(fileName)) throw new IllegalArgumentException("File has been stored already: " + fileName);
+
+        try (FileChannel channel = FileChannel.open(this.logFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(encodeRecord(fileName, offences)));
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not append to violation log: " + this.logFile.getPath());
+        }
+        this.numberOfLogRecords++;
+        this.apply(fileName, offences);
+
+        if (this.numberOfLogRecords >= this.compactionThreshold) {
+            this.compact();
+        }
+    }
+
+    /**
+     * writes all stored violations into a new snapshot, and clears the log
+     */
+    public void compact() {
+        File newSnapshotFile = new File(this.snapshotFile.getPath() + ".new");
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(SNAPSHOT_MAGIC);
+            output.writeInt(this.processedFiles.size());
+            for (String fileName : this.processedFiles) {
+                output.writeUTF(fileName);
+            }
+            writeViolations(output, this.violations);
+            output.writeLong(checksumOf(bytes.toByteArray(), bytes.size()));
+
+            try (FileOutputStream file = new FileOutputStream(newSnapshotFile)) {
+                bytes.writeTo(file);
+                file.getFD().sync();
+            }
+            Files.move(newSnapshotFile.toPath(), this.snapshotFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            // the snapshot covers all records of the log now
+            try (FileChannel channel = FileChannel.open(this.logFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+            this.numberOfLogRecords = 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not compact violation store: " + this.snapshotFile.getPath());
+        }
+    }
+
+    /**
+     * adds all stored violations to the target list, associating them with the cars of the registry
+     * stored plates that are not found in the registry are treated as unknown cars, like a detection import does
+     * @param cars      the registry of cars
+     * @param unregisteredCars  the cache that receives the unregistered cars, or null to add these to the registry
+     * @param cities    the dictionary that provides the shared city names
+     * @param target    the list that receives the violations
+     */
+    public void loadInto(List<Car> cars, UnregisteredCarCache unregisteredCars, CityDictionary cities,
+                         OrderedList<Violation> target) {
+        for (Violation stored : this.violations) {
+            Car car = stored.getCar();
+            int index = cars.indexOf(car);
+            if (index >= 0) {
+                car = cars.get(index);
+            } else if (unregisteredCars != null) {
+                car = unregisteredCars.carOf(car.getLicensePlate());
+            } else {
+                car = new Car(car.getLicensePlate());
+                cars.add(car);
+            }
+            Violation violation = new Violation(car, cities.canonical(stored.getCity()), stored.getFines());
+            violation.setOffencesCount(stored.getOffencesCount());
+            target.merge(violation, Violation::combineOffencesCounts);
+        }
+    }
+
+    public Set<String> getProcessedFiles() {
+        return Collections.unmodifiableSet(this.processedFiles);
+    }
+
+    public int getNumberOfViolations() {
+        return this.violations.size();
+    }
+
+    public int getNumberOfLogRecords() {
+        return this.numberOfLogRecords;
+    }
+
+    private void apply(String fileName, Collection<Violation> offences) {
+        this.processedFiles.add(fileName);
+        this.violations.sort();
+        for (Violation offence : offences) {
+            // retain the license plate only, cars are resolved against the registry on load
+            Violation stored = new Violation(this.placeholderCarOf(offence.getCar().getLicensePlate()),
+                    this.cities.canonical(offence.getCity()), offence.getFines());
+            stored.setOffencesCount(offence.getOffencesCount());
+            this.violations.merge(stored, Violation::combineOffencesCounts);
+        }
+    }
+
+    private Car placeholderCarOf(String licensePlate) {
+        return this.placeholderCars.computeIfAbsent(licensePlate, Car::new);
+    }
+
+    private void loadSnapshot() throws IOException {
+        byte[] bytes = Files.readAllBytes(this.snapshotFile.toPath());
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        if (bytes.length < 12 || input.readInt() != SNAPSHOT_MAGIC
+                || checksumOf(bytes, bytes.length - Long.BYTES) != readChecksum(bytes, bytes.length - Long.BYTES)) {
+            throw new RuntimeException("Corrupt violation snapshot: " + this.snapshotFile.getPath());
+        }
+        int numberOfFiles = input.readInt();
+        for (int f = 0; f < numberOfFiles; f++) {
+            this.processedFiles.add(input.readUTF());
+        }
+        this.violations.addAll(readViolations(input));
+        this.violations.sort();
+    }
+
+    /**
+     * replays the committed records of the log, and truncates the log behind the last committed record
+     */
+    private void replayLog() throws IOException {
+        byte[] bytes = Files.readAllBytes(this.logFile.toPath());
+        int committed = 0;
+        while (committed + 8 <= bytes.length) {
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(bytes, committed, 8));
+            int magic = header.readInt();
+            int payloadLength = header.readInt();
+            int end = committed + 8 + payloadLength + Long.BYTES;
+            if (magic != RECORD_MAGIC || payloadLength < 0 || end > bytes.length || end < 0
+                    || checksumOf(bytes, committed + 8, payloadLength) != readChecksum(bytes, end - Long.BYTES)) {
+                break;
+            }
+
+            DataInputStream payload = new DataInputStream(new ByteArrayInputStream(bytes, committed + 8, payloadLength));
+            String fileName = payload.readUTF();
+            List<Violation> offences = readViolations(payload);
+            // a compaction may have been interrupted after its snapshot was written
+            if (!this.isProcessed(fileName)) {
+                this.apply(fileName, offences);
+                this.numberOfLogRecords++;
+            }
+            committed = end;
+        }
+
+        if (committed < bytes.length) {
+            System.out.printf("Discarded %d bytes of an incomplete record from %s\n",
+                    bytes.length - committed, this.logFile.getPath());
+            try (FileChannel channel = FileChannel.open(this.logFile.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(committed);
+                channel.force(true);
+            }
+        }
+    }
+
+    private static byte[] encodeRecord(String fileName, Collection<Violation> offences) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeUTF(fileName);
+        writeViolations(payload, offences);
+        byte[] payloadArray = payloadBytes.toByteArray();
+
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(payloadArray.length + 16);
+        DataOutputStream record = new DataOutputStream(recordBytes);
+        record.writeInt(RECORD_MAGIC);
+        record.writeInt(payloadArray.length);
+        record.write(payloadArray);
+        record.writeLong(checksumOf(payloadArray, 0, payloadArray.length));
+        return recordBytes.toByteArray();
+    }
+
+    private static void writeViolations(DataOutputStream output, Collection<Violation> violations) throws IOException {
+        output.writeInt(violations.size());
+        for (Violation violation : violations) {
+            output.writeUTF(violation.getCar().getLicensePlate());
+            output.writeUTF(violation.getCity());
+            output.writeInt(violation.getOffencesCount());
+            output.writeDouble(violation.getFines());
+        }
+    }
+
+    private List<Violation> readViolations(DataInputStream input) throws IOException {
+        int numberOfViolations = input.readInt();
+        List<Violation> violations = new ArrayList<>(numberOfViolations);
+        for (int v = 0; v < numberOfViolations; v++) {
+            Car car = this.placeholderCarOf(input.readUTF());
+            String city = this.cities.canonical(input.readUTF());
+            int offencesCount = input.readInt();
+            Violation violation = new Violation(car, city, input.readDouble());
+            violation.setOffencesCount(offencesCount);
+            violations.add(violation);
+        }
+        return violations;
+    }
+
+    private static long checksumOf(byte[] bytes, int length) {
+        return checksumOf(bytes, 0, length);
+    }
+
+    private static long checksumOf(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return crc.getValue();
+    }
+
+    private static long readChecksum(byte[] bytes, int offset) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(bytes, offset, Long.BYTES)).readLong();
+    }
+}
@@ -0,0 +1,129 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * An aggregation table of offences counts, keyed by the (carIndex, cityId) pair of the violation.
+ * carIndex refers to the position of the car in the cars list that was used to produce the offences,
+ * cityId refers to the id of the city in a CityDictionary.
+ */
+public interface ViolationTable {
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(int carIndex, int cityId, int offencesCount);
+    }
+
+    @FunctionalInterface
+    interface FineSchedule {
+        double fineOf(int carIndex, int cityId);
+    }
+
+    void addOffences(int carIndex, int cityId, int offencesCount);
+    int getOffencesCount(int carIndex, int cityId);
+    int size();
+    long totalOffences();
+    void forEach(EntryConsumer consumer);
+    void clear();
+
+    /**
+     * calculates the total amount of fines of all offences in the table
+     * @param schedule  provides the fine per offence of a car in a city
+     * @return          the sum of offencesCount * fine of all entries
+     */
+    default double totalFines(FineSchedule schedule) {
+        double[] total = { 0.0 };
+        this.forEach((carIndex, cityId, offencesCount) ->
+                total[0] += offencesCount * schedule.fineOf(carIndex, cityId));
+        return total[0];
+    }
+
+    /**
+     * prepares the topNumber of violations with the highest offencesCount when the entries are aggregated by car
+     * the city of a result violation is retained only if all offences of the car were in the same city
+     * @param topNumber     the maximum number of violations in the result
+     * @param cars          the cars list that the carIndices refer to
+     * @param cityNames     provides the name of a cityId
+     * @param schedule      provides the fine per offence of a car in a city
+     * @return              the aggregated violations with their fines, with the highest offencesCount first
+     */
+    default List<Violation> topViolationsByCar(int topNumber, List<Car> cars, IntFunction<String> cityNames,
+                                               FineSchedule schedule) {
+        int[] carCounts = new int[cars.size()];
+        double[] carFines = new double[cars.size()];
+        int[] singleCityIds = new int[cars.size()];
+        Arrays.fill(singleCityIds, -1);
+        this.forEach((carIndex, cityId, offencesCount) -> {
+            singleCityIds[carIndex] = carCounts[carIndex] == 0 ? cityId : -1;
+            carCounts[carIndex] += offencesCount;
+            carFines[carIndex] += offencesCount * schedule.fineOf(carIndex, cityId);
+        });
+
+        List<Violation> top = new ArrayList<>();
+        for (int carIndex : topIndices(carCounts, topNumber)) {
+            int cityId = singleCityIds[carIndex];
+            Violation violation = new Violation(cars.get(carIndex), cityId < 0 ? null : cityNames.apply(cityId),
+                    carFines[carIndex]);
+            violation.setOffencesCount(carCounts[carIndex]);
+            top.add(violation);
+        }
+        return top;
+    }
+
+    /**
+     * prepares the topNumber of violations with the highest offencesCount when the entries are aggregated by city
+     * the car of a result violation is retained only if all offences in the city were by the same car
+     * @param topNumber       the maximum number of violations in the result
+     * @param cars            the cars list that the carIndices refer to
+     * @param cityNames       provides the name of a cityId
+     * @param numberOfCities  the number of cityIds that may occur in the table
+     * @param schedule        provides the fine per offence of a car in a city
+     * @return                the aggregated violations with their fines, with the highest offencesCount first
+     */
+    default List<Violation> topViolationsByCity(int topNumber, List<Car> cars, IntFunction<String> cityNames,
+                                                int numberOfCities, FineSchedule schedule) {
+        int[] cityCounts = new int[numberOfCities];
+        double[] cityFines = new double[numberOfCities];
+        int[] singleCarIndices = new int[numberOfCities];
+        Arrays.fill(singleCarIndices, -1);
+        this.forEach((carIndex, cityId, offencesCount) -> {
+            singleCarIndices[cityId] = cityCounts[cityId] == 0 ? carIndex : -1;
+            cityCounts[cityId] += offencesCount;
+            cityFines[cityId] += offencesCount * schedule.fineOf(carIndex, cityId);
+        });
+
+        List<Violation> top = new ArrayList<>();
+        for (int cityId : topIndices(cityCounts, topNumber)) {
+            int carIndex = singleCarIndices[cityId];
+            Violation violation = new Violation(carIndex < 0 ? null : cars.get(carIndex), cityNames.apply(cityId),
+                    cityFines[cityId]);
+            violation.setOffencesCount(cityCounts[cityId]);
+            top.add(violation);
+        }
+        return top;
+    }
+
+    /**
+     * selects the indices of the topNumber highest non-zero counts, highest count first and lowest index first on ties
+     */
+    private static int[] topIndices(int[] counts, int topNumber) {
+        // pack (MAX_VALUE - count, index) into a long, such that an ascending sort of primitives yields the ranking
+        long[] ranking = new long[counts.length];
+        int n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                ranking[n++] = ((long) (Integer.MAX_VALUE - counts[i]) << 32) | i;
+            }
+        }
+        Arrays.sort(ranking, 0, n);
+
+        int[] indices = new int[Math.max(0, Math.min(topNumber, n))];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = (int) ranking[i];
+        }
+        return indices;
+    }
+}
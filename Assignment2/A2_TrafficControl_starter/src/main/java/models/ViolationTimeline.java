@@ -0,0 +1,215 @@
+package models;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates offences over time, in compact per-bucket counters:
+ * per city in buckets of a configurable width (e.g. one hour) and per car in buckets of one day.
+ * The counters support tumbling windows (one count per bucket), sliding windows (a count per bucket
+ * over the window that ends in that bucket) and range queries, which are answered from prefix sums.
+ * Only the buckets with offences take memory, so an outlier date and time does not blow up the counters.
+ */
+public class ViolationTimeline {
+    public static final int MAX_RANGE_BUCKETS = 1 << 24;   // the maximum number of buckets in a window query
+
+    private final long bucketSeconds;                       // the width of the city buckets in seconds
+    private final BucketCounter allCities = new BucketCounter();
+    private final Map<String, BucketCounter> byCity = new HashMap<>();
+    private final Map<Car, BucketCounter> byCarPerDay = new HashMap<>();
+
+    public ViolationTimeline(Duration bucketWidth) {
+        if (bucketWidth == null || bucketWidth.getSeconds() <= 0) {
+            throw new IllegalArgumentException("bucketWidth shall be at least one second");
+        }
+        this.bucketSeconds = bucketWidth.getSeconds();
+    }
+
+    /**
+     * records an offence that was seen by the detection
+     * @param detection     a detection that has been found to offend against the zone rules
+     */
+    public void record(Detection detection) {
+        this.record(detection.getCar(), detection.getCity(), detection.getDateTime(), 1);
+    }
+
+    /**
+     * records a number of offences of a car in a city at the given date and time
+     * @param car
+     * @param city
+     * @param dateTime
+     * @param offencesCount
+     */
+    public void record(Car car, String city, LocalDateTime dateTime, int offencesCount) {
+        long bucket = this.bucketOf(dateTime);
+        this.allCities.add(bucket, offencesCount);
+        this.byCity.computeIfAbsent(city, c -> new BucketCounter()).add(bucket, offencesCount);
+        this.byCarPerDay.computeIfAbsent(car, c -> new BucketCounter())
+                .add(dateTime.toLocalDate().toEpochDay(), offencesCount);
+    }
+
+    /**
+     * counts the offences in a time range
+     * @param city  the city of the offences, or null for all cities
+     * @param from  the start of the range (inclusive), rounded down to the start of its bucket
+     * @param to    the end of the range (exclusive), rounded down to the start of its bucket
+     * @return      the number of offences in the range
+     */
+    public long countOffences(String city, LocalDateTime from, LocalDateTime to) {
+        return this.counterOf(city).sum(this.bucketOf(from), this.bucketOf(to));
+    }
+
+    /**
+     * provides the offences count of every bucket in a time range (tumbling windows)
+     * @param city  the city of the offences, or null for all cities
+     * @param from  the start of the range (inclusive), rounded down to the start of its bucket
+     * @param to    the end of the range (exclusive), rounded down to the start of its bucket
+     * @return      the offences count per bucket, starting with the bucket of from
+     */
+    public int[] tumblingCounts(String city, LocalDateTime from, LocalDateTime to) {
+        return this.slidingCounts(city, from, to, 1);
+    }
+
+    /**
+     * provides the offences count over a sliding window that ends in every bucket of a time range
+     * @param city          the city of the offences, or null for all cities
+     * @param from          the start of the range (inclusive), rounded down to the start of its bucket
+     * @param to            the end of the range (exclusive), rounded down to the start of its bucket
+     * @param windowBuckets the width of the sliding window in number of buckets
+     * @return              the offences count of the window ending in every bucket, starting with the bucket of from
+     */
+    public int[] slidingCounts(String city, LocalDateTime from, LocalDateTime to, int windowBuckets) {
+        if (windowBuckets <= 0) throw new IllegalArgumentException("windowBuckets shall be positive");
+
+        BucketCounter counter = this.counterOf(city);
+        long firstBucket = this.bucketOf(from);
+        long rangeBuckets = Math.max(0, this.bucketOf(to) - firstBucket);
+        if (rangeBuckets > MAX_RANGE_BUCKETS) {
+            throw new IllegalArgumentException("the range from " + from + " to " + to + " spans more than "
+                    + MAX_RANGE_BUCKETS + " buckets");
+        }
+        int nBuckets = (int) rangeBuckets;
+        int[] counts = new int[nBuckets];
+        for (int i = 0; i < nBuckets; i++) {
+            long bucket = firstBucket + i;
+            counts[i] = (int) counter.sum(bucket - windowBuckets + 1, bucket + 1);
+        }
+        return counts;
+    }
+
+    /**
+     * finds the cars that offended repeatedly within a range of days, e.g. the last 7 days
+     * @param fromDay           the first day of the range (inclusive)
+     * @param toDay             the last day of the range (inclusive)
+     * @param minOffencesCount  the minimum number of offences of a repeat offender
+     * @return                  the violations aggregated by car across all cities, with the highest offencesCount first
+     */
+    public List<Violation> repeatOffenders(LocalDate fromDay, LocalDate toDay, int minOffencesCount) {
+        List<Violation> offenders = new ArrayList<>();
+        for (Map.Entry<Car, BucketCounter> entry : this.byCarPerDay.entrySet()) {
+            long offencesCount = entry.getValue().sum(fromDay.toEpochDay(), toDay.toEpochDay() + 1);
+            if (offencesCount >= minOffencesCount) {
+                Violation violation = new Violation(entry.getKey(), null);
+                violation.setOffencesCount((int) offencesCount);
+                offenders.add(violation);
+            }
+        }
+        offenders.sort((v1, v2) -> Integer.compare(v2.getOffencesCount(), v1.getOffencesCount()));
+        return offenders;
+    }
+
+    /**
+     * @return  the start of the bucket that holds the given date and time
+     */
+    public LocalDateTime bucketStart(LocalDateTime dateTime) {
+        return LocalDateTime.ofEpochSecond(this.bucketOf(dateTime) * this.bucketSeconds, 0, ZoneOffset.UTC);
+    }
+
+    public void clear() {
+        this.allCities.clear();
+        this.byCity.clear();
+        this.byCarPerDay.clear();
+    }
+
+    private long bucketOf(LocalDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), this.bucketSeconds);
+    }
+
+    private BucketCounter counterOf(String city) {
+        if (city == null) return this.allCities;
+        return this.byCity.getOrDefault(city, BucketCounter.EMPTY);
+    }
+
+    /**
+     * A sparse set of counters of the buckets that have been counted in.
+     * The counted buckets are kept in sorted order in primitive arrays, together with their prefix sums,
+     * which are updated along with every count. Detections mostly arrive in time order, so a count
+     * usually lands in one of the last buckets, and updating the prefix sums after it takes little work.
+     * Range sums are answered in O(log n) by binary search in the sorted buckets.
+     */
+    private static class BucketCounter {
+        static final BucketCounter EMPTY = new BucketCounter();    // is only read, never counted in
+
+        private long[] buckets = new long[8];       // the sorted bucket numbers that have been counted in
+        private long[] prefixSums = new long[9];    // prefixSums[i] = sum of the counts of buckets[0..i-1]
+        private int size;                           // the number of counted buckets
+
+        /* Representation Invariant:
+         *      buckets[0..size-1] is strictly ascending
+         *      prefixSums[0] == 0, and prefixSums[i+1] - prefixSums[i] is the count of buckets[i]
+         */
+
+        void add(long bucket, int count) {
+            int index = Arrays.binarySearch(this.buckets, 0, this.size, bucket);
+            if (index < 0) {
+                index = -(index + 1);
+                this.insertBucket(index, bucket);
+            }
+            for (int i = index + 1; i <= this.size; i++) {
+                this.prefixSums[i] += count;
+            }
+        }
+
+        /**
+         * inserts an empty bucket at the index, shifting the later buckets and their prefix sums
+         */
+        private void insertBucket(int index, long bucket) {
+            if (this.size == this.buckets.length) {
+                this.buckets = Arrays.copyOf(this.buckets, 2 * this.size);
+                this.prefixSums = Arrays.copyOf(this.prefixSums, 2 * this.size + 1);
+            }
+            System.arraycopy(this.buckets, index, this.buckets, index + 1, this.size - index);
+            System.arraycopy(this.prefixSums, index + 1, this.prefixSums, index + 2, this.size - index);
+            this.buckets[index] = bucket;
+            this.prefixSums[index + 1] = this.prefixSums[index];
+            this.size++;
+        }
+
+        /**
+         * @return  the sum of the counts of buckets fromBucket (inclusive) until toBucket (exclusive)
+         */
+        long sum(long fromBucket, long toBucket) {
+            if (toBucket <= fromBucket || this.size == 0) return 0;
+            return this.prefixSums[this.indexOf(toBucket)] - this.prefixSums[this.indexOf(fromBucket)];
+        }
+
+        /**
+         * @return  the number of counted buckets before the given bucket
+         */
+        private int indexOf(long bucket) {
+            int index = Arrays.binarySearch(this.buckets, 0, this.size, bucket);
+            return index >= 0 ? index : -(index + 1);
+        }
+
+        void clear() {
+            this.size = 0;
+        }
+    }
+}
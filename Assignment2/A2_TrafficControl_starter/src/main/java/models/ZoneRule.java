@@ -0,0 +1,149 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static models.Car.CarType;
+import static models.Car.FuelType;
+
+public class ZoneRule {
+    private static final String ANY = "*";
+    private static final char ALTERNATIVES_SEPARATOR = '|';
+
+    private final String city;                  // the city where the rule applies, or null for all cities
+    private final Set<CarType> carTypes;        // the vehicle classes that are restricted by the rule
+    private final Set<FuelType> fuelTypes;      // the fuel types that are restricted by the rule
+    private final int minEmissionCategory;      // cars with an emission category below this minimum are refused
+    private final LocalDate validFrom;          // first day of enforcement (inclusive), or null if unbounded
+    private final LocalDate validUntil;         // last day of enforcement (inclusive), or null if unbounded
+    private final double fine;                  // the fine per offence against this rule
+    private final long validFromEpochDay;       // validFrom as epoch day, or Long.MIN_VALUE if unbounded
+    private final long validUntilEpochDay;      // validUntil as epoch day, or Long.MAX_VALUE if unbounded
+
+    public ZoneRule(String city, Set<CarType> carTypes, Set<FuelType> fuelTypes, int minEmissionCategory,
+                    LocalDate validFrom, LocalDate validUntil, double fine) {
+        if (carTypes == null || carTypes.isEmpty() || fuelTypes == null || fuelTypes.isEmpty()) {
+            throw new IllegalArgumentException("a zone rule shall restrict at least one car type and fuel type");
+        }
+        this.city = city;
+        this.carTypes = EnumSet.copyOf(carTypes);
+        this.fuelTypes = EnumSet.copyOf(fuelTypes);
+        this.minEmissionCategory = minEmissionCategory;
+        this.validFrom = validFrom;
+        this.validUntil = validUntil;
+        this.fine = fine;
+        this.validFromEpochDay = validFrom == null ? Long.MIN_VALUE : validFrom.toEpochDay();
+        this.validUntilEpochDay = validUntil == null ? Long.MAX_VALUE : validUntil.toEpochDay();
+    }
+
+    /**
+     * parses a zone rule from a textLine
+     * with format: city, carTypes, fuelTypes, minEmissionCategory, validFrom, validUntil, fine
+     * multiple car types or fuel types are separated by a '|', e.g. Truck|Coach
+     * a '*' for the city or either date represents 'any city' or 'no limit'
+     * should ignore leading and trailing whitespaces in each field
+     * lines that are empty or start with a '#' are treated as comments
+     * @param textLine
+     * @return  a new ZoneRule instance with the provided information
+     *          or null if the textLine is a comment, corrupt, incomplete or empty
+     */
+    public static ZoneRule fromLine(String textLine) {
+        return fromLine(textLine, ParseErrorHandler.PRINT);
+    }
+
+    /**
+     * parses a zone rule from a textLine, like fromLine(textLine), without throwing exceptions on corrupt fields
+     * @param textLine
+     * @param errorHandler  receives the textLine if any of its fields is corrupt
+     * @return  a new ZoneRule instance with the provided information
+     *          or null if the textLine is a comment, corrupt, incomplete or empty
+     */
+    public static ZoneRule fromLine(String textLine, ParseErrorHandler errorHandler) {
+        if (textLine.isBlank() || textLine.trim().startsWith("#")) return null;
+
+        // extract the comma-separated fields from the textLine
+        LineParser fields = new LineParser("ZoneRule", textLine);
+        if (fields.numberOfFields() < 7) return null;
+
+        // validate and convert the fields
+        String city = fields.isText(0, ANY) ? null : fields.text(0);
+        EnumSet<CarType> carTypes = fields.enumConstants(1, CarType.class, ALTERNATIVES_SEPARATOR);
+        EnumSet<FuelType> fuelTypes = fields.enumConstants(2, FuelType.class, ALTERNATIVES_SEPARATOR);
+        int minEmissionCategory = fields.integer(3);
+        LocalDate validFrom = fields.isText(4, ANY) ? null : fields.date(4);
+        LocalDate validUntil = fields.isText(5, ANY) ? null : fields.date(5);
+        double fine = fields.decimal(6);
+        if (fields.rejectOnError(errorHandler)) return null;
+
+        return new ZoneRule(city, carTypes, fuelTypes, minEmissionCategory, validFrom, validUntil, fine);
+    }
+
+    /**
+     * checks whether a car entering the city at the given date offends against this rule
+     * @param car
+     * @param city
+     * @param date
+     * @return  true if the rule applies and the car does not meet its requirements
+     */
+    public boolean isViolatedBy(Car car, String city, LocalDate date) {
+        return this.carTypes.contains(car.getCarType())
+                && this.fuelTypes.contains(car.getFuelType())
+                && this.isViolatedByEmissionCategory(car.getEmissionCategory())
+                && this.appliesTo(city, date);
+    }
+
+    /**
+     * checks only the city and the enforcement period of the rule
+     */
+    boolean appliesTo(String city, LocalDate date) {
+        return this.appliesTo(city, date.toEpochDay());
+    }
+
+    /**
+     * checks only the city and the enforcement period of the rule, with the date given as epoch day
+     */
+    boolean appliesTo(String city, long epochDay) {
+        return (this.city == null || this.city.equals(city))
+                && epochDay >= this.validFromEpochDay && epochDay <= this.validUntilEpochDay;
+    }
+
+    boolean isViolatedByEmissionCategory(int emissionCategory) {
+        return emissionCategory < this.minEmissionCategory;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public Set<CarType> getCarTypes() {
+        return EnumSet.copyOf(carTypes);
+    }
+
+    public Set<FuelType> getFuelTypes() {
+        return EnumSet.copyOf(fuelTypes);
+    }
+
+    public int getMinEmissionCategory() {
+        return minEmissionCategory;
+    }
+
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    public LocalDate getValidUntil() {
+        return validUntil;
+    }
+
+    public double getFine() {
+        return fine;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s/%s/%s/<%d/%s..%s/%.2f",
+                city == null ? ANY : city, carTypes, fuelTypes, minEmissionCategory,
+                validFrom == null ? ANY : validFrom, validUntil == null ? ANY : validUntil, fine);
+    }
+}
@@ -0,0 +1,103 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static models.Car.CarType;
+import static models.Car.FuelType;
+
+/**
+ * A compiled set of environmental zone rules.
+ * The rules are compiled into a decision table that is indexed by car type and fuel type,
+ * such that evaluating a detection only considers the few rules that can apply to its car at all.
+ * If multiple rules are violated by the same detection, the first rule in order of definition applies.
+ */
+public class ZoneRuleSet {
+    private static final ZoneRule[] NO_RULES = new ZoneRule[0];
+
+    private final List<ZoneRule> rules;         // all rules in order of definition
+    private final ZoneRule[][][] decisionTable; // candidate rules in order of definition, by [carType][fuelType]
+
+    public ZoneRuleSet(List<ZoneRule> rules) {
+        this.rules = List.copyOf(rules);
+        this.decisionTable = new ZoneRule[CarType.values().length][FuelType.values().length][];
+
+        for (CarType carType : CarType.values()) {
+            for (FuelType fuelType : FuelType.values()) {
+                List<ZoneRule> candidates = new ArrayList<>();
+                for (ZoneRule rule : this.rules) {
+                    if (rule.getCarTypes().contains(carType) && rule.getFuelTypes().contains(fuelType)) {
+                        candidates.add(rule);
+                    }
+                }
+                this.decisionTable[carType.ordinal()][fuelType.ordinal()] =
+                        candidates.isEmpty() ? NO_RULES : candidates.toArray(NO_RULES);
+            }
+        }
+    }
+
+    /**
+     * the purple zone rules that apply in all cities:
+     * diesel trucks and diesel coaches with an emission category of below 6 may not enter a purple zone
+     * trucks are fined €25 per offence, coaches €35 per offence
+     */
+    public static final ZoneRuleSet PURPLE = new ZoneRuleSet(List.of(
+            ZoneRule.fromLine("*, Truck, Diesel, 6, *, *, 25"),
+            ZoneRule.fromLine("*, Coach, Diesel, 6, *, *, 35")
+    ));
+
+    /**
+     * finds the rule that is violated by the car entering the city at the given date
+     * @param car
+     * @param city
+     * @param date
+     * @return  the first rule in order of definition that is violated, or null if the entry is allowed
+     */
+    public ZoneRule findViolatedRule(Car car, String city, LocalDate date) {
+        return this.findViolatedRule(car, city, date.toEpochDay());
+    }
+
+    /**
+     * finds the rule that is violated by the car entering the city at the given day,
+     * without the need of a date object, e.g. when replaying epoch seconds from an archive
+     * @param car
+     * @param city
+     * @param epochDay  the day of entry, as counted by LocalDate.toEpochDay()
+     * @return  the first rule in order of definition that is violated, or null if the entry is allowed
+     */
+    public ZoneRule findViolatedRule(Car car, String city, long epochDay) {
+        ZoneRule[] candidates = this.decisionTable[car.getCarType().ordinal()][car.getFuelType().ordinal()];
+        for (ZoneRule rule : candidates) {
+            if (rule.isViolatedByEmissionCategory(car.getEmissionCategory()) && rule.appliesTo(city, epochDay)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * quick check on the car only, before the city and date of a detection are considered
+     * @param car
+     * @return  false if the car cannot violate any of the rules in any city at any date
+     */
+    public boolean mayBeViolatedBy(Car car) {
+        ZoneRule[] candidates = this.decisionTable[car.getCarType().ordinal()][car.getFuelType().ordinal()];
+        for (ZoneRule rule : candidates) {
+            if (rule.isViolatedByEmissionCategory(car.getEmissionCategory())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<ZoneRule> getRules() {
+        return Collections.unmodifiableList(this.rules);
+    }
+
+    @Override
+    public String toString() {
+        return this.rules.toString();
+    }
+}
@@ -215,6 +215,25 @@ public class CarsListTest {
         testSearchForAll(cars, cars::indexOf);
     }
 
+    @Test
+    public void rangeAndPrefixQueriesCoverTheSortedSection() {
+        cars.sort();
+        cars.add(volvo2);
+
+        assertEquals(2, cars.lowerBound(daf1));
+        assertEquals(3, cars.upperBound(daf1));
+        assertEquals(List.of(daf1, volvo1, icova), cars.range(new Car("1-B"), new Car("A")));
+        assertEquals(List.of(scoda, kamaz), cars.prefixRange(Car::getLicensePlate, "1-AAA"));
+        assertEquals(List.of(volvo1, icova), cars.prefixRange(Car::getLicensePlate, "1-TTT"),
+                "prefix queries shall only consider the sorted section");
+        assertTrue(cars.prefixRange(Car::getLicensePlate, "B").isEmpty());
+        assertTrue(cars.range(new Car("Z"), new Car("A")).isEmpty());
+
+        cars.sort();
+        assertEquals(List.of(volvo1, volvo2, icova), cars.prefixRange(Car::getLicensePlate, "1-TTT"));
+        assertEquals(initialCars.size() + 1, cars.prefixRange(Car::getLicensePlate, "").size());
+    }
+
     /**
      * checks whether a searcher can find all items in its list
      * this should work both for OrderedLists and regular Lists
@@ -0,0 +1,114 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentOrderedListTest {
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+    }
+
+    @Test
+    public void concurrentMergesAreAtomicPerKey() {
+        ConcurrentOrderedList<Violation> violations =
+                new ConcurrentOrderedList<>(Violation::compareByLicensePlateAndCity);
+        List<Car> cars = new ArrayList<>();
+        for (int c = 0; c < 10; c++) {
+            cars.add(new Car("CAR-" + c));
+        }
+
+        IntStream.range(0, 20_000).parallel().forEach(i -> {
+            violations.merge(new Violation(cars.get(i % 10), i % 3 == 0 ? "Amsterdam" : "Leiden", 10.0),
+                    Violation::combineOffencesCounts);
+            if (i % 1000 == 0) {
+                // snapshots taken while merges are going on shall be sorted and consistent
+                List<Violation> snapshot = new ArrayList<>(violations);
+                for (int v = 1; v < snapshot.size(); v++) {
+                    assertTrue(Violation.compareByLicensePlateAndCity(snapshot.get(v - 1), snapshot.get(v)) < 0);
+                }
+            }
+        });
+
+        assertEquals(20, violations.size());
+        assertEquals(20_000, violations.aggregate(violation -> (double) violation.getOffencesCount()));
+        assertEquals(200_000.0, violations.aggregate(Violation::getFines));
+        int index = violations.indexOfByBinarySearch(new Violation(cars.get(3), "Leiden"));
+        assertEquals(cars.get(3), violations.get(index).getCar());
+        assertEquals("Leiden", violations.get(index).getCity());
+        assertEquals(-1, violations.indexOfByBinarySearch(new Violation(cars.get(3), "Utrecht")));
+    }
+
+    @Test
+    public void addRefusesDuplicatesAndKeepsOrder() {
+        ConcurrentOrderedList<Integer> numbers = new ConcurrentOrderedList<>(Comparator.naturalOrder());
+        SecondaryIndex<Integer> descending = numbers.addSecondaryIndex(Comparator.reverseOrder());
+        assertTrue(numbers.addAll(List.of(5, 3, 9, 1)));
+        assertFalse(numbers.add(3));
+        numbers.sort();
+        assertEquals(List.of(1, 3, 5, 9), numbers);
+        assertEquals(List.of(9, 5, 3, 1), descending);
+
+        assertTrue(numbers.merge(4, Integer::sum));
+        assertFalse(numbers.merge(4, (a, b) -> a));
+        assertEquals(Integer.valueOf(3), numbers.remove(1));
+        assertEquals(List.of(1, 4, 5, 9), numbers);
+        assertEquals(2, numbers.indexOf(5));
+        assertThrows(IndexOutOfBoundsException.class, () -> numbers.remove(4));
+        assertEquals(List.of(9, 5, 4, 1), descending);
+
+        numbers.clear();
+        assertTrue(numbers.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> numbers.sort(Comparator.reverseOrder()));
+    }
+
+    @Test
+    public void indexesFollowEveryChangeWithoutASnapshotInBetween() {
+        ConcurrentOrderedList<Violation> violations =
+                new ConcurrentOrderedList<>(Violation::compareByLicensePlateAndCity);
+        SecondaryIndex<Violation> byCount = violations.addSecondaryIndex(Comparator.comparing(Violation::getOffencesCount));
+        Car car = new Car("CAR-1");
+
+        violations.add(new Violation(car, "Amsterdam"));
+        assertEquals(1, byCount.size());
+        violations.add(new Violation(car, "Leiden"));
+        assertEquals(2, byCount.size());
+
+        violations.merge(new Violation(car, "Leiden"), Violation::combineOffencesCounts);
+        assertEquals("Leiden", byCount.get(1).getCity());
+        assertEquals(2, byCount.get(1).getOffencesCount());
+
+        violations.remove(byCount.get(0));
+        assertEquals(1, byCount.size());
+        assertEquals("Leiden", byCount.get(0).getCity());
+        violations.clear();
+        assertTrue(byCount.isEmpty());
+    }
+
+    @Test
+    public void parallelImportFindsTheSameViolationsAsSequentialImport() {
+        TrafficTracker sequential = new TrafficTracker();
+        sequential.importCarsFromVault("/2023-09/cars.txt");
+        sequential.importDetectionsFromVault("/2023-09/detections");
+
+        TrafficTracker parallel = new TrafficTracker();
+        parallel.importCarsFromVault("/2023-09/cars.txt");
+        parallel.importDetectionsFromVaultInParallel("/2023-09/detections");
+
+        assertEquals(sequential.getCars().size(), parallel.getCars().size());
+        assertEquals(sequential.getViolations().size(), parallel.getViolations().size());
+        for (int i = 0; i < sequential.getViolations().size(); i++) {
+            assertEquals(sequential.getViolations().get(i).toString(), parallel.getViolations().get(i).toString());
+        }
+        assertEquals(sequential.calculateTotalFines(), parallel.calculateTotalFines(), 0.001);
+    }
+}
@@ -0,0 +1,135 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DetectionArchiveTest {
+    private final static String VAULT_NAME = "/2023-09";
+
+    @TempDir
+    Path tempDir;
+    File archiveFile;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        archiveFile = tempDir.resolve("detections.bin").toFile();
+    }
+
+    @Test
+    public void archiveReplaysAllDetections() {
+        TrafficTracker converter = new TrafficTracker();
+        converter.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        int registrySize = converter.getCars().size();
+        long numberOfRecords = converter.convertDetectionsToArchive(VAULT_NAME + "/detections", archiveFile);
+
+        DetectionArchive archive = DetectionArchive.open(archiveFile);
+        assertEquals(numberOfRecords, archive.getNumberOfRecords());
+        assertEquals(registrySize, archive.getRegistrySize());
+        assertEquals(6, archive.getCities().length);
+        assertEquals(converter.getCars().size() - registrySize, archive.getUnregisteredPlates().length);
+        assertEquals(64 + numberOfRecords * DetectionArchive.RECORD_BYTES, archiveFile.length(), 64 + 32 * 1024,
+                "the archive shall be compact: fixed size records plus small dictionaries");
+
+        long[] count = { 0 };
+        archive.replay((plateId, cityId, epochSecond) -> {
+            assertTrue(plateId >= 0 && plateId < converter.getCars().size());
+            assertTrue(cityId >= 0 && cityId < 6);
+            count[0]++;
+        });
+        assertEquals(numberOfRecords, count[0]);
+    }
+
+    @Test
+    public void replayMatchesTextImport() {
+        TrafficTracker converter = new TrafficTracker();
+        converter.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        converter.convertDetectionsToArchive(VAULT_NAME + "/detections", archiveFile);
+
+        TrafficTracker textTracker = new TrafficTracker();
+        textTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        textTracker.importDetectionsFromVault(VAULT_NAME + "/detections");
+        textTracker.getViolations().sort();
+
+        TrafficTracker archiveTracker = new TrafficTracker();
+        archiveTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        archiveTracker.importDetectionsFromArchive(archiveFile);
+
+        assertEquals(textTracker.getCars().size(), archiveTracker.getCars().size());
+        assertEquals(textTracker.calculateTotalFines(), archiveTracker.calculateTotalFines());
+        assertEquals(describe(textTracker.getViolations()), describe(archiveTracker.getViolations()));
+        CarsListTest.checkRepresentationInvariant(archiveTracker.getViolations());
+    }
+
+    @Test
+    public void replayAppliesTheEnforcementPeriodsOfTheRules() {
+        ZoneRuleSet zoneRules = new ZoneRuleSet(List.of(
+                ZoneRule.fromLine("*, Truck, Diesel, 6, 2023-09-15, *, 25"),
+                ZoneRule.fromLine("*, Coach, Diesel, 6, *, 2023-09-14, 35")));
+        TrafficTracker converter = new TrafficTracker();
+        converter.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        converter.convertDetectionsToArchive(VAULT_NAME + "/detections", archiveFile);
+
+        TrafficTracker textTracker = new TrafficTracker();
+        textTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        textTracker.setZoneRules(zoneRules);
+        textTracker.importDetectionsFromVault(VAULT_NAME + "/detections");
+        textTracker.getViolations().sort();
+
+        TrafficTracker archiveTracker = new TrafficTracker();
+        archiveTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        archiveTracker.setZoneRules(zoneRules);
+        archiveTracker.importDetectionsFromArchive(archiveFile);
+
+        converter.importDetectionsFromArchive(archiveFile);
+        assertTrue(archiveTracker.calculateTotalFines() < converter.calculateTotalFines(),
+                "the bounded rules shall be enforced on fewer days than the purple rules");
+        assertEquals(textTracker.calculateTotalFines(), archiveTracker.calculateTotalFines());
+        assertEquals(describe(textTracker.getViolations()), describe(archiveTracker.getViolations()));
+    }
+
+    @Test
+    public void replayCanBeRepeated() {
+        TrafficTracker converter = new TrafficTracker();
+        converter.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        converter.convertDetectionsToArchive(VAULT_NAME + "/detections", archiveFile);
+        int numberOfCars = converter.getCars().size();
+
+        int offences = converter.importDetectionsFromArchive(archiveFile);
+        double totalFines = converter.calculateTotalFines();
+        assertEquals(numberOfCars, converter.getCars().size(),
+                "the unregistered cars of the conversion shall be reused");
+
+        assertEquals(offences, converter.importDetectionsFromArchive(archiveFile));
+        assertEquals(totalFines, converter.calculateTotalFines());
+        assertEquals(numberOfCars, converter.getCars().size());
+    }
+
+    @Test
+    public void replayRejectsADifferentRegistry() {
+        TrafficTracker converter = new TrafficTracker();
+        converter.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        converter.convertDetectionsToArchive(VAULT_NAME + "/detections", archiveFile);
+
+        TrafficTracker otherTracker = new TrafficTracker();
+        otherTracker.importCarsFromVault("/test1/cars.txt");
+        assertThrows(IllegalStateException.class, () -> otherTracker.importDetectionsFromArchive(archiveFile));
+    }
+
+    private static List<String> describe(List<Violation> violations) {
+        List<String> descriptions = new ArrayList<>();
+        for (Violation violation : violations) {
+            descriptions.add(violation + "/" + violation.getFines());
+        }
+        return descriptions;
+    }
+}
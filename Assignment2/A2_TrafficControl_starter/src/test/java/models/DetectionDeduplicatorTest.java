@@ -0,0 +1,274 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DetectionDeduplicatorTest {
+    private final static String VAULT_NAME = "/test1";
+
+    Car truck, coach;
+    LocalDateTime start;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        truck = new Car("1-TTT-01");
+        coach = new Car("1-CCC-01");
+        start = LocalDateTime.of(2023,9,1,8,0);
+    }
+
+    @Test
+    public void repeatsWithinTheWindowAreDuplicates() {
+        DetectionDeduplicator deduplicator = new DetectionDeduplicator(Duration.ofMinutes(10));
+
+        assertEquals(1, deduplicator.register(new Detection(truck, "Leiden", start)));
+        assertEquals(0, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(4))));
+        assertEquals(1, deduplicator.register(new Detection(truck, "Utrecht", start.plusMinutes(5))),
+                "a detection in another city is not a duplicate");
+        assertEquals(1, deduplicator.register(new Detection(coach, "Leiden", start.plusMinutes(6))),
+                "a detection of another car is not a duplicate");
+        assertEquals(0, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(13))),
+                "the window shall extend from the last detection of the car in the city");
+        assertEquals(1, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(30))));
+        assertEquals(2, deduplicator.getNumberOfDuplicates());
+    }
+
+    @Test
+    public void lateDetectionsGiveTheSameOutcomeAsTimeOrder() {
+        DetectionDeduplicator deduplicator = new DetectionDeduplicator(Duration.ofMinutes(10), Duration.ofHours(1), 100);
+
+        assertEquals(1, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(30))));
+        assertEquals(1, deduplicator.register(new Detection(truck, "Leiden", start)));
+        assertEquals(0, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(25))),
+                "a late detection before a sighting shall extend that sighting");
+        assertEquals(1, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(12))));
+        assertEquals(-1, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(18))),
+                "a late detection that bridges two sightings shall join them into one");
+        assertEquals(-1, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(5))));
+        assertEquals(0, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(8))));
+
+        // in time order: 0, 5, 8, 12, 18, 25, 30 form one sighting
+        assertEquals(6, deduplicator.getNumberOfDuplicates());
+        assertEquals(1, deduplicator.getNumberOfTrackedKeys());
+        assertEquals(0, deduplicator.getNumberOfLateDetections());
+    }
+
+    @Test
+    public void retractionsReportTheFirstDetectionThatWasCounted() {
+        DetectionDeduplicator deduplicator = new DetectionDeduplicator(Duration.ofMinutes(10), Duration.ofHours(1), 100);
+        List<String> changes = new ArrayList<>();
+        DetectionDeduplicator.SightingCounter counter =
+                (dateTime, change) -> changes.add(change + "@" + dateTime.toLocalTime());
+
+        deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(30)), counter);
+        deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(12)), counter);
+        assertEquals(List.of("1@08:30", "1@08:12"), changes);
+
+        changes.clear();
+        deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(25)), counter);
+        assertEquals(List.of("-1@08:30", "1@08:25"), changes,
+                "a late detection that precedes a sighting shall take over its count");
+
+        changes.clear();
+        deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(18)), counter);
+        assertEquals(List.of("-1@08:25"), changes,
+                "a late detection that joins two sightings shall retract the later one by its first detection");
+
+        changes.clear();
+        deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(5)), counter);
+        assertEquals(List.of("-1@08:12", "1@08:05"), changes,
+                "a late detection that precedes a sighting shall take over its count");
+
+        changes.clear();
+        deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(8)), counter);
+        assertEquals(List.of(), changes);
+    }
+
+    @Test
+    public void sightingsExpireBehindTheNewestDetection() {
+        DetectionDeduplicator deduplicator = new DetectionDeduplicator(Duration.ofMinutes(10), Duration.ofMinutes(30), 1000);
+
+        for (int i = 0; i < 100; i++) {
+            deduplicator.register(new Detection(new Car("C-" + i), "Leiden", start.plusSeconds(i)));
+        }
+        assertEquals(100, deduplicator.getNumberOfTrackedKeys());
+        assertEquals(1, deduplicator.register(new Detection(truck, "Leiden", start.plusMinutes(30))));
+        assertEquals(101, deduplicator.getNumberOfTrackedKeys(),
+                "sightings within the window plus maxLateness shall be retained");
+        assertEquals(0, deduplicator.register(new Detection(new Car("C-0"), "Leiden", start.plusMinutes(5))));
+
+        assertEquals(1, deduplicator.register(new Detection(truck, "Leiden", start.plusHours(2))));
+        assertEquals(1, deduplicator.getNumberOfTrackedKeys(),
+                "sightings that ended more than the window plus maxLateness ago shall be forgotten");
+        assertEquals(1, deduplicator.register(new Detection(new Car("C-0"), "Leiden", start.plusMinutes(6))),
+                "a detection beyond maxLateness cannot join a forgotten sighting");
+        assertEquals(1, deduplicator.getNumberOfLateDetections());
+    }
+
+    @Test
+    public void excessKeysAreForgotten() {
+        DetectionDeduplicator deduplicator = new DetectionDeduplicator(Duration.ofMinutes(10), 100);
+
+        for (int i = 0; i < 50; i++) {
+            deduplicator.register(new Detection(new Car("C-" + i), "Leiden", start.plusSeconds(i)));
+        }
+        assertEquals(50, deduplicator.getNumberOfTrackedKeys());
+
+        for (int i = 0; i < 500; i++) {
+            deduplicator.register(new Detection(new Car("C-" + i), "Leiden", start.plusHours(2)));
+        }
+        assertEquals(100, deduplicator.getNumberOfTrackedKeys());
+    }
+
+    @Test
+    public void trafficTrackerSkipsDuplicateDetections() throws URISyntaxException, FileNotFoundException {
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        trafficTracker.setDeduplicationWindow(Duration.ofDays(3), Duration.ofDays(31));
+        trafficTracker.importDetectionsFromVault(VAULT_NAME + "/detections");
+
+        // 227-HX-3 was seen in Amsterdam on 09-03 and again on 09-05, within 3 days
+        assertEquals(6, trafficTracker.getViolations().stream().mapToInt(Violation::getOffencesCount).sum());
+        assertEquals(150.0, trafficTracker.calculateTotalFines());
+        assertEquals(countDuplicatesInTimeOrder(VAULT_NAME, Duration.ofDays(3)),
+                trafficTracker.getDeduplicator().getNumberOfDuplicates());
+
+        trafficTracker.setDeduplicationWindow(null);
+        trafficTracker.importDetectionsFromVault(VAULT_NAME + "/detections");
+        assertEquals(7, trafficTracker.getViolations().stream().mapToInt(Violation::getOffencesCount).sum());
+    }
+
+    @Test
+    public void duplicatesAcrossUnorderedFilesMatchTimeOrder() throws URISyntaxException, FileNotFoundException {
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault("/2023-09/cars.txt");
+        trafficTracker.setDeduplicationWindow(Duration.ofHours(1), Duration.ofDays(31));
+        trafficTracker.importDetectionsFromVault("/2023-09/detections");
+
+        assertEquals(countDuplicatesInTimeOrder("/2023-09", Duration.ofHours(1)),
+                trafficTracker.getDeduplicator().getNumberOfDuplicates());
+    }
+
+    @Test
+    public void deduplicatedOffencesOfDateBoundedRulesMatchTimeOrder(@TempDir Path tempDir)
+            throws URISyntaxException, FileNotFoundException {
+        // a sighting may start before the validFrom of a rule, or end after its validUntil
+        ZoneRuleSet zoneRules = new ZoneRuleSet(List.of(
+                ZoneRule.fromLine("*, Truck, Diesel, 6, 2023-09-15, *, 25"),
+                ZoneRule.fromLine("*, Coach, Diesel, 6, *, 2023-09-14, 35")));
+        Duration window = Duration.ofDays(1);
+
+        TrafficTracker textTracker = new TrafficTracker();
+        textTracker.importCarsFromVault("/2023-09/cars.txt");
+        textTracker.setZoneRules(zoneRules);
+        textTracker.setDeduplicationWindow(window, Duration.ofDays(31));
+        textTracker.importDetectionsFromVault("/2023-09/detections");
+
+        Map<String, String> expected = countOffencesInTimeOrder("/2023-09", textTracker.getCars(), zoneRules, window);
+        assertEquals(expected, describe(textTracker.getViolations()));
+
+        File archiveFile = tempDir.resolve("detections.bin").toFile();
+        TrafficTracker archiveTracker = new TrafficTracker();
+        archiveTracker.importCarsFromVault("/2023-09/cars.txt");
+        archiveTracker.setZoneRules(zoneRules);
+        archiveTracker.convertDetectionsToArchive("/2023-09/detections", archiveFile);
+        archiveTracker.setDeduplicationWindow(window, Duration.ofDays(31));
+        archiveTracker.importDetectionsFromArchive(archiveFile);
+        assertEquals(expected, describe(archiveTracker.getViolations()));
+    }
+
+    private static Map<String, String> describe(List<Violation> violations) {
+        Map<String, String> descriptions = new TreeMap<>();
+        for (Violation violation : violations) {
+            assertTrue(violation.getOffencesCount() > 0, "no violation shall remain without offences");
+            descriptions.put(violation.getCar().getLicensePlate() + "/" + violation.getCity(),
+                    violation.getOffencesCount() + "/" + violation.getFines());
+        }
+        return descriptions;
+    }
+
+    /**
+     * counts the offences of a vault by processing all its detections in time order,
+     * where every sighting offends by its first detection
+     */
+    private static Map<String, String> countOffencesInTimeOrder(String vaultName, List<Car> registry,
+                                                                ZoneRuleSet zoneRules, Duration window)
+            throws URISyntaxException, FileNotFoundException {
+        List<Car> cars = new ArrayList<>(registry);
+        List<Detection> detections = new ArrayList<>();
+        File folder = new File(DetectionDeduplicatorTest.class.getResource(vaultName + "/detections").toURI());
+        collectDetections(folder, cars, new CityDictionary(), detections);
+        detections.sort(Comparator.comparing(Detection::getDateTime));
+
+        Map<String, LocalDateTime> lastSeenByKey = new HashMap<>();
+        Map<String, Integer> offencesByKey = new TreeMap<>();
+        Map<String, Double> finesByKey = new HashMap<>();
+        for (Detection detection : detections) {
+            String key = detection.getCar().getLicensePlate() + "/" + detection.getCity();
+            LocalDateTime lastSeen = lastSeenByKey.put(key, detection.getDateTime());
+            if (lastSeen != null && Duration.between(lastSeen, detection.getDateTime()).compareTo(window) < 0) continue;
+
+            ZoneRule rule = zoneRules.findViolatedRule(detection.getCar(), detection.getCity(),
+                    detection.getDateTime().toLocalDate());
+            if (rule != null) {
+                offencesByKey.merge(key, 1, Integer::sum);
+                finesByKey.merge(key, rule.getFine(), Double::sum);
+            }
+        }
+
+        Map<String, String> descriptions = new TreeMap<>();
+        offencesByKey.forEach((key, offences) -> descriptions.put(key, offences + "/" + finesByKey.get(key)));
+        return descriptions;
+    }
+
+    /**
+     * counts the duplicates of a vault by processing all its detections in time order,
+     * as a reference for the deduplicator which sees the detections in file order
+     */
+    private static long countDuplicatesInTimeOrder(String vaultName, Duration window)
+            throws URISyntaxException, FileNotFoundException {
+        List<Car> cars = new ArrayList<>();
+        List<Detection> detections = new ArrayList<>();
+        File folder = new File(DetectionDeduplicatorTest.class.getResource(vaultName + "/detections").toURI());
+        collectDetections(folder, cars, new CityDictionary(), detections);
+        detections.sort(Comparator.comparing(Detection::getDateTime));
+
+        Map<String, LocalDateTime> lastSeenByKey = new HashMap<>();
+        long numberOfDuplicates = 0;
+        for (Detection detection : detections) {
+            String key = detection.getCar().getLicensePlate() + "/" + detection.getCity();
+            LocalDateTime lastSeen = lastSeenByKey.put(key, detection.getDateTime());
+            if (lastSeen != null && Duration.between(lastSeen, detection.getDateTime()).compareTo(window) < 0) {
+                numberOfDuplicates++;
+            }
+        }
+        return numberOfDuplicates;
+    }
+
+    private static void collectDetections(File file, List<Car> cars, CityDictionary cities, List<Detection> detections)
+            throws FileNotFoundException {
+        if (file.isDirectory()) {
+            for (File f : Objects.requireNonNull(file.listFiles())) {
+                collectDetections(f, cars, cities, detections);
+            }
+        } else if (file.getName().endsWith(".txt")) {
+            try (Scanner scanner = new Scanner(file)) {
+                while (scanner.hasNext()) {
+                    Detection detection = Detection.fromLine(scanner.nextLine(), cars, cities, ParseErrorHandler.IGNORE);
+                    if (detection != null) detections.add(detection);
+                }
+            }
+        }
+    }
+}
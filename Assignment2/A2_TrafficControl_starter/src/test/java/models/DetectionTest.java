@@ -50,6 +50,21 @@ public class DetectionTest {
         assertEquals(LocalDateTime.of(2022,10,1,12,11,10), detection3.getDateTime());
     }
 
+    @Test
+    public void detectionsInTheSameCityShareTheirCityName() {
+        CityDictionary cities = new CityDictionary();
+        Detection detection1 = Detection.fromLine("1-AAA-02, Den Haag, 2022-10-01T12:11:10", cars, cities, ParseErrorHandler.PRINT);
+        Detection detection2 = Detection.fromLine("AA-11-BB,Den Haag ,2022-10-01T12:11:10", cars, cities, ParseErrorHandler.PRINT);
+        Detection detection3 = Detection.fromLine("AA-11-BB, Leiden, 2022-10-01T12:11:10", cars, cities, ParseErrorHandler.PRINT);
+
+        assertEquals("Den Haag", detection1.getCity());
+        assertSame(detection1.getCity(), detection2.getCity());
+        assertEquals(2, cities.size());
+        assertEquals(1, cities.idOf("Leiden"));
+        assertEquals(0, cities.idOf("to Den Haag!", 3, 11));
+        assertSame(detection3.getCity(), cities.nameOf(1));
+    }
+
     @Test
     public void aDetectionHasAStringRepresentation() {
         Detection detection1 = new Detection(scoda, "Leiden", LocalDateTime.of(2022,10,1,12,11,10));
@@ -0,0 +1,76 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImportStatisticsTest {
+
+    TrafficTracker trafficTracker;
+    ImportStatistics statistics;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault("/test1/cars.txt");
+        statistics = new ImportStatistics();
+        trafficTracker.setImportMetrics(statistics);
+    }
+
+    @Test
+    public void importStagesAreMeasured() {
+        trafficTracker.importDetectionsFromVault("/test1/detections");
+
+        assertEquals(2, statistics.getNumberOfFiles());
+        assertEquals(100, statistics.getNumberOfLines());
+        assertEquals(100, statistics.getNumberOfDetections());
+        assertEquals(0, statistics.getNumberOfParseErrors());
+        assertEquals(2, statistics.getNumberOfUnknownCars());
+        assertEquals(7, statistics.getNumberOfOffences());
+        assertTrue(statistics.getParseMillis() > 0);
+        assertTrue(statistics.getLinesPerSecond() > 0);
+        assertTrue(statistics.getPeakHeapUsedBytes() >= statistics.getLastHeapUsedBytes());
+        assertTrue(statistics.getLastHeapUsedBytes() > 0);
+        assertNotNull(statistics.getSlowestFile());
+
+        statistics.reset();
+        assertEquals(0, statistics.getNumberOfLines());
+        assertNull(statistics.getSlowestFile());
+
+        trafficTracker.setImportMetrics(null);
+        trafficTracker.importDetectionsFromVault("/test1/detections");
+        assertEquals(0, statistics.getNumberOfFiles(), "no measurements after the metrics have been removed");
+    }
+
+    @Test
+    public void parallelImportIsMeasuredToo() {
+        trafficTracker.importDetectionsFromVaultInParallel("/test1/detections");
+
+        assertEquals(2, statistics.getNumberOfFiles());
+        assertEquals(100, statistics.getNumberOfLines());
+        assertEquals(2, statistics.getNumberOfUnknownCars());
+        assertEquals(7, statistics.getNumberOfOffences());
+    }
+
+    @Test
+    public void statisticsAreExposedThroughJmx() throws Exception {
+        ObjectName name = statistics.registerMBean("test1");
+        trafficTracker.importDetectionsFromVault("/test1/detections");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(100L, server.getAttribute(name, "NumberOfLines"));
+        assertEquals(7L, server.getAttribute(name, "NumberOfOffences"));
+
+        // registering again under the same name replaces the earlier registration
+        new ImportStatistics().registerMBean("test1");
+        assertEquals(0L, server.getAttribute(name, "NumberOfLines"));
+        server.unregisterMBean(name);
+    }
+}
@@ -0,0 +1,87 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiveViolationTrackerTest {
+    private final static String VAULT_NAME = "/test1";
+
+    TrafficTracker trafficTracker;
+    LiveViolationTracker liveTracker;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        liveTracker = trafficTracker.startLiveTracking();
+    }
+
+    @Test
+    public void liveFeedMatchesBatchImport() throws Exception {
+        // feed all detection lines of the vault one at a time
+        for (String city : List.of("Amsterdam/0.txt", "Rotterdam/1.txt")) {
+            File file = new File(TrafficTracker.class.getResource(VAULT_NAME + "/detections/" + city).toURI());
+            List<String> lines = new ArrayList<>();
+            TrafficTracker.importItemsFromFile(lines, file, line -> line);
+            for (String line : lines) {
+                liveTracker.acceptLine(line);
+            }
+        }
+
+        assertEquals(100, liveTracker.getTotalNumberOfDetections());
+        assertEquals(7, liveTracker.getTotalNumberOfOffences());
+        assertEquals(175.0, liveTracker.getTotalFines());
+        assertEquals(10, trafficTracker.getCars().size(),
+                "unknown cars in the live feed should not have been added to the shared cars of the tracker");
+        assertEquals(2, liveTracker.getUnregisteredCars().size());
+
+        trafficTracker.importDetectionsFromVault(VAULT_NAME + "/detections");
+        List<Violation> violations = liveTracker.getViolations();
+        assertEquals(trafficTracker.getViolations().size(), violations.size());
+        for (Violation violation : violations) {
+            int index = trafficTracker.getViolations().indexOf(violation);
+            assertEquals(trafficTracker.getViolations().get(index).getOffencesCount(), violation.getOffencesCount());
+        }
+
+        List<Violation> topByCar = liveTracker.topViolationsByCar(3);
+        assertEquals(1, topByCar.size());
+        assertEquals("227-HX-3/null/7", topByCar.get(0).toString());
+        List<Violation> topByCity = liveTracker.topViolationsByCity(3);
+        assertEquals(List.of("227-HX-3/Amsterdam/5", "227-HX-3/Rotterdam/2"),
+                topByCity.stream().map(Violation::toString).toList());
+    }
+
+    @Test
+    public void rankingsFollowEveryEvent() {
+        Car truck1 = new Car("1-TTT-01", 5, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        Car truck2 = new Car("1-TTT-02", 4, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        Car coach = new Car("1-CCC-01", 5, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        LocalDateTime now = LocalDateTime.of(2023,9,1,12,0);
+
+        liveTracker.accept(new Detection(truck1, "Leiden", now));
+        assertEquals(truck1, liveTracker.topViolationsByCar(1).get(0).getCar());
+
+        assertEquals(2, liveTracker.acceptAll(List.of(
+                new Detection(truck2, "Utrecht", now), new Detection(truck2, "Leiden", now))));
+        assertEquals(truck2, liveTracker.topViolationsByCar(1).get(0).getCar());
+        assertEquals("Leiden", liveTracker.topViolationsByCity(1).get(0).getCity());
+
+        liveTracker.accept(new Detection(coach, "Utrecht", now));
+        liveTracker.accept(new Detection(coach, "Utrecht", now));
+        liveTracker.accept(new Detection(coach, "Utrecht", now));
+        assertEquals(coach, liveTracker.topViolationsByCar(1).get(0).getCar());
+        assertEquals("Utrecht", liveTracker.topViolationsByCity(1).get(0).getCity());
+        assertEquals(4, liveTracker.topViolationsByCity(2).get(0).getOffencesCount());
+        assertEquals(3 * 25 + 3 * 35, liveTracker.getTotalFines());
+    }
+}
@@ -0,0 +1,116 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapViolationTableTest {
+
+    Car volvo1, volvo2, daf1;
+    List<Car> cars;
+    CityDictionary cities;
+    int amsterdam, rotterdam, utrecht;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        volvo1 = new Car("1-TTT-01", 5, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        volvo2 = new Car("1-TTT-02", 4, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2011,1,31));
+        daf1 = new Car("1-CCC-01", 5, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        cars = List.of(volvo1, volvo2, daf1);
+        cities = new CityDictionary();
+        amsterdam = cities.idOf("Amsterdam");
+        rotterdam = cities.idOf("Rotterdam");
+        utrecht = cities.idOf("Utrecht");
+    }
+
+    @Test
+    public void tableGrowsBeyondItsInitialCapacity() {
+        ViolationTable table = new OffHeapViolationTable();
+        for (int carIndex = 0; carIndex < 1000; carIndex++) {
+            for (int cityId = 0; cityId < 3; cityId++) {
+                table.addOffences(carIndex, cityId, carIndex + cityId);
+            }
+        }
+        assertEquals(3000, table.size());
+        assertEquals(999 + 2, table.getOffencesCount(999, 2));
+        assertEquals(0, table.getOffencesCount(1000, 0));
+
+        long[] total = { 0 };
+        table.forEach((carIndex, cityId, offencesCount) -> {
+            assertEquals(carIndex + cityId, offencesCount);
+            total[0] += offencesCount;
+        });
+        assertEquals(table.totalOffences(), total[0]);
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(0, table.totalOffences());
+        assertEquals(0, table.getOffencesCount(999, 2));
+    }
+
+    @Test
+    public void topViolationsAggregateByCarAndByCity() {
+        ViolationTable table = new OffHeapViolationTable();
+        table.addOffences(0, amsterdam, 3);
+        table.addOffences(0, rotterdam, 2);
+        table.addOffences(1, amsterdam, 4);
+        table.addOffences(2, utrecht, 1);
+        table.addOffences(1, amsterdam, 2);
+
+        ViolationTable.FineSchedule schedule = (carIndex, cityId) -> cityId == amsterdam ? 25.0 : 35.0;
+
+        List<Violation> byCar = table.topViolationsByCar(2, cars, cities::nameOf, schedule);
+        assertEquals(2, byCar.size());
+        assertEquals(volvo2, byCar.get(0).getCar());
+        assertEquals(6, byCar.get(0).getOffencesCount());
+        assertEquals("Amsterdam", byCar.get(0).getCity());
+        assertEquals(6 * 25.0, byCar.get(0).getFines());
+        assertEquals(volvo1, byCar.get(1).getCar());
+        assertEquals(5, byCar.get(1).getOffencesCount());
+        assertEquals(3 * 25.0 + 2 * 35.0, byCar.get(1).getFines());
+        assertNull(byCar.get(1).getCity(), "volvo1 offended in multiple cities");
+
+        List<Violation> byCity = table.topViolationsByCity(5, cars, cities::nameOf, cities.size(), schedule);
+        assertEquals(3, byCity.size());
+        assertEquals("Amsterdam", byCity.get(0).getCity());
+        assertEquals(9, byCity.get(0).getOffencesCount());
+        assertEquals(9 * 25.0, byCity.get(0).getFines());
+        assertNull(byCity.get(0).getCar());
+        assertEquals(volvo1, byCity.get(1).getCar());
+        assertEquals(daf1, byCity.get(2).getCar());
+    }
+
+    @Test
+    public void totalFinesApplyTheScheduleToEveryEntry() {
+        ViolationTable table = new OffHeapViolationTable();
+        table.addOffences(0, amsterdam, 3);
+        table.addOffences(2, rotterdam, 2);
+
+        double fines = table.totalFines((carIndex, cityId) ->
+                ZoneRuleSet.PURPLE.findViolatedRule(cars.get(carIndex), cities.nameOf(cityId), LocalDate.now()).getFine());
+        assertEquals(3 * 25 + 2 * 35, fines);
+    }
+
+    @Test
+    public void batchValidationAgreesWithTheHeapTable() {
+        PurpleZoneValidator validator = new PurpleZoneValidator(cars);
+        int[] carIndices = { 0, 1, 2, 0, 1, 2, 0 };
+        int[] cityIds =    { amsterdam, amsterdam, utrecht, rotterdam, amsterdam, utrecht, amsterdam };
+
+        ViolationTable heapTable = new ArrayViolationTable();
+        ViolationTable offHeapTable = new OffHeapViolationTable(4);
+        validator.validateBatch(carIndices, cityIds, carIndices.length, heapTable);
+        validator.validateBatch(carIndices, cityIds, carIndices.length, offHeapTable);
+
+        assertEquals(heapTable.size(), offHeapTable.size());
+        assertEquals(heapTable.totalOffences(), offHeapTable.totalOffences());
+        heapTable.forEach((carIndex, cityId, offencesCount) ->
+                assertEquals(offencesCount, offHeapTable.getOffencesCount(carIndex, cityId)));
+    }
+}
@@ -0,0 +1,105 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelCarsLoaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+    }
+
+    @Test
+    public void parallelImportYieldsTheSameCarsAsSequentialImport() {
+        TrafficTracker sequential = new TrafficTracker();
+        sequential.importCarsFromVault("/2023-09/cars.txt");
+        TrafficTracker parallel = new TrafficTracker();
+        parallel.importCarsFromVaultInParallel("/2023-09/cars.txt");
+
+        assertEquals(sequential.getCars().size(), parallel.getCars().size());
+        for (int i = 0; i < sequential.getCars().size(); i++) {
+            Car expected = sequential.getCars().get(i);
+            Car actual = parallel.getCars().get(i);
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(expected.getDateOfAdmission(), actual.getDateOfAdmission());
+        }
+        CarsListTest.checkRepresentationInvariant(parallel.getCars());
+    }
+
+    @Test
+    public void smallChunksSplitAtLineBoundariesAndSkipCorruptLines() throws IOException {
+        File file = tempDir.resolve("cars.txt").toFile();
+        Files.writeString(file.toPath(),
+                "ZZ-99-ZZ, 6, Car, Gasoline, 2018-07-25\r\n" +
+                "\n" +
+                "AA-11-BB ,4,Car ,Diesel, 1998-01-31\n" +
+                "1-TTT-01, 5, Truck, Diesel, 2009-02-30\n" +
+                "1-TTT-02, +6, Truck, Diesel, 2011-01-31\n" +
+                "1-CCC-01, 5, Bike, Diesel\n" +
+                "1-CCC-02, 5, Coach, Diesel, 2009-01-31, extra");
+
+        for (int minChunkBytes = 1; minChunkBytes <= 64; minChunkBytes *= 2) {
+            List<Car> cars = new ArrayList<>();
+            assertEquals(7, ParallelCarsLoader.importCarsFromFile(file, cars, ParseErrorHandler.PRINT, minChunkBytes));
+
+            assertEquals(4, cars.size(), "chunks of " + minChunkBytes + " bytes");
+            assertEquals("1-CCC-02", cars.get(0).getLicensePlate());
+            assertEquals("1-TTT-02/6/Truck/Diesel", cars.get(1).toString());
+            assertEquals("AA-11-BB/4/Car/Diesel", cars.get(2).toString());
+            assertEquals(LocalDate.of(1998, 1, 31), cars.get(2).getDateOfAdmission());
+            assertEquals("ZZ-99-ZZ", cars.get(3).getLicensePlate());
+        }
+    }
+
+    @Test
+    public void bothLoadersAgreeOnADirtyFile() throws IOException {
+        File file = tempDir.resolve("cars.txt").toFile();
+        Files.writeString(file.toPath(),
+                "ZZ-99-ZZ, 6, Car, Gasoline, 2018-07-25\n" +
+                ", 5, Truck, Diesel, 2009-01-31\n" +
+                "   , 5, Coach, Diesel, 2009-01-31\n" +
+                "1-TTT-01, , Truck, Diesel, 2009-01-31\n" +
+                "1-TTT-02, 6, truck, Diesel, 2011-01-31\n" +
+                "1-TTT-03, 6, Truck, Diesel, 2011-1-31\n" +
+                "1-TTT-04, -1, Truck, Diesel, 2011-01-31\n" +
+                "1-CCC-01, 5, Coach, Diesel, 2009-01-31\n" +
+                "# 1-CCC-02, 5, Coach, Diesel, 2009-01-31\n" +
+                " 1-CCC-03 ,5 , Coach , Diesel , 2009-01-31 \n" +
+                "1-CCC-04\n");
+
+        List<String> sequentialErrors = new ArrayList<>();
+        TrafficTracker sequential = new TrafficTracker();
+        sequential.setParseErrorHandler((entity, textLine, reason) -> sequentialErrors.add(textLine));
+        sequential.importCarsFromFile(file);
+
+        List<String> parallelErrors = new ArrayList<>();
+        List<Car> parallel = new ArrayList<>();
+        ParallelCarsLoader.importCarsFromFile(file, parallel,
+                (entity, textLine, reason) -> parallelErrors.add(textLine), 16);
+
+        assertEquals(sequential.getCars().size(), parallel.size());
+        for (int i = 0; i < parallel.size(); i++) {
+            assertEquals(sequential.getCars().get(i).toString(), parallel.get(i).toString());
+            assertFalse(parallel.get(i).getLicensePlate().isEmpty(), "a car shall have a license plate");
+        }
+        sequentialErrors.sort(null);
+        parallelErrors.sort(null);
+        assertEquals(sequentialErrors, parallelErrors);
+    }
+}
@@ -0,0 +1,107 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParseReportTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+    }
+
+    @Test
+    public void validLinesAreParsedAsBefore() {
+        ParseReport report = new ParseReport(10);
+        Car car = Car.fromLine(" AB-12-CD , 5, Truck ,Diesel, 2020-02-29", report);
+        assertEquals("AB-12-CD/5/Truck/Diesel", car.toString());
+        assertEquals(LocalDate.of(2020, 2, 29), car.getDateOfAdmission());
+
+        List<Car> cars = new ArrayList<>(List.of(car));
+        Detection detection = Detection.fromLine("AB-12-CD, Amsterdam, 2023-09-01T08:15:30.5", cars, report);
+        assertSame(car, detection.getCar());
+        assertEquals("Amsterdam", detection.getCity());
+        assertEquals(LocalDateTime.of(2023, 9, 1, 8, 15, 30, 500_000_000), detection.getDateTime());
+        assertEquals(LocalDateTime.of(2023, 9, 1, 8, 15),
+                Detection.fromLine("ZZ-99-ZZ,Rotterdam,2023-09-01T08:15", cars, report).getDateTime());
+        assertEquals(2, cars.size(), "the unknown car has been added");
+
+        assertEquals(0, report.getNumberOfErrors());
+    }
+
+    @Test
+    public void corruptLinesAreCountedWithBoundedSamples() {
+        ParseReport report = new ParseReport(2);
+        List<Car> cars = new ArrayList<>();
+        String[] carLines = {
+                "AB-12-CD, x5, Truck, Diesel, 2020-01-01",
+                "AB-12-CD, 5, Bike, Diesel, 2020-01-01",
+                "AB-12-CD, 5, Truck, Diesel, 2021-02-29",
+                "AB-12-CD, 5, Truck, Diesel, 01-01-2020",
+        };
+        for (String line : carLines) {
+            assertNull(Car.fromLine(line, report));
+        }
+        assertNull(Car.fromLine("AB-12-CD, 5, Truck", report), "incomplete lines are skipped silently");
+        assertNull(Detection.fromLine("AB-12-CD, Amsterdam", cars, report));
+        assertNull(Detection.fromLine("AB-12-CD, Amsterdam, 2023-09-01T25:00", cars, report));
+        assertTrue(cars.isEmpty(), "no car is added for a rejected detection");
+
+        assertEquals(6, report.getNumberOfErrors());
+        assertEquals(2, report.getSamples().size());
+        assertEquals("Car: For input string: \"x5\" in '" + carLines[0] + "'", report.getSamples().get(0));
+        assertEquals("Car: No enum constant models.Car.CarType.Bike in '" + carLines[1] + "'", report.getSamples().get(1));
+    }
+
+    @Test
+    public void integersAreParsedOverTheirFullRange() {
+        ParseReport report = new ParseReport(10);
+        assertEquals(Integer.MAX_VALUE,
+                Car.fromLine("AB-12-CD, 2147483647, Truck, Diesel, 2020-01-01", report).getEmissionCategory());
+        assertEquals(5, Car.fromLine("AB-12-CD, 00000000005, Truck, Diesel, 2020-01-01", report).getEmissionCategory());
+        assertEquals(0, report.getNumberOfErrors());
+
+        assertNull(Car.fromLine("AB-12-CD, 2147483648, Truck, Diesel, 2020-01-01", report));
+        assertNull(Car.fromLine("AB-12-CD, 99999999999999999999, Truck, Diesel, 2020-01-01", report));
+        assertEquals(2, report.getNumberOfErrors());
+        assertEquals("Car: For input string: \"2147483648\" in 'AB-12-CD, 2147483648, Truck, Diesel, 2020-01-01'",
+                report.getSamples().get(0));
+    }
+
+    @Test
+    public void rejectedLinesAreQuarantined() throws IOException {
+        File quarantineFile = tempDir.resolve("quarantine.txt").toFile();
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault("/test1/cars.txt");
+        try (ParseReport report = new ParseReport(0, quarantineFile)) {
+            trafficTracker.setParseErrorHandler(report);
+            Detection.fromLine("no date, Amsterdam, yesterday", trafficTracker.getCars(), report);
+            Detection.fromLine("no city", trafficTracker.getCars(), report);
+            trafficTracker.importDetectionsFromVault("/test1/detections");
+
+            assertEquals(2, report.getNumberOfErrors());
+            assertTrue(report.getSamples().isEmpty());
+        }
+        assertEquals(List.of("no date, Amsterdam, yesterday", "no city"), Files.readAllLines(quarantineFile.toPath()));
+        assertEquals(7.0, trafficTracker.getViolations().aggregate(v -> (double) v.getOffencesCount()));
+
+        trafficTracker.setParseErrorHandler(null);
+        assertSame(ParseErrorHandler.PRINT, trafficTracker.getParseErrorHandler());
+    }
+}
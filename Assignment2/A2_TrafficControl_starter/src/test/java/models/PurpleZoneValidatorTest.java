@@ -0,0 +1,119 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PurpleZoneValidatorTest {
+
+    Car scoda, audi, icova, volvo1, volvo2, daf1, daf2, kamaz;
+    List<Car> cars;
+    CityDictionary cities;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        scoda = new Car("1-AAA-02", 6, Car.CarType.Car, Car.FuelType.Gasoline, LocalDate.of(2014,1,31));
+        audi = new Car("AA-11-BB", 4, Car.CarType.Car, Car.FuelType.Diesel, LocalDate.of(1998,1,31));
+        icova = new Car("1-TTT-99", 5, Car.CarType.Truck, Car.FuelType.Lpg, LocalDate.of(2011,1,31));
+        volvo1 = new Car("1-TTT-01", 5, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        volvo2 = new Car("1-TTT-02", 6, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2011,1,31));
+        daf1 = new Car("1-CCC-01", 5, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        daf2 = new Car("1-CCC-02", 6, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2011,1,31));
+        kamaz = new Car("1-AAAA-0000");
+        cars = new ArrayList<>(List.of(scoda, audi, icova, volvo1, volvo2, daf1, daf2, kamaz));
+        cities = new CityDictionary();
+    }
+
+    @Test
+    public void columnsAgreeWithValidatePurple() {
+        PurpleZoneValidator validator = new PurpleZoneValidator(cars);
+        for (int i = 0; i < cars.size(); i++) {
+            Detection detection = new Detection(cars.get(i), "Amsterdam", LocalDateTime.now());
+            assertEquals(detection.validatePurple() != null, validator.isOffending(i),
+                    "batch validation should agree with validatePurple for " + cars.get(i));
+        }
+    }
+
+    @Test
+    public void columnsAreCompiledFromTheZoneRules() {
+        ZoneRuleSet zoneRules = new ZoneRuleSet(List.of(
+                ZoneRule.fromLine("*, Truck|Van, Diesel|Lpg, 6, *, *, 25"),
+                ZoneRule.fromLine("*, Car, Diesel, 5, *, *, 10")));
+        PurpleZoneValidator validator = new PurpleZoneValidator(cars, zoneRules);
+        for (int i = 0; i < cars.size(); i++) {
+            assertEquals(zoneRules.mayBeViolatedBy(cars.get(i)), validator.isOffending(i),
+                    "batch validation should agree with the rules for " + cars.get(i));
+        }
+        assertTrue(validator.isOffending(cars.indexOf(icova)));
+        assertTrue(validator.isOffending(cars.indexOf(audi)));
+        assertFalse(validator.isOffending(cars.indexOf(daf1)));
+
+        assertThrows(IllegalArgumentException.class, () -> new PurpleZoneValidator(cars, new ZoneRuleSet(List.of(
+                ZoneRule.fromLine("Utrecht, Truck, Diesel, 6, *, *, 25")))),
+                "the validator cannot apply a rule that depends on the city of a detection");
+    }
+
+    @Test
+    public void validateBatchAggregatesOffencesByCarAndCity() {
+        PurpleZoneValidator validator = new PurpleZoneValidator(cars);
+        int amsterdam = cities.idOf("Amsterdam");
+        int rotterdam = cities.idOf("Rotterdam");
+
+        // volvo1 (3) and daf1 (5) are the offenders
+        int[] carIndices = { 0, 3, 5, 3, 1, 5, 4, 3, 7, 6 };
+        int[] cityIds =    { amsterdam, amsterdam, rotterdam, rotterdam, amsterdam, rotterdam, rotterdam, amsterdam, rotterdam, amsterdam };
+
+        ViolationTable table = new ArrayViolationTable();
+        assertEquals(5, validator.validateBatch(carIndices, cityIds, carIndices.length, table));
+        assertEquals(3, table.size());
+        assertEquals(5, table.totalOffences());
+        assertEquals(2, table.getOffencesCount(3, amsterdam));
+        assertEquals(1, table.getOffencesCount(3, rotterdam));
+        assertEquals(2, table.getOffencesCount(5, rotterdam));
+        assertEquals(0, table.getOffencesCount(0, amsterdam));
+
+        // only the first count detections of the columns shall be validated
+        assertEquals(2, validator.validateBatch(carIndices, cityIds, 3, table));
+        assertEquals(3, table.getOffencesCount(3, amsterdam));
+        assertEquals(3, table.getOffencesCount(5, rotterdam));
+    }
+
+    @Test
+    public void extendCoversCarsAddedAtTheTail() {
+        PurpleZoneValidator validator = new PurpleZoneValidator(cars);
+        Car volvo3 = new Car("1-TTT-03", 3, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2005,1,31));
+        cars.add(volvo3);
+        validator.extend(cars);
+
+        assertEquals(cars.size(), validator.getNumberOfCars());
+        assertTrue(validator.isOffending(cars.size()-1));
+    }
+
+    @Test
+    public void tableGrowsBeyondItsInitialCapacity() {
+        ViolationTable table = new ArrayViolationTable();
+        for (int carIndex = 0; carIndex < 1000; carIndex++) {
+            for (int cityId = 0; cityId < 3; cityId++) {
+                table.addOffences(carIndex, cityId, carIndex + cityId);
+            }
+        }
+        assertEquals(3000, table.size());
+        assertEquals(999 + 2, table.getOffencesCount(999, 2));
+
+        long[] total = { 0 };
+        table.forEach((carIndex, cityId, offencesCount) -> total[0] += offencesCount);
+        assertEquals(table.totalOffences(), total[0]);
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(0, table.getOffencesCount(999, 2));
+    }
+}
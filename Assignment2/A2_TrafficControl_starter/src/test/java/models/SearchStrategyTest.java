@@ -0,0 +1,94 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static models.OrderedArrayList.SearchStrategy;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchStrategyTest {
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+    }
+
+    @Test
+    public void allStrategiesFindAllItemsAndNoMissingItems() {
+        for (SearchStrategy strategy : SearchStrategy.values()) {
+            for (int n = 0; n <= 40; n++) {
+                OrderedArrayList<Integer> list = new OrderedArrayList<>(Comparator.naturalOrder());
+                list.setSearchStrategy(strategy);
+                for (int i = n - 1; i >= 0; i--) {
+                    list.add(2 * i);
+                }
+                list.sort();
+                // an unsorted tail of odd numbers
+                list.add(2 * n + 1);
+                list.add(1);
+
+                CarsListTest.testSearchForAll(list, list::indexOf);
+                for (int missing = -1; missing <= 2 * n + 3; missing += 2) {
+                    if (missing != 1 && missing != 2 * n + 1) {
+                        assertEquals(-1, list.indexOf(missing),
+                                strategy + " should not find " + missing + " among " + n + " sorted items");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void eytzingerSnapshotFollowsChangesOfTheList() {
+        OrderedArrayList<Integer> list = new OrderedArrayList<>(Comparator.naturalOrder());
+        list.setSearchStrategy(SearchStrategy.EYTZINGER);
+        list.addAll(List.of(5, 3, 9, 1));
+        list.sort();
+        assertEquals(2, list.indexOf(5));
+
+        list.remove(Integer.valueOf(3));
+        assertEquals(1, list.indexOf(5));
+        assertEquals(-1, list.indexOf(3));
+
+        list.add(7);
+        list.sort();
+        assertEquals(3, list.indexOf(9));
+        assertEquals(2, list.indexOf(7));
+
+        list.clear();
+        assertEquals(-1, list.indexOf(7));
+    }
+
+    @Test
+    public void strategiesAgreeOnLicensePlateLookups() {
+        Random random = new Random(2023);
+        List<Car> registry = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            // unique license plates
+            registry.add(new Car(String.format("%c%c-%03d-%c", 'A' + i % 26, 'A' + i / 26 % 26,
+                    i / 676 % 1000, 'A' + i / 676_000)));
+        }
+        Collections.shuffle(registry, random);
+        OrderedArrayList<Car> cars = new OrderedArrayList<>(Car::compareByLicensePlate);
+        cars.addAll(registry);
+        cars.sort();
+        List<Car> lookups = new ArrayList<>(cars.subList(0, 1_000));
+        Collections.shuffle(lookups, random);
+
+        // the speed of the strategies is compared by the SearchStrategyBenchmark of the benchmarks module
+        for (SearchStrategy strategy : SearchStrategy.values()) {
+            cars.setSearchStrategy(strategy);
+            for (Car car : lookups) {
+                assertEquals(cars.indexOfByIterativeBinarySearch(car), cars.indexOf(new Car(car.getLicensePlate())),
+                        strategy + " should find the same items as the iterative binary search");
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SecondaryIndexTest {
+
+    Car volvo1, volvo2, daf1;
+    OrderedArrayList<Violation> violations;
+    SecondaryIndex<Violation> byCity;
+    SecondaryIndex<Violation> byCount;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        volvo1 = new Car("1-TTT-01", 5, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        volvo2 = new Car("1-TTT-02", 4, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2011,1,31));
+        daf1 = new Car("1-CCC-01", 5, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+
+        violations = new OrderedArrayList<>(Violation::compareByLicensePlateAndCity);
+        violations.add(new Violation(volvo1, "Rotterdam"));
+        byCity = violations.addSecondaryIndex(Comparator.comparing(Violation::getCity));
+        byCount = violations.addSecondaryIndex(Comparator.comparing(Violation::getOffencesCount));
+        violations.addAll(List.of(new Violation(volvo2, "Amsterdam"), new Violation(daf1, "Utrecht")));
+        violations.add(0, new Violation(daf1, "Amsterdam"));
+        violations.sort();
+    }
+
+    private static void checkIndex(List<Violation> list, SecondaryIndex<Violation> index) {
+        assertEquals(list.size(), index.size());
+        for (int i = 1; i < index.size(); i++) {
+            assertTrue(index.getSortOrder().compare(index.get(i - 1), index.get(i)) <= 0,
+                    "index shall be sorted at position " + i);
+        }
+        for (Violation violation : list) {
+            assertTrue(index.contains(violation), "index shall contain " + violation);
+        }
+    }
+
+    @Test
+    public void indexesFollowAddMergeAndRemove() {
+        checkIndex(violations, byCity);
+        checkIndex(violations, byCount);
+        assertEquals("Amsterdam", byCity.get(0).getCity());
+        assertEquals("Utrecht", byCity.get(3).getCity());
+
+        violations.merge(new Violation(volvo2, "Amsterdam"), Violation::combineOffencesCounts);
+        violations.merge(new Violation(volvo2, "Amsterdam"), Violation::combineOffencesCounts);
+        violations.merge(new Violation(volvo1, "Leiden"), Violation::combineOffencesCounts);
+        checkIndex(violations, byCity);
+        checkIndex(violations, byCount);
+        assertEquals(3, byCount.get(byCount.size() - 1).getOffencesCount());
+        assertEquals(volvo2, byCount.get(byCount.size() - 1).getCar());
+
+        violations.remove(byCity.get(0));
+        violations.remove(0);
+        checkIndex(violations, byCity);
+        checkIndex(violations, byCount);
+
+        violations.removeIf(violation -> violation.getCity().equals("Utrecht"));
+        violations.subList(0, 1).clear();
+        checkIndex(violations, byCity);
+        checkIndex(violations, byCount);
+        assertTrue(byCity.equalRange(new Violation(null, "Utrecht")).isEmpty());
+
+        violations.clear();
+        assertTrue(byCity.isEmpty());
+        assertTrue(byCount.isEmpty());
+    }
+
+    @Test
+    public void indexesSupportBinarySearchAndRanges() {
+        violations.merge(new Violation(volvo2, "Amsterdam"), Violation::combineOffencesCounts);
+
+        assertEquals(-1, byCity.indexOfByBinarySearch(new Violation(null, "Leiden")));
+        int index = byCity.indexOfByBinarySearch(new Violation(null, "Rotterdam"));
+        assertEquals(volvo1, byCity.get(index).getCar());
+
+        List<Violation> amsterdam = byCity.equalRange(new Violation(null, "Amsterdam"));
+        assertEquals(2, amsterdam.size());
+
+        List<String> cities = new ArrayList<>();
+        for (Violation violation : byCity.range(new Violation(null, "B"), new Violation(null, "V"))) {
+            cities.add(violation.getCity());
+        }
+        assertEquals(List.of("Rotterdam", "Utrecht"), cities);
+
+        Violation twice = new Violation(null, null);
+        twice.setOffencesCount(2);
+        assertEquals(1, byCount.equalRange(twice).size());
+        assertEquals(violations.size() - 1, byCount.lowerBound(twice));
+
+        assertThrows(UnsupportedOperationException.class, () -> byCity.add(twice),
+                "a secondary index shall be a read-only view");
+    }
+
+    @Test
+    public void rangesFollowMergesInPlaceAndFailFastAfterInserts() {
+        List<Violation> amsterdam = byCity.equalRange(new Violation(null, "Amsterdam"));
+        assertEquals(2, amsterdam.size());
+
+        // a merge replaces the violation in its place, so the range remains valid and shows the merged violation
+        violations.merge(new Violation(volvo2, "Amsterdam"), Violation::combineOffencesCounts);
+        assertEquals(2, amsterdam.size());
+        assertEquals(volvo2, amsterdam.get(1).getCar());
+        assertEquals(2, amsterdam.get(1).getOffencesCount());
+        assertSame(violations.get(violations.indexOfByBinarySearch(new Violation(volvo2, "Amsterdam"))),
+                amsterdam.get(1));
+
+        // a merge that adds a violation shifts the positions in the index, so the range shall not be used anymore
+        violations.merge(new Violation(volvo1, "Amsterdam"), Violation::combineOffencesCounts);
+        assertThrows(ConcurrentModificationException.class, () -> amsterdam.get(0));
+        assertEquals(3, byCity.equalRange(new Violation(null, "Amsterdam")).size());
+        checkIndex(violations, byCity);
+        checkIndex(violations, byCount);
+    }
+
+    @Test
+    public void topViolationsAreAggregatedFromTheIndexesInReversedKeyOrder() {
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault("/test1/cars.txt");
+        trafficTracker.importDetectionsFromVault("/test1/detections");
+
+        // the aggregates are ranked by the reversed sort order of the index, not by offencesCount,
+        // so Rotterdam with 2 offences precedes Amsterdam with 5
+        List<Violation> byCity = trafficTracker.topViolationsByCity(2);
+        assertEquals("Rotterdam", byCity.get(0).getCity());
+        assertEquals(2, byCity.get(0).getOffencesCount());
+        assertEquals("Amsterdam", byCity.get(1).getCity());
+        assertEquals(5, byCity.get(1).getOffencesCount());
+
+        List<Violation> byCar = trafficTracker.topViolationsByCar(1);
+        assertEquals("227-HX-3", byCar.get(0).getCar().getLicensePlate());
+        assertEquals(7, byCar.get(0).getOffencesCount());
+        assertNull(byCar.get(0).getCity());
+    }
+}
@@ -0,0 +1,57 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedTrafficTrackerTest {
+    private final static String VAULT_NAME = "/2023-09";
+
+    TrafficTracker trafficTracker;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        trafficTracker.importDetectionsFromVault(VAULT_NAME + "/detections");
+    }
+
+    @Test
+    public void shardsGiveTheSameAnswersAsASingleTracker() {
+        for (int numberOfShards : new int[] { 1, 3, 8 }) {
+            ShardedTrafficTracker sharded = new ShardedTrafficTracker(numberOfShards);
+            sharded.importCarsFromVault(VAULT_NAME + "/cars.txt");
+            sharded.importDetectionsFromVault(VAULT_NAME + "/detections");
+
+            assertEquals(trafficTracker.calculateTotalFines(), sharded.calculateTotalFines(), 0.001);
+            assertEquals(trafficTracker.topViolationsByCar(25).toString(), sharded.topViolationsByCar(25).toString());
+            assertEquals(trafficTracker.topViolationsByCity(3).toString(), sharded.topViolationsByCity(3).toString());
+        }
+    }
+
+    @Test
+    public void citiesAreImportedIntoTheirOwnShard() {
+        ShardedTrafficTracker sharded = new ShardedTrafficTracker(2,
+                city -> city.compareTo("M") < 0 ? 0 : 1);
+        sharded.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        sharded.importDetectionsFromVault(VAULT_NAME + "/detections");
+
+        TrafficTracker first = sharded.getShards().get(0);
+        TrafficTracker second = sharded.getShards().get(1);
+        assertTrue(first.getViolations().stream().allMatch(v -> v.getCity().compareTo("M") < 0));
+        assertTrue(second.getViolations().stream().allMatch(v -> v.getCity().compareTo("M") >= 0));
+        assertEquals(trafficTracker.getViolations().size(),
+                first.getViolations().size() + second.getViolations().size());
+        assertNotSame(first.getCars(), second.getCars(), "every shard keeps its own unknown cars");
+        CarsListTest.checkRepresentationInvariant(first.getCars());
+
+        assertThrows(IllegalStateException.class, () -> {
+            ShardedTrafficTracker invalid = new ShardedTrafficTracker(2, city -> 2);
+            invalid.importDetectionsFromVault(VAULT_NAME + "/detections");
+        });
+    }
+}
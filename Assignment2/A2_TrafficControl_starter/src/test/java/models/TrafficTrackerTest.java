@@ -3,10 +3,14 @@ package models;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.List;
 import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TrafficTrackerTest {
     private final static String VAULT_NAME = "/test1";
@@ -56,4 +60,30 @@ public class TrafficTrackerTest {
         assertEquals(7, trafficTracker.getViolations().stream().mapToInt(Violation::getOffencesCount).sum(),
                 "Total number of offences across all Violation instances did not match.");
     }
+
+    @Test
+    public void importFromFilesCheck() throws URISyntaxException {
+        File vault = new File(TrafficTrackerTest.class.getResource(VAULT_NAME).toURI());
+        TrafficTracker tracker = new TrafficTracker();
+        tracker.importCarsFromFile(new File(vault, "cars.txt"));
+        tracker.importDetectionsFromFolder(new File(vault, "detections"));
+
+        assertEquals(trafficTracker.getCars(), tracker.getCars());
+        assertEquals(trafficTracker.getViolations().toString(), tracker.getViolations().toString());
+    }
+
+    @Test
+    public void rangeAndPrefixQueriesCheck() {
+        List<Car> cars = trafficTracker.findCarsByLicensePlatePrefix("23");
+        assertEquals(List.of("232-FD-8", "233-IG-7"), cars.stream().map(Car::getLicensePlate).toList());
+
+        List<Violation> violations = trafficTracker.findViolationsByLicensePlatePrefix("227-");
+        assertEquals(2, violations.size());
+        assertTrue(trafficTracker.findViolationsByLicensePlatePrefix("VZ-").isEmpty());
+
+        List<Violation> citiesAtoH = trafficTracker.findViolationsByCityRange("A", "I");
+        assertEquals(1, citiesAtoH.size());
+        assertEquals("Amsterdam", citiesAtoH.get(0).getCity());
+        assertEquals(2, trafficTracker.findViolationsByCityRange("A", "Z").size());
+    }
 }
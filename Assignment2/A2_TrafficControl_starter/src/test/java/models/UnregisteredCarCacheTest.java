@@ -0,0 +1,61 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UnregisteredCarCacheTest {
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+    }
+
+    @Test
+    public void leastRecentlyDetectedCarsAreEvicted() {
+        UnregisteredCarCache cache = new UnregisteredCarCache(2);
+        Car first = cache.carOf("F-001");
+        Car second = cache.carOf("F-002");
+        assertSame(first, cache.carOf("F-001"));
+        cache.carOf("F-003");
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("F-002"), "the least recently detected car has been evicted");
+        assertNotSame(second, cache.carOf("F-002"));
+        assertEquals(second, cache.get("F-002"));
+        assertEquals(List.of("F-003", "F-002"), cache.getCars().stream().map(Car::getLicensePlate).toList());
+        assertEquals(1, cache.getNumberOfHits());
+        assertEquals(4, cache.getNumberOfMisses());
+        assertEquals(2, cache.getNumberOfEvictions());
+        assertThrows(IllegalArgumentException.class, () -> new UnregisteredCarCache(0));
+    }
+
+    @Test
+    public void unregisteredCarsDoNotEnterTheRegistry() {
+        TrafficTracker defaultTracker = new TrafficTracker();
+        defaultTracker.importCarsFromVault("/test1/cars.txt");
+        defaultTracker.importDetectionsFromVault("/test1/detections");
+
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.cacheUnregisteredCars(100);
+        trafficTracker.importCarsFromVault("/test1/cars.txt");
+        trafficTracker.importDetectionsFromVault("/test1/detections");
+
+        assertEquals(12, defaultTracker.getCars().size());
+        assertEquals(10, trafficTracker.getCars().size());
+        assertEquals(2, trafficTracker.getUnregisteredCars().size());
+        CarsListTest.checkRepresentationInvariant(trafficTracker.getCars());
+        assertEquals(defaultTracker.getViolations().toString(), trafficTracker.getViolations().toString());
+
+        trafficTracker.importDetectionsFromVaultInParallel("/test1/detections");
+        assertEquals(10, trafficTracker.getCars().size());
+        assertEquals(defaultTracker.getViolations().toString(), trafficTracker.getViolations().toString());
+
+        trafficTracker.cacheUnregisteredCars(0);
+        assertNull(trafficTracker.getUnregisteredCars());
+    }
+}
@@ -0,0 +1,95 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ViolationExportTest {
+
+    @TempDir
+    Path tempDir;
+
+    TrafficTracker trafficTracker;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault("/2023-09/cars.txt");
+        trafficTracker.importDetectionsFromVault("/2023-09/detections");
+    }
+
+    @Test
+    public void csvExportHasOneLinePerViolation() throws IOException {
+        File csvFile = tempDir.resolve("violations.csv").toFile();
+        assertEquals(198, trafficTracker.exportViolationsToCsv(csvFile));
+
+        List<String> lines = Files.readAllLines(csvFile.toPath());
+        assertEquals(199, lines.size());
+        assertEquals("licensePlate,city,carType,fuelType,emissionCategory,offencesCount,fines", lines.get(0));
+
+        Violation first = trafficTracker.getViolations().get(0);
+        Car car = first.getCar();
+        assertEquals(String.format("%s,%s,%s,%s,%d,%d,%.2f", car.getLicensePlate(), first.getCity(),
+                car.getCarType(), car.getFuelType(), car.getEmissionCategory(), first.getOffencesCount(),
+                first.getFines()), lines.get(1));
+    }
+
+    @Test
+    public void csvExportQuotesSpecialCharacters() throws IOException {
+        Car car = new Car("AB-12-CD", 3, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.EPOCH);
+        Violation violation = new Violation(car, "Den \"Bosch\", NB", 1234.5);
+        violation.setOffencesCount(-7);
+        File csvFile = tempDir.resolve("quoted.csv").toFile();
+        ViolationExport.exportToCsv(List.of(violation, new Violation(car, null, 0.004)), csvFile);
+
+        List<String> lines = Files.readAllLines(csvFile.toPath());
+        assertEquals("AB-12-CD,\"Den \"\"Bosch\"\", NB\",Truck,Diesel,3,-7,1234.50", lines.get(1));
+        assertEquals("AB-12-CD,,Truck,Diesel,3,1,0.00", lines.get(2));
+    }
+
+    @Test
+    public void columnarExportCanBeReadBack() {
+        File columnarFile = tempDir.resolve("violations.vcl").toFile();
+        assertEquals(198, trafficTracker.exportViolationsToColumnar(columnarFile));
+
+        List<Violation> violations = ViolationExport.readColumnar(columnarFile);
+        assertEquals(trafficTracker.getViolations().toString(), violations.toString());
+        for (int i = 0; i < violations.size(); i++) {
+            Violation expected = trafficTracker.getViolations().get(i);
+            Car car = violations.get(i).getCar();
+            assertEquals(expected.getCar().getCarType(), car.getCarType());
+            assertEquals(expected.getCar().getFuelType(), car.getFuelType());
+            assertEquals(expected.getCar().getEmissionCategory(), car.getEmissionCategory());
+            assertEquals(expected.getFines(), violations.get(i).getFines());
+        }
+    }
+
+    @Test
+    public void columnarExportSpansMultipleRowGroups() {
+        File columnarFile = tempDir.resolve("many.vcl").toFile();
+        List<Violation> many = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Violation violation = new Violation(trafficTracker.getCars().get(i % 250),
+                    i % 3 == 0 ? null : "City" + i % 7, 25.0 * i);
+            violation.setOffencesCount(i);
+            many.add(violation);
+        }
+        assertEquals(20_000, ViolationExport.exportToColumnar(many, columnarFile));
+
+        List<Violation> violations = ViolationExport.readColumnar(columnarFile);
+        assertEquals(many.toString(), violations.toString());
+        assertEquals(25.0 * 19_999, violations.get(19_999).getFines());
+    }
+}
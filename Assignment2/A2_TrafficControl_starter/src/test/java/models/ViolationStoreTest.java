@@ -0,0 +1,102 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ViolationStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    File storeFolder;
+    File logFile;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        storeFolder = tempDir.resolve("store").toFile();
+        logFile = new File(storeFolder, "violations.log");
+    }
+
+    private TrafficTracker importWithStore(String vaultName, ViolationStore store, int expectedNewFiles) {
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault(vaultName + "/cars.txt");
+        assertEquals(expectedNewFiles, trafficTracker.importNewDetectionsFromVault(vaultName + "/detections", store));
+        return trafficTracker;
+    }
+
+    private TrafficTracker importWithoutStore(String vaultName) {
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault(vaultName + "/cars.txt");
+        trafficTracker.importDetectionsFromVault(vaultName + "/detections");
+        return trafficTracker;
+    }
+
+    @Test
+    public void storedFilesAreProcessedOnlyOnce() {
+        TrafficTracker expected = importWithoutStore("/2023-09");
+
+        TrafficTracker firstRun = importWithStore("/2023-09", ViolationStore.open(storeFolder, 16), 40);
+        assertEquals(expected.getViolations().toString(), firstRun.getViolations().toString());
+
+        // the 40 files have been compacted twice into the snapshot, 8 records remain in the log
+        ViolationStore reopened = ViolationStore.open(storeFolder, 16);
+        assertEquals(8, reopened.getNumberOfLogRecords());
+        assertEquals(40, reopened.getProcessedFiles().size());
+        TrafficTracker secondRun = importWithStore("/2023-09", reopened, 0);
+        assertEquals(expected.getViolations().toString(), secondRun.getViolations().toString());
+        assertEquals(expected.calculateTotalFines(), secondRun.calculateTotalFines(), 0.001);
+        assertEquals(expected.topViolationsByCar(5).toString(), secondRun.topViolationsByCar(5).toString());
+    }
+
+    @Test
+    public void incompleteLogRecordsAreDiscarded() throws IOException {
+        importWithStore("/test1", ViolationStore.open(storeFolder), 2);
+        long committedLength = logFile.length();
+
+        // a crash while appending the record of a third file
+        Files.write(logFile.toPath(), new byte[] { 0x56, 0x4C, 0x4F, 0x47, 0, 0, 1, 0, 42 }, StandardOpenOption.APPEND);
+        ViolationStore recovered = ViolationStore.open(storeFolder);
+        assertEquals(committedLength, logFile.length(), "the incomplete record has been truncated");
+        assertEquals(2, recovered.getNumberOfLogRecords());
+
+        // a crash that tore the record of the second file
+        try (RandomAccessFile file = new RandomAccessFile(logFile, "rw")) {
+            file.setLength(committedLength - 3);
+        }
+        recovered = ViolationStore.open(storeFolder);
+        assertEquals(1, recovered.getNumberOfLogRecords());
+        TrafficTracker trafficTracker = importWithStore("/test1", recovered, 1);
+        assertEquals(importWithoutStore("/test1").getViolations().toString(), trafficTracker.getViolations().toString());
+    }
+
+    @Test
+    public void interruptedCompactionDoesNotCountOffencesTwice() throws IOException {
+        ViolationStore store = ViolationStore.open(storeFolder);
+        importWithStore("/test1", store, 2);
+        byte[] log = Files.readAllBytes(logFile.toPath());
+
+        store.compact();
+        assertEquals(0, logFile.length());
+        // a crash after the new snapshot was in place, but before the log was cleared
+        Files.write(logFile.toPath(), log);
+
+        ViolationStore recovered = ViolationStore.open(storeFolder);
+        assertEquals(0, recovered.getNumberOfLogRecords());
+        TrafficTracker trafficTracker = importWithStore("/test1", recovered, 0);
+        assertEquals(importWithoutStore("/test1").getViolations().toString(), trafficTracker.getViolations().toString());
+        assertThrows(IllegalArgumentException.class, () -> recovered.append("Amsterdam/0.txt", List.of()));
+    }
+}
@@ -0,0 +1,120 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ViolationTimelineTest {
+    private final static String VAULT_NAME = "/test1";
+
+    ViolationTimeline timeline;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        trafficTracker.trackTimeline(Duration.ofHours(1));
+        trafficTracker.importDetectionsFromVault(VAULT_NAME + "/detections");
+        timeline = trafficTracker.getTimeline();
+    }
+
+    @Test
+    public void rangeQueriesByTimeAndCity() {
+        assertEquals(7, timeline.countOffences(null,
+                LocalDateTime.of(2022,9,1,0,0), LocalDateTime.of(2022,10,1,0,0)));
+        assertEquals(0, timeline.countOffences(null,
+                LocalDateTime.of(2023,9,1,0,0), LocalDateTime.of(2023,10,1,0,0)));
+
+        LocalDateTime day = LocalDateTime.of(2022,9,3,0,0);
+        assertEquals(2, timeline.countOffences(null, day, day.plusDays(1)));
+        assertEquals(1, timeline.countOffences("Amsterdam", day, day.plusDays(1)));
+        assertEquals(1, timeline.countOffences("Rotterdam", day, day.plusDays(1)));
+        assertEquals(0, timeline.countOffences("Leiden", day, day.plusDays(1)));
+        assertEquals(5, timeline.countOffences("Amsterdam", day.minusDays(2), day.plusDays(30)));
+    }
+
+    @Test
+    public void tumblingAndSlidingWindows() {
+        LocalDateTime from = LocalDateTime.of(2022,9,3,10,0);
+        LocalDateTime to = from.plusHours(4);
+
+        assertArrayEquals(new int[] { 1, 0, 1, 0 }, timeline.tumblingCounts(null, from, to));
+        assertArrayEquals(new int[] { 1, 0, 0, 0 }, timeline.tumblingCounts("Rotterdam", from, to));
+        assertArrayEquals(new int[] { 1, 1, 2, 1 }, timeline.slidingCounts(null, from, to, 3));
+        assertEquals(from.plusHours(2), timeline.bucketStart(from.plusHours(2).plusMinutes(52)));
+    }
+
+    @Test
+    public void repeatOffendersWithinDays() {
+        List<Violation> offenders = timeline.repeatOffenders(LocalDate.of(2022,9,3), LocalDate.of(2022,9,9), 2);
+        assertEquals(1, offenders.size());
+        assertEquals("227-HX-3", offenders.get(0).getCar().getLicensePlate());
+        assertEquals(3, offenders.get(0).getOffencesCount());
+
+        assertTrue(timeline.repeatOffenders(LocalDate.of(2022,9,20), LocalDate.of(2022,9,30), 3).isEmpty());
+    }
+
+    @Test
+    public void countersGrowInBothDirections() {
+        ViolationTimeline days = new ViolationTimeline(Duration.ofDays(1));
+        Car car = new Car("1-TTT-01");
+        LocalDateTime start = LocalDateTime.of(2023,9,15,12,0);
+        for (int d = -40; d <= 40; d += 4) {
+            days.record(car, "Leiden", start.plusDays(d), 2);
+        }
+        assertEquals(2 * 21, days.countOffences("Leiden", start.minusDays(40), start.plusDays(41)));
+        assertEquals(2 * 2, days.countOffences("Leiden", start, start.plusDays(5)));
+        assertEquals(2 * 21, days.repeatOffenders(start.toLocalDate().minusDays(40), start.toLocalDate().plusDays(40), 1)
+                .get(0).getOffencesCount());
+    }
+
+    @Test
+    public void outliersDoNotBlowUpTheCounters() {
+        ViolationTimeline seconds = new ViolationTimeline(Duration.ofSeconds(1));
+        Car car = new Car("1-TTT-01");
+        LocalDateTime start = LocalDateTime.of(2023,9,15,12,0);
+        seconds.record(car, "Leiden", start, 1);
+        seconds.record(car, "Leiden", LocalDateTime.of(1,1,1,0,0), 1);
+        seconds.record(car, "Leiden", LocalDateTime.of(9999,12,31,23,59), 1);
+        assertEquals(3, seconds.countOffences("Leiden", LocalDateTime.MIN, LocalDateTime.MAX));
+        assertEquals(1, seconds.countOffences(null, start.minusHours(1), start.plusHours(1)));
+        assertEquals(1, seconds.tumblingCounts("Leiden", start, start.plusSeconds(10))[0]);
+        assertThrows(IllegalArgumentException.class,
+                () -> seconds.tumblingCounts("Leiden", LocalDateTime.MIN, LocalDateTime.MAX));
+    }
+
+    @Test
+    public void countsFollowRecordsAndRetractionsInAnyOrder() {
+        ViolationTimeline hours = new ViolationTimeline(Duration.ofHours(1));
+        Car car = new Car("1-TTT-01");
+        LocalDateTime start = LocalDateTime.of(2023,9,1,0,0);
+        int[] expected = new int[100];
+        for (int i = 0; i < 1000; i++) {
+            int hour = (i * 37) % 100;
+            int change = i % 5 == 4 ? -1 : 1;
+            hours.record(car, "Leiden", start.plusHours(hour).plusMinutes(i % 60), change);
+            expected[hour] += change;
+            if (i % 97 == 0) {
+                // queries in between the records shall see every record so far
+                int sum = 0;
+                for (int h = 10; h < 60; h++) sum += expected[h];
+                assertEquals(sum, hours.countOffences("Leiden", start.plusHours(10), start.plusHours(60)));
+            }
+        }
+        assertArrayEquals(expected, hours.tumblingCounts("Leiden", start, start.plusHours(100)));
+        assertArrayEquals(expected, hours.tumblingCounts(null, start, start.plusHours(100)));
+
+        assertEquals(0, hours.countOffences("Utrecht", start, start.plusHours(100)));
+        hours.record(car, "Utrecht", start, 1);
+        assertEquals(0, hours.countOffences("Delft", start, start.plusHours(100)),
+                "a city without offences shall not share the counts of another city");
+    }
+}
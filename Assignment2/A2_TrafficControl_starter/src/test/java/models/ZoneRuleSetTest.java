@@ -0,0 +1,127 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZoneRuleSetTest {
+    private final static String VAULT_NAME = "/test1";
+
+    Car volvo1, volvo2, daf1, mercedes, scoda;
+    ZoneRuleSet zoneRules;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        volvo1 = new Car("1-TTT-01", 5, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        volvo2 = new Car("1-TTT-02", 6, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2011,1,31));
+        daf1 = new Car("1-CCC-01", 5, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        mercedes = new Car("VV-11-BB", 4, Car.CarType.Van, Car.FuelType.Diesel, LocalDate.of(1998,1,31));
+        scoda = new Car("1-AAA-02", 6, Car.CarType.Car, Car.FuelType.Gasoline, LocalDate.of(2014,1,31));
+
+        zoneRules = new ZoneRuleSet(List.of(
+                ZoneRule.fromLine("Utrecht, Truck|Coach|Van, Diesel, 7, 2024-01-01, *, 100"),
+                ZoneRule.fromLine("*, Truck, Diesel, 6, *, *, 25"),
+                ZoneRule.fromLine("*, Coach, Diesel, 6, *, 2023-12-31, 35")
+        ));
+    }
+
+    @Test
+    public void ruleLinesAreParsedOrRejected() {
+        ZoneRule rule = ZoneRule.fromLine(" Leiden , Van|Truck , Diesel|Lpg , 4 , 2023-01-01 , * , 12.5 ");
+        assertNotNull(rule);
+        assertEquals("Leiden", rule.getCity());
+        assertTrue(rule.getCarTypes().contains(Car.CarType.Van));
+        assertTrue(rule.getFuelTypes().contains(Car.FuelType.Lpg));
+        assertEquals(4, rule.getMinEmissionCategory());
+        assertEquals(LocalDate.of(2023,1,1), rule.getValidFrom());
+        assertNull(rule.getValidUntil());
+        assertEquals(12.5, rule.getFine());
+
+        assertNull(ZoneRule.fromLine("# city, carTypes, fuelTypes, minEmissionCategory, validFrom, validUntil, fine"));
+        assertNull(ZoneRule.fromLine(""));
+        assertNull(ZoneRule.fromLine("Leiden, Bike, Diesel, 4, *, *, 10"));
+        assertNull(ZoneRule.fromLine("Leiden, Van, Diesel, 4, *, *"));
+    }
+
+    @Test
+    public void corruptRuleLinesAreReportedToTheErrorHandler() {
+        List<String> reasons = new ArrayList<>();
+        ParseErrorHandler errorHandler = (itemType, textLine, reason) -> reasons.add(itemType + ": " + reason);
+
+        assertNull(ZoneRule.fromLine("Leiden, Van|Bike, Diesel, 4, *, *, 10", errorHandler));
+        assertNull(ZoneRule.fromLine("Leiden, Van, Diesel, four, *, *, 10", errorHandler));
+        assertNull(ZoneRule.fromLine("Leiden, Van, Diesel, 4, 2023-02-30, *, 10", errorHandler));
+        assertNull(ZoneRule.fromLine("Leiden, Van, Diesel, 4, *, *, €10", errorHandler));
+        assertNull(ZoneRule.fromLine(", Van, Diesel, 4, *, *, 10", errorHandler));
+        assertNull(ZoneRule.fromLine("# Leiden, Van, Diesel, 4, *, *, €10", errorHandler));
+        assertEquals(List.of(
+                "ZoneRule: No enum constant models.Car.CarType.Bike",
+                "ZoneRule: For input string: \"four\"",
+                "ZoneRule: Text '2023-02-30' could not be parsed as a date",
+                "ZoneRule: For input string: \"€10\"",
+                "ZoneRule: Empty field 0"), reasons);
+
+        ZoneRule rule = ZoneRule.fromLine("*, Truck | Coach, Diesel, 6, *, 2023-12-31, -2.50", errorHandler);
+        assertNull(rule.getCity());
+        assertEquals(2, rule.getCarTypes().size());
+        assertEquals(-2.5, rule.getFine());
+        assertEquals(5, reasons.size());
+    }
+
+    @Test
+    public void firstViolatedRuleAppliesByCityAndDate() {
+        LocalDate before = LocalDate.of(2023,9,1);
+        LocalDate after = LocalDate.of(2024,2,1);
+
+        assertEquals(25, zoneRules.findViolatedRule(volvo1, "Utrecht", before).getFine());
+        assertEquals(100, zoneRules.findViolatedRule(volvo1, "Utrecht", after).getFine());
+        assertEquals(25, zoneRules.findViolatedRule(volvo1, "Leiden", after).getFine());
+
+        // phase-in: clean enough until 2024 in Utrecht, not afterwards
+        assertNull(zoneRules.findViolatedRule(volvo2, "Utrecht", before));
+        assertEquals(100, zoneRules.findViolatedRule(volvo2, "Utrecht", after).getFine());
+        assertEquals(100, zoneRules.findViolatedRule(mercedes, "Utrecht", after).getFine());
+        assertNull(zoneRules.findViolatedRule(mercedes, "Leiden", after));
+
+        // phase-out: coaches are no longer fined outside Utrecht after 2023
+        assertEquals(35, zoneRules.findViolatedRule(daf1, "Leiden", before).getFine());
+        assertNull(zoneRules.findViolatedRule(daf1, "Leiden", after));
+
+        assertNull(zoneRules.findViolatedRule(scoda, "Utrecht", after));
+    }
+
+    @Test
+    public void purpleRulesAgreeWithValidatePurple() {
+        for (Car car : List.of(volvo1, volvo2, daf1, mercedes, scoda)) {
+            Detection detection = new Detection(car, "Amsterdam", LocalDateTime.now());
+            Violation violation = detection.validatePurple();
+            ZoneRule rule = ZoneRuleSet.PURPLE.findViolatedRule(car, "Amsterdam", LocalDate.now());
+            assertEquals(rule == null, violation == null);
+            if (violation != null) {
+                assertEquals(rule.getFine(), violation.getFines());
+            }
+        }
+    }
+
+    @Test
+    public void totalFinesFollowImportedRules() {
+        TrafficTracker trafficTracker = new TrafficTracker();
+        trafficTracker.importCarsFromVault(VAULT_NAME + "/cars.txt");
+        trafficTracker.importZoneRulesFromVault(VAULT_NAME + "/zones.txt");
+        assertEquals(2, trafficTracker.getZoneRules().getRules().size());
+
+        trafficTracker.importDetectionsFromVault(VAULT_NAME + "/detections");
+
+        // 3 offences in Amsterdam since 2022-09-10 at €50 and 2 offences in Rotterdam at €40
+        assertEquals(5, trafficTracker.getViolations().stream().mapToInt(Violation::getOffencesCount).sum());
+        assertEquals(230.0, trafficTracker.calculateTotalFines());
+    }
+}
@@ -24,6 +24,51 @@ public interface Sorter<E> {
      */
     List<E> quickSort(List<E> items, Comparator<E> comparator);
 
+    /**
+     * Sorts in place the list of items of type E
+     * according to the relative ordening as specified by the given comparator
+     * using a natural merge sort algorithm that exploits runs of items that are in order already (TimSort)
+     * the sort is stable: items that compare equal keep their original relative order
+     * @param items
+     * @param comparator
+     * @return  the same list items, but now sorted according to specifications.
+     */
+    default List<E> timSort(List<E> items, Comparator<E> comparator) {
+        // Shall be overriden in the implementation to gain better efficiency on partially sorted items.
+        items.sort(comparator);
+        return items;
+    }
+
+    /**
+     * Sorts in place the list of items of type E
+     * according to the relative ordening as specified by the given comparator
+     * using a quicksort algorithm that sorts the partitions in parallel
+     * the comparator may be called concurrently from multiple threads
+     * @param items
+     * @param comparator
+     * @return  the same list items, but now sorted according to specifications.
+     */
+    default List<E> parallelQuickSort(List<E> items, Comparator<E> comparator) {
+        // Shall be overriden in the implementation to gain efficiency from multiple cores.
+        return quickSort(items, comparator);
+    }
+
+    /**
+     * Sorts in place the list of items of type E
+     * according to the relative ordening as specified by the given comparator
+     * using a merge sort algorithm that sorts and merges the halves in parallel
+     * the sort is stable: items that compare equal keep their original relative order
+     * the comparator may be called concurrently from multiple threads
+     * @param items
+     * @param comparator
+     * @return  the same list items, but now sorted according to specifications.
+     */
+    default List<E> parallelMergeSort(List<E> items, Comparator<E> comparator) {
+        // Shall be overriden in the implementation to gain efficiency from multiple cores.
+        items.sort(comparator);
+        return items;
+    }
+
     /**
      * Partially sorts in place the list of items of type E
      * according to the relative ordening as specified by the given comparator
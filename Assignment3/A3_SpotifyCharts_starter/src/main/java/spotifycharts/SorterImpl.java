@@ -1,41 +1,102 @@
 package spotifycharts;
 
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class SorterImpl<E> implements Sorter<E> {
+    public static final int DEFAULT_INSERTION_SORT_CUTOFF = 16;
+    private static final int NINTHER_THRESHOLD = 40;                // ranges of this size or larger get a ninther pivot
+    private static final int PARALLEL_THRESHOLD = 1 << 13;          // ranges of this size or smaller are not split
+    private static final int[] CALIBRATION_CUTOFFS = { 4, 8, 12, 16, 24, 32, 48, 64 };
+
+    private final int insertionSortCutoff;      // ranges of up to this size are sorted by insertion sort
+
+    public SorterImpl() {
+        this(DEFAULT_INSERTION_SORT_CUTOFF);
+    }
+
+    /**
+     * @param insertionSortCutoff   the size of the ranges that quickSort leaves to insertion sort,
+     *                              see calibrateInsertionSortCutoff for finding the best value on a machine
+     */
+    public SorterImpl(int insertionSortCutoff) {
+        if (insertionSortCutoff < 1) throw new IllegalArgumentException("insertionSortCutoff must be positive");
+        this.insertionSortCutoff = insertionSortCutoff;
+    }
+
+    public int getInsertionSortCutoff() {
+        return this.insertionSortCutoff;
+    }
 
     /**
-     * Sorts all items by selection or insertion sort using the provided comparator
+     * Sorts all items by insertion sort using the provided comparator
      * for deciding relative ordening of two items
-     * Items are sorted 'in place' without use of an auxiliary list or array
+     * Items are sorted in an array copy of the list, which is written back into the list at the end
+     * Insertion sort only takes linear time on items that are (nearly) sorted already
      * @param items
      * @param comparator
      * @return  the items sorted in place
      */
     public List<E> selInsBubSort(List<E> items, Comparator<E> comparator) {
-        int n = items.size();
-         // Initialize if there has been a swap.
-        boolean isSwapped = false;
-        for(int i=0; i < n; i++){
-            isSwapped = false;
-            for(int j=1; j < (n-i); j++){
-                if(comparator.compare(items.get(j - 1), items.get(j)) > 0) {
-                    isSwapped = true;
-                    //swap elements
-                    swap(items, j-1, j);
-                }
+        E[] sorted = toArray(items);
+        insertionSort(sorted, 0, sorted.length - 1, comparator);
+        return writeBack(sorted, items);
+    }
+
+    /**
+     * Copies the items of the list into a new array, in a single pass over the list
+     * The full sorts work on such an array, rather than on the list itself, which avoids the interface calls
+     * and bounds checks of List.get and List.set in the inner loops, and the linear time of every
+     * List.get and List.set on a linked list
+     * @return  the array with the items in list order
+     */
+    @SuppressWarnings("unchecked")
+    private static <E> E[] toArray(List<E> items) {
+        return (E[]) items.toArray();
+    }
 
+    /**
+     * Replaces the items in the list by the sorted items, in a single pass over the list
+     * Lists with fast random access are written by index, other lists through a list iterator
+     * @return  the items list
+     */
+    private static <E> List<E> writeBack(E[] sorted, List<E> items) {
+        if (items instanceof RandomAccess) {
+            for (int i = 0; i < sorted.length; i++) {
+                items.set(i, sorted[i]);
             }
-            //If at the end of the loop there have been no swaps, the items are already sorted.
-            if (!isSwapped) {
-                break;
+        } else {
+            ListIterator<E> iterator = items.listIterator();
+            for (E item : sorted) {
+                iterator.next();
+                iterator.set(item);
             }
         }
         return items;
     }
 
+    /**
+     * Sorts items[low..high] by insertion sort
+     * @param items
+     * @param low index of the first item
+     * @param high index of the last item
+     * @param comparator to compare the items
+     */
+    private void insertionSort(E[] items, int low, int high, Comparator<E> comparator) {
+        for (int i = low + 1; i <= high; i++) {
+            // loop-invariant: items[low..i-1] are sorted
+            E item = items[i];
+            int j = i - 1;
+            // shift all preceding items that are larger than item one position up
+            while (j >= low && comparator.compare(items[j], item) > 0) {
+                items[j + 1] = items[j];
+                j--;
+            }
+            items[j + 1] = item;
+        }
+    }
+
     /**
      * Helper function to swap to items
      * @param items that need to be swapped
@@ -43,63 +104,710 @@ public class SorterImpl<E> implements Sorter<E> {
      * @param j index of the second item
      */
 
+    private void swap(E[] items, int i, int j) {
+        E tempItem = items[i];
+        items[i] = items[j];
+        items[j] = tempItem;
+    }
+
     private void swap(List<E> items, int i, int j) {
         E tempItem = items.get(i);
         items.set(i, items.get(j));
         items.set(j, tempItem);
     }
 
+    /**
+     * Partitions items[low..high] in three parts around the pivot (Dijkstra's Dutch national flag)
+     * afterwards items[low..lessThan-1] < pivot, items[lessThan..greaterThan] == pivot
+     * and items[greaterThan+1..high] > pivot
+     * Items that are equal to the pivot are excluded from further sorting, so many duplicates,
+     * e.g. all non-Dutch songs in the Dutch national chart, do not degrade quickSort
+     * @return the bounds {lessThan, greaterThan} of the part that equals the pivot
+     */
+
+    private int[] partition (E[] items, int low, int high, E pivot, Comparator<E> comparator){
+        int lessThan = low;
+        int i = low;
+        int greaterThan = high;
+
+        while (i <= greaterThan) {
+            // loop-invariant: items[low..lessThan-1] < pivot, items[lessThan..i-1] == pivot
+            //  and items[greaterThan+1..high] > pivot, items[i..greaterThan] are not partitioned yet
+            int comparison = comparator.compare(items[i], pivot);
+            if (comparison < 0) {
+                swap(items, lessThan++, i++);
+            } else if (comparison > 0) {
+                swap(items, i, greaterThan--);
+            } else {
+                i++;
+            }
+        }
+        return new int[] { lessThan, greaterThan };
+    }
+
+    /**
+     * Selects a pivot for partitioning items[low..high]:
+     * the median of the first, middle and last item for small ranges,
+     * and the median of three such medians (Tukey's ninther) for larger ranges,
+     * so that sorted, reversed and organ-pipe shaped inputs still get balanced partitions
+     * @return the index of the pivot
+     */
+    private int choosePivot(E[] items, int low, int high, Comparator<E> comparator) {
+        int middle = low + (high - low) / 2;
+        if (high - low + 1 < NINTHER_THRESHOLD) {
+            return medianOfThree(items, low, middle, high, comparator);
+        }
+        int eighth = (high - low + 1) / 8;
+        return medianOfThree(items,
+                medianOfThree(items, low, low + eighth, low + 2 * eighth, comparator),
+                medianOfThree(items, middle - eighth, middle, middle + eighth, comparator),
+                medianOfThree(items, high - 2 * eighth, high - eighth, high, comparator),
+                comparator);
+    }
+
+    /**
+     * @return the index of the median of items[i], items[j] and items[k]
+     */
+    private int medianOfThree(E[] items, int i, int j, int k, Comparator<E> comparator) {
+        E a = items[i];
+        E b = items[j];
+        E c = items[k];
+        if (comparator.compare(a, b) < 0) {
+            if (comparator.compare(b, c) < 0) return j;
+            return comparator.compare(a, c) < 0 ? k : i;
+        } else {
+            if (comparator.compare(a, c) < 0) return i;
+            return comparator.compare(b, c) < 0 ? k : j;
+        }
+    }
+
+    /**
+     * Helper function to recursively sort the items
+     * Small ranges are finished by insertion sort,
+     * and ranges that are still unsorted after depthLimit levels of partitioning are finished by heapsort,
+     * which bounds the worst case at O(n log n) (introsort)
+     * Only the smaller part of every partition is sorted recursively, the larger part is sorted by the next
+     * iteration of the loop. Every recursive call gets at most half of the items, so the recursion depth
+     * is bounded by log2(n), irrespective of the input
+     * @param items that need to be sorted
+     * @param low index of the first item
+     * @param high index of the last item
+     * @param depthLimit the remaining number of levels of partitioning
+     * @param comparator to compare the items
+     */
+
+    private void recursiveQuickSort(E[] items, int low, int high, int depthLimit, Comparator<E> comparator) {
+        while (high - low + 1 > this.insertionSortCutoff) {
+            if (depthLimit == 0) {
+                heapSort(items, low, high, comparator);
+                return;
+            }
+            depthLimit--;
 
+            E pivot = items[choosePivot(items, low, high, comparator)];
+            // all items equal to the pivot are now at their right place
+            int[] equalPart = partition(items, low, high, pivot, comparator);
+            int lessThan = equalPart[0];
+            int greaterThan = equalPart[1];
+
+            // Separately sort elements before and after the equal part, smallest part first
+            if (lessThan - low < high - greaterThan) {
+                recursiveQuickSort(items, low, lessThan - 1, depthLimit, comparator);
+                low = greaterThan + 1;
+            } else {
+                recursiveQuickSort(items, greaterThan + 1, high, depthLimit, comparator);
+                high = lessThan - 1;
+            }
+        }
+        insertionSort(items, low, high, comparator);
+    }
 
     /**
      * Sorts all items by quick sort using the provided comparator
      * for deciding relative ordening of two items
-     * Items are sorted 'in place' without use of an auxiliary list or array
+     * Items are sorted in an array copy of the list, which is written back into the list at the end
      * @param items
      * @param comparator
      * @return  the items sorted in place
      */
+    public List<E> quickSort(List<E> items, Comparator<E> comparator) {
+        return writeBack(quickSort(toArray(items), comparator), items);
+    }
 
-    private int partition (List<E> items, int low, int high, Comparator<E> comparator){
-        E pivot = items.get(high);
+    /**
+     * Sorts all items of the array by quick sort using the provided comparator
+     * @param items
+     * @param comparator
+     * @return  the items array sorted in place
+     */
+    public E[] quickSort(E[] items, Comparator<E> comparator) {
+        recursiveQuickSort(items, 0, items.length - 1, depthLimitOf(items.length), comparator);
+        return items;
+    }
 
-        int i = (low - 1);
+    /**
+     * @return the depth of partitioning after which quickSort falls back to heapsort: 2 * log2(n)
+     */
+    private static int depthLimitOf(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(n, 1)));
+    }
 
-        for (int j = low; j <= high ; j++) {
+    /**
+     * Sorts items[low..high] by a full heapsort, with a heap that is rooted at items[low]
+     * @param items
+     * @param low index of the first item
+     * @param high index of the last item
+     * @param comparator to compare the items
+     */
+    private void heapSort(E[] items, int low, int high, Comparator<E> comparator) {
+        int n = high - low + 1;
+        // organise items[low..high] into a heap that has the largest item at its root
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            maxHeapSink(items, low, i, n, comparator);
+        }
+        for (int heapSize = n - 1; heapSize > 0; heapSize--) {
+            // loop-invariant: items[low+heapSize+1..high] contains the largest items, sorted
+            swap(items, low, low + heapSize);
+            maxHeapSink(items, low, 0, heapSize, comparator);
+        }
+    }
 
-            if (comparator.compare(items.get(j), pivot) < 0) {
-                i++;
-                swap(items,i,j);
+    /**
+     * Repairs the heap condition for items[offset+parentIndex] in the heap items[offset..offset+heapSize-1]
+     * which has the largest item at its root
+     */
+    private void maxHeapSink(E[] items, int offset, int parentIndex, int heapSize, Comparator<E> comparator) {
+        E sinker = items[offset + parentIndex];
+        int childIndex = 2 * parentIndex + 1;
+        while (childIndex < heapSize) {
+            if (childIndex + 1 < heapSize &&
+                    comparator.compare(items[offset + childIndex], items[offset + childIndex + 1]) < 0) {
+                childIndex++;
+            }
+            if (comparator.compare(sinker, items[offset + childIndex]) >= 0) {
+                break;
             }
+            items[offset + parentIndex] = items[offset + childIndex];
+            parentIndex = childIndex;
+            childIndex = 2 * parentIndex + 1;
         }
-        swap(items, i + 1, high);
-        return (i + 1);
+        items[offset + parentIndex] = sinker;
     }
 
     /**
-     * Helper function to recursively sort the items
-     * @param items that need to be sorted
-     * @param low index of the first item
-     * @param high index of the second item
-     * @param comparator to compare the items
+     * Sorts all items by quick sort, sorting the partitions of larger ranges in parallel in the common fork-join pool
+     * Items are sorted in an array copy of the list, which is written back into the list at the end
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
      */
+    public List<E> parallelQuickSort(List<E> items, Comparator<E> comparator) {
+        return parallelQuickSort(ForkJoinPool.commonPool(), items, comparator);
+    }
 
-    private void recursiveQuickSort(List<E> items, int low, int high, Comparator<E> comparator) {
-        {
-            if (low < high) {
+    /**
+     * Sorts all items by quick sort, sorting the partitions of larger ranges in parallel in the given pool
+     * @param pool  the pool that provides the threads, its parallelism limits the number of cores that are used
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
+     */
+    public List<E> parallelQuickSort(ForkJoinPool pool, List<E> items, Comparator<E> comparator) {
+        E[] sorted = toArray(items);
+        pool.invoke(new QuickSortTask(sorted, 0, sorted.length - 1, depthLimitOf(sorted.length), comparator));
+        return writeBack(sorted, items);
+    }
 
-                // is now at right place
-                int partitionIndex = partition(items, low, high, comparator);
-                // Separately sort elements before
-                // partition and after partition
-                recursiveQuickSort(items, low, partitionIndex - 1, comparator);
-                recursiveQuickSort(items, partitionIndex + 1, high, comparator);
+    /**
+     * Sorts items[low..high] by quick sort, forking the sort of both partitions while ranges are large
+     * Ranges below PARALLEL_THRESHOLD are left to the sequential quicksort, because the overhead of a task
+     * would exceed the gain of parallel execution
+     * Tasks only read and write their own range of items, so the array can safely be shared between the tasks
+     */
+    private class QuickSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;    // tasks are never serialized, but RecursiveAction is Serializable
+        private final E[] items;
+        private final int low;
+        private final int high;
+        private final int depthLimit;
+        private final Comparator<E> comparator;
+
+        QuickSortTask(E[] items, int low, int high, int depthLimit, Comparator<E> comparator) {
+            this.items = items;
+            this.low = low;
+            this.high = high;
+            this.depthLimit = depthLimit;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low + 1 <= PARALLEL_THRESHOLD || depthLimit == 0) {
+                recursiveQuickSort(items, low, high, depthLimit, comparator);
+                return;
             }
+            E pivot = items[choosePivot(items, low, high, comparator)];
+            int[] equalPart = partition(items, low, high, pivot, comparator);
+            invokeAll(new QuickSortTask(items, low, equalPart[0] - 1, depthLimit - 1, comparator),
+                    new QuickSortTask(items, equalPart[1] + 1, high, depthLimit - 1, comparator));
         }
     }
-    public List<E> quickSort(List<E> items, Comparator<E> comparator) {
-        recursiveQuickSort(items,0, items.size() - 1, comparator);
-        return items;
+
+    /**
+     * Sorts all items by a stable merge sort, sorting and merging the halves of larger ranges in parallel
+     * in the common fork-join pool
+     * The items are sorted in an auxiliary array and written back into the list at the end
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
+     */
+    public List<E> parallelMergeSort(List<E> items, Comparator<E> comparator) {
+        return parallelMergeSort(ForkJoinPool.commonPool(), items, comparator);
+    }
+
+    /**
+     * Sorts all items by a stable merge sort, sorting and merging the halves of larger ranges in parallel
+     * in the given pool
+     * @param pool  the pool that provides the threads, its parallelism limits the number of cores that are used
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> parallelMergeSort(ForkJoinPool pool, List<E> items, Comparator<E> comparator) {
+        E[] sorted = toArray(items);
+        E[] buffer = (E[]) new Object[sorted.length];
+        pool.invoke(new MergeSortTask<>(sorted, buffer, 0, sorted.length, comparator));
+        return writeBack(sorted, items);
+    }
+
+    /**
+     * Sorts items[from..to) stably, using buffer[from..to) as auxiliary space
+     * The halves of ranges above PARALLEL_THRESHOLD are sorted and merged by forked tasks
+     */
+    private static class MergeSortTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;    // tasks are never serialized, but RecursiveAction is Serializable
+        private final E[] items;
+        private final E[] buffer;
+        private final int from;
+        private final int to;
+        private final Comparator<E> comparator;
+
+        MergeSortTask(E[] items, E[] buffer, int from, int to, Comparator<E> comparator) {
+            this.items = items;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                mergeSort(items, buffer, from, to, comparator);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MergeSortTask<>(items, buffer, from, middle, comparator),
+                    new MergeSortTask<>(items, buffer, middle, to, comparator));
+            if (comparator.compare(items[middle - 1], items[middle]) <= 0) return;   // already in order
+
+            System.arraycopy(items, from, buffer, from, to - from);
+            new MergeTask<>(buffer, from, middle, middle, to, items, from, comparator).compute();
+        }
+    }
+
+    /**
+     * Merges the sorted runs source[from1..to1) and source[from2..to2) into target[at..]
+     * Large merges are split into two independent merges: the larger run is split at its middle item,
+     * the smaller run at the position where that item would be inserted, keeping equal items of the
+     * first run ahead of equal items of the second run
+     */
+    private static class MergeTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;    // tasks are never serialized, but RecursiveAction is Serializable
+        private final E[] source;
+        private final int from1, to1, from2, to2;
+        private final E[] target;
+        private final int at;
+        private final Comparator<E> comparator;
+
+        MergeTask(E[] source, int from1, int to1, int from2, int to2, E[] target, int at, Comparator<E> comparator) {
+            this.source = source;
+            this.from1 = from1;
+            this.to1 = to1;
+            this.from2 = from2;
+            this.to2 = to2;
+            this.target = target;
+            this.at = at;
+            this.comparator = comparator;
+        }
+
+        @Override
+        protected void compute() {
+            if ((to1 - from1) + (to2 - from2) <= PARALLEL_THRESHOLD) {
+                merge(source, from1, to1, from2, to2, target, at, comparator);
+                return;
+            }
+            int split1, split2;
+            if (to1 - from1 >= to2 - from2) {
+                split1 = (from1 + to1) >>> 1;
+                // the items of the second run that precede source[split1]
+                split2 = search(source, from2, to2, source[split1], false, comparator);
+            } else {
+                split2 = (from2 + to2) >>> 1;
+                // the items of the first run that do not succeed source[split2]
+                split1 = search(source, from1, to1, source[split2], true, comparator);
+            }
+            int splitAt = at + (split1 - from1) + (split2 - from2);
+            invokeAll(new MergeTask<>(source, from1, split1, from2, split2, target, at, comparator),
+                    new MergeTask<>(source, split1, to1, split2, to2, target, splitAt, comparator));
+        }
+    }
+
+    /**
+     * Sorts items[from..to) stably by a sequential top-down merge sort,
+     * using buffer[from..to) as auxiliary space and insertion sort for small ranges
+     */
+    private static <E> void mergeSort(E[] items, E[] buffer, int from, int to, Comparator<E> comparator) {
+        if (to - from <= DEFAULT_INSERTION_SORT_CUTOFF) {
+            for (int i = from + 1; i < to; i++) {
+                E item = items[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(items[j], item) > 0) {
+                    items[j + 1] = items[j];
+                    j--;
+                }
+                items[j + 1] = item;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(items, buffer, from, middle, comparator);
+        mergeSort(items, buffer, middle, to, comparator);
+        if (comparator.compare(items[middle - 1], items[middle]) <= 0) return;   // already in order
+
+        System.arraycopy(items, from, buffer, from, to - from);
+        merge(buffer, from, middle, middle, to, items, from, comparator);
+    }
+
+    /**
+     * Merges the sorted runs source[from1..to1) and source[from2..to2) into target[at..]
+     * taking from the first run when items are equal, which keeps the merge stable
+     */
+    private static <E> void merge(E[] source, int from1, int to1, int from2, int to2, E[] target, int at,
+                                  Comparator<E> comparator) {
+        while (from1 < to1 && from2 < to2) {
+            if (comparator.compare(source[from2], source[from1]) < 0) {
+                target[at++] = source[from2++];
+            } else {
+                target[at++] = source[from1++];
+            }
+        }
+        System.arraycopy(source, from1, target, at, to1 - from1);
+        System.arraycopy(source, from2, target, at + (to1 - from1), to2 - from2);
+    }
+
+    /**
+     * Binary search in the sorted range items[from..to)
+     * @param afterEqual    whether the position shall be after (true) or before (false) all items that equal key
+     * @return              the first position in from..to where key can be inserted keeping the range sorted
+     */
+    private static <E> int search(E[] items, int from, int to, E key, boolean afterEqual, Comparator<E> comparator) {
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            int comparison = comparator.compare(items[middle], key);
+            if (comparison < 0 || (afterEqual && comparison == 0)) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Sorts all items by a stable, natural merge sort in the style of TimSort
+     * The sort detects the runs of items that are already in order, extends short runs by binary insertion sort,
+     * and merges the runs pairwise, galloping through long stretches that come from one and the same run.
+     * Charts that are largely sorted already, like this week's songs in the order of last week's chart,
+     * are therefore sorted in close to linear time.
+     * Items that compare equal keep their original relative order.
+     * The items are sorted in an auxiliary array and written back into the list at the end
+     * @param items
+     * @param comparator
+     * @return  the items sorted in place
+     */
+    public List<E> timSort(List<E> items, Comparator<E> comparator) {
+        E[] sorted = toArray(items);
+        new TimSort<>(sorted, comparator).sort();
+        return writeBack(sorted, items);
+    }
+
+    /**
+     * Sorts an array by natural merge sort, keeping a stack of pending runs
+     */
+    private static class TimSort<E> {
+        private static final int MIN_MERGE = 32;        // arrays shorter than this are sorted by binary insertion sort
+        private static final int MIN_GALLOP = 7;        // the number of consecutive wins of a run that starts galloping
+
+        private final E[] items;
+        private final Comparator<E> comparator;
+        private E[] buffer;                             // holds a copy of the first run of a merge
+        private final int[] runBase = new int[49];
+        private final int[] runLength = new int[49];
+        private int numberOfRuns = 0;
+
+        /* Representation Invariant:
+         *      the pending runs are adjacent: runBase[i] + runLength[i] == runBase[i+1]
+         *      after every mergeCollapse, for all pending runs:
+         *          runLength[i-2] > runLength[i-1] + runLength[i] and runLength[i-1] > runLength[i]
+         *      so the run lengths grow at least as fast as the Fibonacci numbers, and 49 runs suffice
+         */
+
+        @SuppressWarnings("unchecked")
+        TimSort(E[] items, Comparator<E> comparator) {
+            this.items = items;
+            this.comparator = comparator;
+            this.buffer = (E[]) new Object[Math.min(items.length / 2 + 1, 256)];
+        }
+
+        void sort() {
+            int n = items.length;
+            if (n < 2) return;
+            if (n < MIN_MERGE) {
+                binaryInsertionSort(0, n, ascendingRunLength(0, n));
+                return;
+            }
+
+            int minRun = minRunLength(n);
+            int low = 0;
+            while (low < n) {
+                int length = ascendingRunLength(low, n);
+                if (length < minRun) {
+                    // extend the run to minRun items, or to the end of the array
+                    int extendedLength = Math.min(minRun, n - low);
+                    binaryInsertionSort(low, low + extendedLength, low + length);
+                    length = extendedLength;
+                }
+                runBase[numberOfRuns] = low;
+                runLength[numberOfRuns] = length;
+                numberOfRuns++;
+                mergeCollapse();
+                low += length;
+            }
+            // merge all remaining runs, youngest first
+            while (numberOfRuns > 1) {
+                int i = numberOfRuns - 2;
+                if (i > 0 && runLength[i - 1] < runLength[i + 1]) i--;
+                mergeAt(i);
+            }
+        }
+
+        /**
+         * @return  the minimum run length for n items: a number between MIN_MERGE/2 and MIN_MERGE,
+         *          such that n / minRun is (slightly less than) a power of two
+         */
+        private static int minRunLength(int n) {
+            int remainder = 0;
+            while (n >= MIN_MERGE) {
+                remainder |= (n & 1);
+                n >>= 1;
+            }
+            return n + remainder;
+        }
+
+        /**
+         * finds the length of the run that starts at items[low],
+         * and reverses the run if it is strictly descending, which does not affect stability
+         */
+        private int ascendingRunLength(int low, int high) {
+            int runHigh = low + 1;
+            if (runHigh == high) return 1;
+
+            if (comparator.compare(items[runHigh++], items[low]) < 0) {
+                while (runHigh < high && comparator.compare(items[runHigh], items[runHigh - 1]) < 0) runHigh++;
+                for (int i = low, j = runHigh - 1; i < j; i++, j--) {
+                    E item = items[i];
+                    items[i] = items[j];
+                    items[j] = item;
+                }
+            } else {
+                while (runHigh < high && comparator.compare(items[runHigh], items[runHigh - 1]) >= 0) runHigh++;
+            }
+            return runHigh - low;
+        }
+
+        /**
+         * sorts items[low..high) by binary insertion sort, given that items[low..start) are sorted already
+         * every item is inserted behind all equal items, which keeps the sort stable
+         */
+        private void binaryInsertionSort(int low, int high, int start) {
+            for (int i = start; i < high; i++) {
+                E item = items[i];
+                int position = search(items, low, i, item, true, comparator);
+                System.arraycopy(items, position, items, position + 1, i - position);
+                items[position] = item;
+            }
+        }
+
+        /**
+         * merges pending runs until the representation invariant holds again
+         */
+        private void mergeCollapse() {
+            while (numberOfRuns > 1) {
+                int i = numberOfRuns - 2;
+                if (i > 0 && runLength[i - 1] <= runLength[i] + runLength[i + 1] ||
+                        i > 1 && runLength[i - 2] <= runLength[i - 1] + runLength[i]) {
+                    if (runLength[i - 1] < runLength[i + 1]) i--;
+                } else if (runLength[i] > runLength[i + 1]) {
+                    break;
+                }
+                mergeAt(i);
+            }
+        }
+
+        /**
+         * merges the pending runs i and i+1 into a single run
+         */
+        private void mergeAt(int i) {
+            int base1 = runBase[i];
+            int length1 = runLength[i];
+            int base2 = runBase[i + 1];
+            int length2 = runLength[i + 1];
+
+            runLength[i] = length1 + length2;
+            if (i == numberOfRuns - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLength[i + 1] = runLength[i + 2];
+            }
+            numberOfRuns--;
+
+            // the first items of run 1 that do not succeed the first item of run 2 are at their right place already
+            int inPlace = gallop(items[base2], items, base1, base1 + length1, true) - base1;
+            base1 += inPlace;
+            length1 -= inPlace;
+            if (length1 == 0) return;
+
+            // as are the last items of run 2 that do not precede the last item of run 1
+            length2 = gallop(items[base1 + length1 - 1], items, base2, base2 + length2, false) - base2;
+            if (length2 == 0) return;
+
+            merge(base1, length1, base2, length2);
+        }
+
+        /**
+         * merges the adjacent runs items[base1..base1+length1) and items[base2..base2+length2),
+         * from a copy of the first run
+         * when one of the runs wins MIN_GALLOP times in a row, the merge gallops:
+         * it searches how many of the next items come from the same run, and moves these items in bulk
+         */
+        @SuppressWarnings("unchecked")
+        private void merge(int base1, int length1, int base2, int length2) {
+            if (buffer.length < length1) {
+                buffer = (E[]) new Object[Math.max(length1, Math.min(2 * buffer.length, items.length / 2 + 1))];
+            }
+            System.arraycopy(items, base1, buffer, 0, length1);
+            int cursor1 = 0;                    // in buffer
+            int cursor2 = base2;                // in items
+            int end2 = base2 + length2;
+            int destination = base1;
+
+            merging:
+            while (true) {
+                int wins1 = 0;
+                int wins2 = 0;
+                // one item at a time, until one run wins consistently
+                while (wins1 < MIN_GALLOP && wins2 < MIN_GALLOP) {
+                    if (comparator.compare(items[cursor2], buffer[cursor1]) < 0) {
+                        items[destination++] = items[cursor2++];
+                        wins2++;
+                        wins1 = 0;
+                        if (cursor2 == end2) break merging;
+                    } else {
+                        items[destination++] = buffer[cursor1++];
+                        wins1++;
+                        wins2 = 0;
+                        if (cursor1 == length1) break merging;
+                    }
+                }
+                // galloping, until the runs interleave finely again
+                int count1, count2;
+                do {
+                    count1 = gallop(items[cursor2], buffer, cursor1, length1, true) - cursor1;
+                    System.arraycopy(buffer, cursor1, items, destination, count1);
+                    destination += count1;
+                    cursor1 += count1;
+                    if (cursor1 == length1) break merging;
+                    items[destination++] = items[cursor2++];
+                    if (cursor2 == end2) break merging;
+
+                    count2 = gallop(buffer[cursor1], items, cursor2, end2, false) - cursor2;
+                    System.arraycopy(items, cursor2, items, destination, count2);
+                    destination += count2;
+                    cursor2 += count2;
+                    if (cursor2 == end2) break merging;
+                    items[destination++] = buffer[cursor1++];
+                    if (cursor1 == length1) break merging;
+                } while (count1 >= MIN_GALLOP || count2 >= MIN_GALLOP);
+            }
+            // the remainder of run 2 is at its right place already
+            System.arraycopy(buffer, cursor1, items, destination, length1 - cursor1);
+        }
+
+        /**
+         * Exponential search in the sorted range items[from..to): probes at distances 1, 3, 7, 15 ... from the start,
+         * and finishes with a binary search between the last two probes
+         * which is faster than a plain binary search if the position is near the start of the range
+         * @param afterEqual    whether the position shall be after (true) or before (false) all items that equal key
+         * @return              the first position in from..to where key can be inserted keeping the range sorted
+         */
+        private int gallop(E key, E[] items, int from, int to, boolean afterEqual) {
+            int lastProbe = from;
+            int offset = 1;
+            while (from + offset - 1 < to) {
+                int comparison = comparator.compare(items[from + offset - 1], key);
+                if (comparison > 0 || (!afterEqual && comparison == 0)) {
+                    return search(items, lastProbe, from + offset - 1, key, afterEqual, comparator);
+                }
+                lastProbe = from + offset;
+                offset = 2 * offset + 1;
+                if (offset <= 0) break;         // overflow
+            }
+            return search(items, lastProbe, to, key, afterEqual, comparator);
+        }
+    }
+
+    /**
+     * Finds the insertion sort cutoff that makes quickSort fastest on this machine,
+     * by timing quickSort on shuffled copies of the sample for every candidate cutoff
+     * The sample should be representative for the items and comparator that will be sorted, and large enough
+     * (e.g. 100000 items) to let the just-in-time compiler settle in the first, unmeasured round
+     * @param sample            the items to be sorted, the sample itself is not changed
+     * @param comparator
+     * @param candidateCutoffs  the cutoffs to be tried, or none to try a default range from 4 to 64
+     * @return                  the candidate cutoff with the shortest total sorting time
+     */
+    public static <E> int calibrateInsertionSortCutoff(List<E> sample, Comparator<E> comparator, int... candidateCutoffs) {
+        final int NUMBER_OF_RUNS = 5;
+        if (candidateCutoffs.length == 0) candidateCutoffs = CALIBRATION_CUTOFFS;
+
+        long[] durations = new long[candidateCutoffs.length];
+        // round 0 warms up and is not measured
+        for (int run = 0; run <= NUMBER_OF_RUNS; run++) {
+            for (int c = 0; c < candidateCutoffs.length; c++) {
+                List<E> items = new ArrayList<>(sample);
+                Collections.shuffle(items, new Random(run));
+                long startTime = System.nanoTime();
+                new SorterImpl<E>(candidateCutoffs[c]).quickSort(items, comparator);
+                if (run > 0) durations[c] += System.nanoTime() - startTime;
+            }
+        }
+
+        int best = 0;
+        for (int c = 1; c < candidateCutoffs.length; c++) {
+            if (durations[c] < durations[best]) best = c;
+        }
+        return candidateCutoffs[best];
     }
 
     /**
@@ -107,14 +815,56 @@ public class SorterImpl<E> implements Sorter<E> {
      * and organizes and sorts this lead collection into the first numTops positions of the list
      * with use of (zero-based) heapSwim and heapSink operations.
      * The remaining items are kept in the tail of the list, in arbitrary order.
-     * Items are sorted 'in place' without use of an auxiliary list or array or other positions in items
+     * The list is traversed once by a list iterator, the lead collection is kept apart in a heap array
+     * and the demoted items are written back into the tail positions of the items that replace them
      * @param numTops       the size of the lead collection of items to be found and sorted
      * @param items
      * @param comparator
      * @return              the items list with its first numTops items sorted according to comparator
      *                      all other items >= any item in the lead collection
      */
+    @SuppressWarnings("unchecked")
     public List<E> topsHeapSort(int numTops, List<E> items, Comparator<E> comparator) {
+        numTops = Math.min(numTops, items.size());
+        if (numTops <= 0) return items;
+        Comparator<E> reverseComparator = comparator.reversed();
+
+        // initialise the lead collection with the first numTops items in the list
+        E[] leadItems = (E[]) new Object[numTops];
+        ListIterator<E> iterator = items.listIterator();
+        for (int heapSize = 1; heapSize <= numTops; heapSize++) {
+            leadItems[heapSize - 1] = iterator.next();
+            heapSwim(leadItems, heapSize, reverseComparator);
+        }
+
+        // insert remaining items into the lead collection as appropriate
+        while (iterator.hasNext()) {
+            // loop-invariant: leadItems represents the current lead collection in a heap data structure
+            //  the root of the heap is the currently trailing item in the lead collection
+            E item = iterator.next();
+            if (comparator.compare(item, leadItems[0]) < 0) {
+                // demote the worst lead item back to the tail collection, at the orginal position of item
+                iterator.set(leadItems[0]);
+                leadItems[0] = item;
+                heapSink(leadItems, numTops, reverseComparator);
+            }
+        }
+
+        // sort the lead collection and put it in the first numTops positions of the list
+        writeBack(topsHeapSort(numTops, leadItems, comparator), items.subList(0, numTops));
+        return items;
+    }
+
+    /**
+     * Identifies and sorts the lead collection of numTops items into the first numTops positions of the array
+     * Items are sorted 'in place' without use of an auxiliary list or array or other positions in items
+     * @param numTops       the size of the lead collection of items to be found and sorted
+     * @param items
+     * @param comparator
+     * @return              the items array with its first numTops items sorted according to comparator
+     *                      all other items >= any item in the lead collection
+     */
+    public E[] topsHeapSort(int numTops, E[] items, Comparator<E> comparator) {
         // the lead collection of numTops items will be organised into a (zero-based) heap structure
         // in the first numTops list positions using the reverseComparator for the heap condition.
         // that way the root of the heap will contain the worst item of the lead collection
@@ -128,17 +878,17 @@ public class SorterImpl<E> implements Sorter<E> {
         }
 
         // insert remaining items into the lead collection as appropriate
-        for (int i = numTops; i < items.size(); i++) {
+        for (int i = numTops; i < items.length; i++) {
             // loop-invariant: items[0..numTops-1] represents the current lead collection in a heap data structure
             //  the root of the heap is the currently trailing item in the lead collection,
             //  which will lose its membership if a better item is found from position i onwards
-            E item = items.get(i);
-            E worstLeadItem = items.get(0);
+            E item = items[i];
+            E worstLeadItem = items[0];
             if (comparator.compare(item, worstLeadItem) < 0) {
                 // item < worstLeadItem, so shall be included in the lead collection
-                items.set(0, item);
+                items[0] = item;
                 // demote worstLeadItem back to the tail collection, at the orginal position of item
-                items.set(i, worstLeadItem);
+                items[i] = worstLeadItem;
                 // repair the heap condition of the lead collection
                 heapSink(items, numTops, reverseComparator);
             }
@@ -164,6 +914,7 @@ public class SorterImpl<E> implements Sorter<E> {
      * The zero-bases heap condition says:
      *                      all items[i] <= items[2*i+1] and items[i] <= items[2*i+2], if any
      * or equivalently:     all items[i] >= items[(i-1)/2]
+     * topsHeapSort works on arrays with the private heapSwim below, this list version remains for the heap tests
      * @param items
      * @param heapSize
      * @param comparator
@@ -181,6 +932,7 @@ public class SorterImpl<E> implements Sorter<E> {
      * The zero-bases heap condition says:
      *                      all items[i] <= items[2*i+1] and items[i] <= items[2*i+2], if any
      * or equivalently:     all items[i] >= items[(i-1)/2]
+     * topsHeapSort works on arrays with the private heapSink below, this list version remains for the heap tests
      * @param items
      * @param heapSize
      * @param comparator
@@ -203,4 +955,42 @@ public class SorterImpl<E> implements Sorter<E> {
             childIndex = 2 * parentIndex + 1;
         }
     }
+
+    /**
+     * Repairs the zero-based heap condition for items[heapSize-1] on the basis of the comparator,
+     * by swapping it up along its path to the root while it precedes its parent
+     * all items[0..heapSize-2] are assumed to satisfy the heap condition
+     */
+    private void heapSwim(E[] items, int heapSize, Comparator<E> comparator) {
+        int childIndex = heapSize - 1;
+        E swimmer = items[childIndex];
+        while (childIndex > 0 && comparator.compare(swimmer, items[(childIndex - 1) / 2]) < 0) {
+            items[childIndex] = items[(childIndex - 1) / 2];
+            childIndex = (childIndex - 1) / 2;
+        }
+        items[childIndex] = swimmer;
+    }
+
+    /**
+     * Repairs the zero-based heap condition for its root items[0] on the basis of the comparator
+     * all items[1..heapSize-1] are assumed to satisfy the heap condition
+     */
+    private void heapSink(E[] items, int heapSize, Comparator<E> comparator) {
+        int parentIndex = 0;
+        int childIndex = 2 * parentIndex + 1;
+        E sinker = items[parentIndex];
+
+        while (childIndex < heapSize) {
+            if (childIndex + 1 < heapSize && comparator.compare(items[childIndex], items[childIndex + 1]) > 0) {
+                childIndex++;
+            }
+            if (comparator.compare(sinker, items[childIndex]) <= 0) {
+                break;
+            }
+            items[parentIndex] = items[childIndex];
+            parentIndex = childIndex;
+            childIndex = 2 * parentIndex + 1;
+        }
+        items[parentIndex] = sinker;
+    }
 }
@@ -0,0 +1,81 @@
+package spotifycharts;
+
+import util.DataToCSV;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * This class is used to measure quickSort and topsHeapSort on array-backed and linked lists of songs.
+ *
+ * Every sort is measured a number of runs after a warm-up run, on an ArrayList of the given amount of songs
+ * and on a LinkedList of 1/50 of that amount. The measurements are written to CSV files.
+ * Arguments: [amountOfSongs] [ranking|title], to select the comparator.
+ * Run it with the just-in-time compiler enabled, e.g. from the IDE, since the surefire configuration disables it.
+ */
+public class ArrayPathEfficiencyTest {
+
+    private static DataToCSV quickSortDataToCSV = new DataToCSV("ArrayListQuickSort");
+    private static DataToCSV heapSortDataToCSV = new DataToCSV("ArrayListHeapSort");
+    private static DataToCSV linkedQuickSortDataToCSV = new DataToCSV("LinkedListQuickSort");
+    private static DataToCSV linkedHeapSortDataToCSV = new DataToCSV("LinkedListHeapSort");
+
+    public static void main(String[] args) {
+        System.out.println("Welcome to the HvA Spotify Array Path Efficiency test\n");
+        SorterImpl<Song> sorter = new SorterImpl<Song>();
+        final int AMOUNT_OF_SONGS = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        // the ranking calculates the streams count totals on every comparison, sorting by title is much cheaper
+        Comparator<Song> comparator = (args.length > 1 && args[1].equals("title")) ?
+                Comparator.comparing(Song::getTitle) : Song::compareByHighestStreamsCountTotal;
+        final int NUMBER_OF_RUNS = 5;
+
+        ChartsCalculator chartsCalculator = new ChartsCalculator(20060423L);
+        List<Song> songs = chartsCalculator.registerStreamedSongs(AMOUNT_OF_SONGS);
+        List<Song> fewerSongs = songs.subList(0, AMOUNT_OF_SONGS / 50);
+
+        measure("ArrayList quickSort", songs, ArrayList::new, items -> sorter.quickSort(items, comparator),
+                NUMBER_OF_RUNS, quickSortDataToCSV);
+        measure("ArrayList topsHeapSort", songs, ArrayList::new, items -> sorter.topsHeapSort(25, items, comparator),
+                NUMBER_OF_RUNS, heapSortDataToCSV);
+        measure("LinkedList quickSort", fewerSongs, LinkedList::new, items -> sorter.quickSort(items, comparator),
+                NUMBER_OF_RUNS, linkedQuickSortDataToCSV);
+        measure("LinkedList topsHeapSort", fewerSongs, LinkedList::new, items -> sorter.topsHeapSort(25, items, comparator),
+                NUMBER_OF_RUNS, linkedHeapSortDataToCSV);
+
+        quickSortDataToCSV.closeWriter();
+        heapSortDataToCSV.closeWriter();
+        linkedQuickSortDataToCSV.closeWriter();
+        linkedHeapSortDataToCSV.closeWriter();
+    }
+
+    /**
+     * This method will sort copies of the songs with the given sort and report the average duration.
+     * The first run only warms up the just-in-time compiler and is not measured.
+     * @param description of the sort and list
+     * @param songs you want to sort
+     * @param listFactory that copies the songs into the kind of list to be sorted
+     * @param sort the sort to be measured
+     * @param numberOfRuns the number of measured runs
+     * @param dataToCSV the file that receives the measurements
+     */
+    private static void measure(String description, List<Song> songs, Function<List<Song>, List<Song>> listFactory,
+                                Consumer<List<Song>> sort, int numberOfRuns, DataToCSV dataToCSV) {
+        double totalDuration = 0;
+        for (int i = 0; i <= numberOfRuns; i++) {
+            List<Song> items = listFactory.apply(songs);
+            System.gc();
+            long startTime = System.nanoTime();
+            sort.accept(items);
+            long finishTime = System.nanoTime();
+            if (i > 0) {
+                dataToCSV.writeToFile(0, i, songs.size(), (finishTime - startTime) / 1E6);
+                totalDuration += (finishTime - startTime) / 1E6;
+            }
+        }
+        System.out.printf("%s of %d songs took %.1f ms on average\n", description, songs.size(), totalDuration / numberOfRuns);
+    }
+}
@@ -0,0 +1,89 @@
+package spotifycharts;
+
+import util.DataToCSV;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * This class is used to measure the speedup of the parallel sorting algorithms.
+ *
+ * The songs are sorted with a fork-join pool of 1, 2, 4, ... threads, up to the number of available cores.
+ * The measurements of every sort are written to a CSV file, with the number of threads in the RunNumber column,
+ * so the speedup can be plotted against the number of cores.
+ * Run it with the just-in-time compiler enabled, e.g. from the IDE, since the surefire configuration disables it.
+ */
+public class ParallelEfficiencyTest {
+
+    private static DataToCSV quickSortDataToCSV = new DataToCSV("SequentialQuickSort");
+    private static DataToCSV parallelQuickSortDataToCSV = new DataToCSV("ParallelQuickSort");
+    private static DataToCSV parallelMergeSortDataToCSV = new DataToCSV("ParallelMergeSort");
+
+    public static void main(String[] args) {
+        System.out.println("Welcome to the HvA Spotify Parallel Efficiency test\n");
+        SorterImpl<Song> sorter = new SorterImpl<Song>();
+        Comparator<Song> comparator = Song::compareByHighestStreamsCountTotal;
+        final int AMOUNT_OF_SONGS = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+        final int NUMBER_OF_RUNS = 5;
+        final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
+
+        ChartsCalculator chartsCalculator = new ChartsCalculator(20060423L);
+        List<Song> songs = chartsCalculator.registerStreamedSongs(AMOUNT_OF_SONGS);
+
+        // the first run of every sort only warms up the just-in-time compiler
+        double sequentialDuration = 0;
+        for (int i = 0; i <= NUMBER_OF_RUNS; i++) {
+            double duration = measure(new ArrayList<>(songs), items -> sorter.quickSort(items, comparator));
+            if (i > 0) {
+                quickSortDataToCSV.writeToFile(1, i, AMOUNT_OF_SONGS, duration);
+                sequentialDuration += duration / NUMBER_OF_RUNS;
+            }
+        }
+        System.out.printf("Sequential quickSort of %d songs took %.1f ms on average\n", AMOUNT_OF_SONGS, sequentialDuration);
+
+        int threads = 0;
+        while (threads < MAX_THREADS) {
+            threads = Math.min(Math.max(2 * threads, 1), MAX_THREADS);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            double quickSortDuration = 0;
+            double mergeSortDuration = 0;
+            for (int i = 0; i <= NUMBER_OF_RUNS; i++) {
+                double duration = measure(new ArrayList<>(songs), items -> sorter.parallelQuickSort(pool, items, comparator));
+                if (i > 0) {
+                    parallelQuickSortDataToCSV.writeToFile(threads, i, AMOUNT_OF_SONGS, duration);
+                    quickSortDuration += duration / NUMBER_OF_RUNS;
+                }
+                duration = measure(new ArrayList<>(songs), items -> sorter.parallelMergeSort(pool, items, comparator));
+                if (i > 0) {
+                    parallelMergeSortDataToCSV.writeToFile(threads, i, AMOUNT_OF_SONGS, duration);
+                    mergeSortDuration += duration / NUMBER_OF_RUNS;
+                }
+            }
+            pool.shutdown();
+            System.out.printf("%2d threads: parallelQuickSort took %.1f ms (speedup %.2f), parallelMergeSort took %.1f ms (speedup %.2f)\n",
+                    threads, quickSortDuration, sequentialDuration / quickSortDuration,
+                    mergeSortDuration, sequentialDuration / mergeSortDuration);
+        }
+
+        quickSortDataToCSV.closeWriter();
+        parallelQuickSortDataToCSV.closeWriter();
+        parallelMergeSortDataToCSV.closeWriter();
+    }
+
+    /**
+     * This method will sort the songs with the given sort and measure its duration.
+     * @param songs you want to sort
+     * @param sort the sort to be measured
+     * @return the duration of the sorting in milliseconds
+     */
+    private static double measure(List<Song> songs, Consumer<List<Song>> sort) {
+        System.gc();
+        long startTime = System.nanoTime();
+        sort.accept(songs);
+        long finishTime = System.nanoTime();
+        return (finishTime - startTime) / 1E6;
+    }
+}
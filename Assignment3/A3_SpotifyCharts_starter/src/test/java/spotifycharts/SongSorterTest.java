@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
@@ -35,6 +36,165 @@ class SongSorterTest {
         customSortAndCollectionSortResultInSameOrder(songSorter::quickSort);
     }
 
+    @Test
+    void quickSortHandlesAdverseInputShapes() {
+        List<Song> songs = new ArrayList<>(manySongs);
+        songs.addAll(manySongs);
+        songs.addAll(manySongs);
+        Comparator<Song> byTitle = Comparator.comparing(Song::getTitle);
+        List<Song> expected = new ArrayList<>(songs);
+        expected.sort(byTitle);
+
+        for (int insertionSortCutoff : new int[] { 1, 4, SorterImpl.DEFAULT_INSERTION_SORT_CUTOFF, 64 }) {
+            SorterImpl<Song> sorter = new SorterImpl<>(insertionSortCutoff);
+            // already sorted, reversed, organ-pipe shaped and all-equal inputs
+            List<Song> sorted = new ArrayList<>(expected);
+            List<Song> reversed = new ArrayList<>(expected);
+            Collections.reverse(reversed);
+            List<Song> organPipe = new ArrayList<>(expected.subList(0, expected.size() / 2));
+            organPipe.addAll(reversed.subList(0, expected.size() - organPipe.size()));
+            for (List<Song> items : List.of(sorted, reversed, organPipe)) {
+                sorter.quickSort(items, byTitle);
+                String difference = findFirstDifference(expected, items, byTitle, 3);
+                assertNull(difference, "cutoff=" + insertionSortCutoff + ": " + difference);
+            }
+            List<Song> equal = new ArrayList<>(expected);
+            sorter.quickSort(equal, (s1, s2) -> 0);
+            assertEquals(Set.copyOf(expected), Set.copyOf(equal));
+        }
+
+        int cutoff = SorterImpl.calibrateInsertionSortCutoff(manySongs, rankingScheme, 4, 16);
+        assertTrue(cutoff == 4 || cutoff == 16);
+        assertThrows(IllegalArgumentException.class, () -> new SorterImpl<Song>(0));
+    }
+
+    @Test
+    void quickSortIsStackSafeOnManyDuplicates() throws InterruptedException {
+        Comparator<Song> dutchNationalChart = Song::compareForDutchNationalChart;
+        List<Song> sortedSongs = new ArrayList<>(manySongs);
+        Collections.shuffle(sortedSongs);
+        songSorter.quickSort(sortedSongs, dutchNationalChart);
+        manySongs.sort(dutchNationalChart);
+        String difference = findFirstDifference(manySongs, sortedSongs, dutchNationalChart, 3);
+        assertNull(difference, difference);
+
+        // a thread with a small stack would overflow if the recursion depth were linear in the number of items
+        Random randomizer = new Random(2L);
+        List<Integer> sorted = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) sorted.add(i);
+        List<Integer> fewDistinct = new ArrayList<>();
+        for (int i = 0; i < 40000; i++) fewDistinct.add(randomizer.nextInt(3));
+        List<Throwable> failures = new ArrayList<>();
+        Thread sortingThread = new Thread(null, () -> {
+            try {
+                SorterImpl<Integer> sorter = new SorterImpl<>(1);
+                sorter.quickSort(sorted, Comparator.naturalOrder());
+                sorter.quickSort(fewDistinct, Comparator.naturalOrder());
+                sorter.quickSort(sorted, Comparator.reverseOrder());
+            } catch (Throwable failure) {
+                failures.add(failure);
+            }
+        }, "small-stack", 64 * 1024);
+        sortingThread.start();
+        sortingThread.join();
+
+        assertEquals(List.of(), failures);
+        assertEquals(39999, sorted.get(0));
+        assertEquals(0, sorted.get(39999));
+        for (int i = 1; i < fewDistinct.size(); i++) {
+            assertTrue(fewDistinct.get(i - 1) <= fewDistinct.get(i));
+        }
+    }
+
+    @Test
+    void parallelQuickSortAndCollectionSortYieldSameOrder() {
+        customSortAndCollectionSortResultInSameOrder(songSorter::parallelQuickSort);
+    }
+
+    @Test
+    void parallelMergeSortIsStableOnLargeLists() {
+        customSortAndCollectionSortResultInSameOrder(songSorter::parallelMergeSort);
+
+        // enough items to be split over multiple tasks, with many equal keys
+        Random randomizer = new Random(2L);
+        int[] keys = new int[50000];
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = randomizer.nextInt(100);
+            items.add(i);
+        }
+        Comparator<Integer> byKey = Comparator.comparingInt(i -> keys[i]);
+        List<Integer> expected = new ArrayList<>(items);
+        expected.sort(byKey);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        new SorterImpl<Integer>().parallelMergeSort(pool, items, byKey);
+        assertEquals(expected, items, "equal keys shall keep their original order");
+
+        Collections.shuffle(items, randomizer);
+        new SorterImpl<Integer>().parallelQuickSort(pool, items, byKey);
+        String difference = findFirstDifference(expected, items, byKey, 3);
+        assertNull(difference, difference);
+        pool.shutdown();
+    }
+
+    @Test
+    void timSortKeepsEqualSongsInPreviousChartOrder() {
+        customSortAndCollectionSortResultInSameOrder(songSorter::timSort);
+
+        // last week's chart, with ties in streams count
+        List<Song> previousChart = new ArrayList<>(manySongs);
+        previousChart.addAll(fewSongs);
+        previousChart.sort(Comparator.comparing(Song::getTitle));
+        Comparator<Song> byHundredsOfStreams = Comparator.comparingInt(song -> song.getStreamsCountTotal() / 100);
+        List<Song> expected = new ArrayList<>(previousChart);
+        expected.sort(byHundredsOfStreams);
+        songSorter.timSort(previousChart, byHundredsOfStreams);
+        assertEquals(expected, previousChart, "equal songs shall keep their previous chart order");
+
+        // a large, partially sorted chart: long runs in order, with interleaved and reversed stretches
+        Random randomizer = new Random(2L);
+        int[] keys = new int[30000];
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (i % 5000 < 4000) ? i / 3 : (i % 2 == 0 ? 20000 - i / 7 : randomizer.nextInt(10000));
+            items.add(i);
+        }
+        Comparator<Integer> byKey = Comparator.comparingInt(i -> keys[i]);
+        List<Integer> expectedItems = new ArrayList<>(items);
+        expectedItems.sort(byKey);
+        new SorterImpl<Integer>().timSort(items, byKey);
+        assertEquals(expectedItems, items);
+    }
+
+    @Test
+    void linkedListsAndArraysAreSortedThroughTheArrayPath() {
+        customSortAndCollectionSortResultInSameOrder((items, comparator) ->
+                writeInto(items, songSorter.quickSort(new LinkedList<>(items), comparator)));
+        customSortAndCollectionSortResultInSameOrder((items, comparator) ->
+                writeInto(items, Arrays.asList(songSorter.quickSort(items.toArray(new Song[0]), comparator))));
+
+        List<Song> linkedSongs = new LinkedList<>(manySongs);
+        Collections.shuffle(linkedSongs);
+        songSorter.topsHeapSort(25, linkedSongs, rankingScheme);
+        manySongs.sort(rankingScheme);
+        assertEquals(manySongs.subList(0, 25), linkedSongs.subList(0, 25));
+        assertEquals(Set.copyOf(manySongs), Set.copyOf(linkedSongs), "all songs shall remain in the list");
+
+        Song[] songArray = fewSongs.toArray(new Song[0]);
+        songSorter.topsHeapSort(5, songArray, rankingScheme);
+        fewSongs.sort(rankingScheme);
+        assertEquals(fewSongs.subList(0, 5), Arrays.asList(songArray).subList(0, 5));
+        assertSame(linkedSongs, songSorter.topsHeapSort(0, linkedSongs, rankingScheme));
+    }
+
+    private static List<Song> writeInto(List<Song> items, List<Song> sortedItems) {
+        for (int i = 0; i < items.size(); i++) {
+            items.set(i, sortedItems.get(i));
+        }
+        return items;
+    }
+
     private void customSortAndCollectionSortResultInSameOrder(BiFunction<List<Song>,Comparator,List<Song>> sorterMethod) {
         List<Song> fewSortedSongs = new ArrayList<>(fewSongs);
         Collections.shuffle(fewSortedSongs);